@@ -1,20 +1,31 @@
 package com.stocktax.application;
 
+import com.stocktax.application.jfr.OperationSetEvent;
+import com.stocktax.domain.TaxCalculator;
 import com.stocktax.domain.model.Operation;
 import com.stocktax.domain.model.TaxCalculation;
 import com.stocktax.domain.ports.InputPort;
 import com.stocktax.domain.ports.OutputPort;
+import com.stocktax.domain.ports.SummaryOutputPort;
+import com.stocktax.infrastructure.adapters.DoubleBufferedOutputAdapter;
+import com.stocktax.infrastructure.adapters.JsonOutputAdapter;
+import com.stocktax.infrastructure.adapters.PartitionedOutputAdapter;
 import com.stocktax.infrastructure.config.ApplicationConfig;
+import com.stocktax.infrastructure.config.CommandLineOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 public class Application {
 
-	private static final Logger logger = LoggerFactory.getLogger(Application.class);
-
 	private final TaxCalculationService taxCalculationService;
 	private final InputPort inputAdapter;
 	private final OutputPort outputAdapter;
@@ -28,39 +39,264 @@ public class Application {
 
 	public static void main(String[] args) {
 		try {
-			TaxCalculationService taxService = ApplicationConfig.createTaxCalculationService();
-			InputPort inputAdapter = ApplicationConfig.createInputAdapter();
-			OutputPort outputAdapter = ApplicationConfig.createOutputAdapter();
+			CommandLineOptions options = CommandLineOptions.parse(args);
+			if (options.has("metrics") || Boolean.getBoolean("stocktax.metrics")) {
+				ApplicationConfig.enableMetrics();
+			}
+			TaxCalculationService taxService = ApplicationConfig.createTaxCalculationService(options);
 
-			Application app = new Application(taxService, inputAdapter,
-					outputAdapter);
+			switch (options.getMode()) {
+			case "batch":
+				ApplicationConfig.createCheckpointedBatchRunner(taxService, options).run();
+				break;
+			case "directory":
+				ApplicationConfig.createDirectoryBatchRunner(taxService, options).run();
+				break;
+			case "pipeline":
+				ApplicationConfig.createPipelineRunner(taxService, options).run();
+				break;
+			case "partitioned":
+				try (PartitionedOutputAdapter partitions = ApplicationConfig.createPartitionedOutputAdapter(options)) {
+					ApplicationConfig.createPipelineRunner(taxService, partitions, options).run();
+					partitions.complete();
+				}
+				break;
+			case "aggregate":
+				Writer summaries = ApplicationConfig.createStdoutWriter();
+				try {
+					JsonOutputAdapter output = ApplicationConfig.createSummaryOutputAdapter(summaries);
+					new Application(taxService, ApplicationConfig.createInputAdapter(), output).runAggregate(output);
+				} finally {
+					summaries.flush();
+				}
+				break;
+			case "expand":
+				OutputStream expanded = ApplicationConfig.createStdoutStream();
+				try {
+					ApplicationConfig.createSparseOutputExpander().expand(System.in, expanded);
+				} finally {
+					expanded.flush();
+				}
+				break;
+			case "parallel":
+				Writer output = ApplicationConfig.createStdoutWriter();
+				try {
+					ApplicationConfig.createParallelFileRunner(taxService, output, options).run();
+				} finally {
+					output.flush();
+				}
+				break;
+			case "reactive":
+				ApplicationConfig.createReactiveRunner(taxService, options).run();
+				break;
+			case "stream":
+				Writer stdout = ApplicationConfig.createStdoutWriter();
+				try {
+					ApplicationConfig.createStreamingTaxRunner(stdout, options).run();
+				} finally {
+					stdout.flush();
+				}
+				break;
+			case "watch":
+				ApplicationConfig.createSpoolDirectoryWatcher(taxService, options).run();
+				break;
+			case CommandLineOptions.STDIN_MODE:
+				checkStdinSwitches(options);
+				if (options.has("spill-threshold")) {
+					runSpilling(taxService, options);
+					break;
+				}
+				if (options.has("async-output")) {
+					runAsyncOutput(taxService, options);
+					break;
+				}
+				if ("sparse".equals(options.getChoice("output-format", "dense", "dense", "sparse"))) {
+					runSparse(taxService);
+					break;
+				}
+				if (options.has("fast-start") || Boolean.getBoolean(ApplicationConfig.FAST_START_PROPERTY)) {
+					runFastStart(taxService);
+					break;
+				}
+				InputPort inputAdapter = ApplicationConfig.createInputAdapter();
+				OutputPort outputAdapter = ApplicationConfig.createOutputAdapter();
 
-			app.run();
+				Application app = new Application(taxService, inputAdapter,
+						outputAdapter);
+
+				app.run();
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown mode: " + options.getMode());
+			}
 
 		} catch (Exception e) {
-			logger.error("Application failed", e);
+			Log.logger.error("Application failed", e);
 			System.err.println("Error: " + e.getMessage());
 			System.exit(1);
 		}
 	}
 
+	/**
+	 * {@code --spill-threshold}, {@code --async-output} and {@code --output-format sparse}
+	 * each pick their own output: spilled results are streamed, while the other two encode
+	 * a whole set on the heap, and asynchronous output is dense. So at most one of them is
+	 * accepted; {@code --fast-start} combines with any, as all three already bypass the logger.
+	 */
+	static void checkStdinSwitches(CommandLineOptions options) {
+		List<String> outputs = new ArrayList<>();
+		if (options.has("spill-threshold")) {
+			outputs.add("--spill-threshold");
+		}
+		if (options.has("async-output")) {
+			outputs.add("--async-output");
+		}
+		if ("sparse".equals(options.getChoice("output-format", "dense", "dense", "sparse"))) {
+			outputs.add("--output-format sparse");
+		}
+		if (outputs.size() > 1) {
+			throw new IllegalArgumentException(String.join(" and ", outputs) + " cannot be combined");
+		}
+	}
+
+	/**
+	 * Sets too large for the heap are kept off-heap, and their results are streamed to
+	 * stdout rather than logged as one message
+	 */
+	private static void runSpilling(TaxCalculationService taxService, CommandLineOptions options)
+			throws IOException {
+		Writer stdout = ApplicationConfig.createStdoutWriter();
+		new Application(taxService, ApplicationConfig.createSpillingInputAdapter(options),
+				ApplicationConfig.createJsonOutputAdapter(stdout)).run();
+		stdout.flush();
+	}
+
+	/**
+	 * Results are written straight to stdout instead of through the logger, so logback is
+	 * only configured if something is actually logged
+	 */
+	private static void runFastStart(TaxCalculationService taxService) throws IOException {
+		Writer stdout = ApplicationConfig.createStdoutWriter();
+		new Application(taxService, ApplicationConfig.createInputAdapter(),
+				ApplicationConfig.createJsonOutputAdapter(stdout)).run();
+		stdout.flush();
+	}
+
+	/**
+	 * Only taxes other than a plain zero are written, as index and tax pairs; the
+	 * {@code expand} mode restores the usual output
+	 */
+	private static void runSparse(TaxCalculationService taxService) throws IOException {
+		OutputStream stdout = ApplicationConfig.createStdoutStream();
+		new Application(taxService, ApplicationConfig.createInputAdapter(),
+				ApplicationConfig.createSparseOutputAdapter(stdout)).run();
+		stdout.flush();
+	}
+
+	/**
+	 * Results are encoded into a pair of direct buffers and written to the stdout channel
+	 * on a background thread, so computation does not wait for each write
+	 */
+	private static void runAsyncOutput(TaxCalculationService taxService, CommandLineOptions options)
+			throws IOException {
+		try (DoubleBufferedOutputAdapter output = ApplicationConfig.createDoubleBufferedOutputAdapter(
+				ApplicationConfig.createStdoutChannel(), options)) {
+			new Application(taxService, ApplicationConfig.createInputAdapter(), output).run();
+		}
+	}
+
+	/**
+	 * Sets are read one at a time, so at most one set, with its results, is held at once;
+	 * for spilled sets that includes their native memory and temporary file
+	 */
 	public void run() throws IOException {
-		List<List<Operation>> allOperations = inputAdapter.readOperations();
+		Iterator<List<Operation>> operationSets = inputAdapter.operationSets();
+		try {
+			int i = 0;
+			for (; hasNext(operationSets); i++) {
+				List<Operation> operations = operationSets.next();
+				OperationSetEvent event = new OperationSetEvent();
+				event.begin();
+				List<TaxCalculation> taxCalculations = null;
+				try {
+					taxCalculations = taxCalculationService.calculateTaxes(operations);
+					outputAdapter.writeTaxCalculations(taxCalculations);
 
-		if (allOperations.isEmpty()) {
-			logger.warn("No operations provided in input");
-			return;
+					event.end();
+					if (event.shouldCommit()) {
+						event.setIndex = i + 1;
+						event.operationCount = operations.size();
+						event.taxedSellCount = TaxCalculator.countTaxed(taxCalculations);
+						event.commit();
+					}
+				} catch (Exception e) {
+					Log.logger.error("Error processing operation set {}", i + 1, e);
+					throw new IOException("Failed to process operation set " + (i + 1), e);
+				} finally {
+					// off-heap sets hold native memory and a temporary file
+					release(operations);
+					release(taxCalculations);
+				}
+			}
+			if (i == 0) {
+				Log.logger.warn("No operations provided in input");
+			}
+		} finally {
+			release(operationSets);
 		}
+	}
 
-		for (int i = 0; i < allOperations.size(); i++) {
-			List<Operation> operations = allOperations.get(i);
-			try {
-				List<TaxCalculation> taxCalculations = taxCalculationService.calculateTaxes(operations);
-				outputAdapter.writeTaxCalculations(taxCalculations);
-			} catch (Exception e) {
-				logger.error("Error processing operation set {}", i + 1, e);
-				throw new IOException("Failed to process operation set " + (i + 1), e);
+	/**
+	 * Writes one summary per set instead of its taxes. Sets are read one at a time, since
+	 * nothing of a set is kept once it is summarized.
+	 */
+	public void runAggregate(SummaryOutputPort summaryOutput) throws IOException {
+		Iterator<List<Operation>> operationSets = inputAdapter.operationSets();
+		try {
+			int index = 0;
+			while (hasNext(operationSets)) {
+				List<Operation> operations = operationSets.next();
+				index++;
+				try {
+					summaryOutput.writeTaxSummary(taxCalculationService.summarize(operations));
+				} catch (Exception e) {
+					Log.logger.error("Error processing operation set {}", index, e);
+					throw new IOException("Failed to process operation set " + index, e);
+				} finally {
+					release(operations);
+				}
+			}
+			if (index == 0) {
+				Log.logger.warn("No operations provided in input");
 			}
+		} finally {
+			release(operationSets);
 		}
 	}
+
+	/**
+	 * Surfaces a failure to read the next set as the {@link IOException} it was
+	 */
+	private static boolean hasNext(Iterator<List<Operation>> operationSets) throws IOException {
+		try {
+			return operationSets.hasNext();
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	private static void release(Object resource) throws IOException {
+		if (resource instanceof Closeable) {
+			((Closeable) resource).close();
+		}
+	}
+
+	/**
+	 * Logback is configured when something is first logged, so a run whose results go
+	 * straight to stdout never pays for it
+	 */
+	private static final class Log {
+
+		static final Logger logger = LoggerFactory.getLogger(Application.class);
+	}
 }
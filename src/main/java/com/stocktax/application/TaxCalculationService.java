@@ -1,37 +1,122 @@
 package com.stocktax.application;
 
+import com.stocktax.application.reactive.TaxCalculationProcessor;
 import com.stocktax.domain.TaxCalculator;
+import com.stocktax.domain.TaxEngine;
 import com.stocktax.domain.model.Operation;
 import com.stocktax.domain.model.TaxCalculation;
+import com.stocktax.domain.model.TaxSummary;
+import com.stocktax.domain.ports.MetricsPort;
+import com.stocktax.domain.ports.ResultStorePort;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.List;
 
 public class TaxCalculationService {
 
-    private static final Logger logger = LoggerFactory.getLogger(TaxCalculationService.class);
+    private static final TaxEngine REFERENCE = new TaxCalculator();
 
-    private final TaxCalculator taxCalculator;
+    private final TaxEngine taxEngine;
+    private final MetricsPort metrics;
+    private final ResultStorePort resultStore;
 
-    public TaxCalculationService(TaxCalculator taxCalculator) {
-        this.taxCalculator = taxCalculator;
+    public TaxCalculationService(TaxEngine taxEngine) {
+        this(taxEngine, MetricsPort.DISABLED);
+    }
+
+    public TaxCalculationService(TaxEngine taxEngine, MetricsPort metrics) {
+        this(taxEngine, metrics, ResultStorePort.HEAP);
+    }
+
+    public TaxCalculationService(TaxEngine taxEngine, MetricsPort metrics, ResultStorePort resultStore) {
+        this.taxEngine = taxEngine;
+        this.metrics = metrics;
+        this.resultStore = resultStore;
+    }
+
+    public TaxEngine getTaxEngine() {
+        return taxEngine;
     }
 
     public List<TaxCalculation> calculateTaxes(List<Operation> operations) {
         if (operations == null || operations.isEmpty()) {
-            logger.warn("Empty operations list provided");
+            Log.logger.warn("Empty operations list provided");
             return List.of();
         }
         try {
-            return taxCalculator.calculateTaxes(operations);
+            long start = metrics.startTimer();
+            List<TaxCalculation> results = resultStore.createResultList(operations);
+            List<TaxCalculation> taxCalculations = results == null
+                    ? taxEngine.calculateTaxes(operations)
+                    : calculateInto(operations, results);
+            if (metrics.isEnabled()) {
+                // buys and sells are counted by the input adapter that created the operations
+                metrics.recordLatency(MetricsPort.Stage.COMPUTE, start);
+                metrics.increment(MetricsPort.Counter.TAXED_SELLS, TaxCalculator.countTaxed(taxCalculations));
+            }
+            return taxCalculations;
+        } catch (Exception e) {
+            metrics.increment(MetricsPort.Counter.ERRORS);
+            throw new TaxCalculationException("Failed to calculate taxes", e);
+        }
+    }
+
+    /**
+     * Totals of the set, without materializing a result per operation
+     */
+    public TaxSummary summarize(List<Operation> operations) {
+        try {
+            long start = metrics.startTimer();
+            TaxSummary summary = taxEngine.summarize(operations);
+            if (metrics.isEnabled()) {
+                metrics.recordLatency(MetricsPort.Stage.COMPUTE, start);
+                metrics.increment(MetricsPort.Counter.TAXED_SELLS, summary.getTaxedSellCount());
+            }
+            return summary;
         } catch (Exception e) {
-            logger.error("Error calculating taxes", e);
+            metrics.increment(MetricsPort.Counter.ERRORS);
             throw new TaxCalculationException("Failed to calculate taxes", e);
         }
     }
 
+    /**
+     * Fills a result list of the result store. Only engines that stream their results
+     * keep the heap bounded; for the others the reference engine, whose results they must
+     * match, computes the set instead.
+     */
+    private List<TaxCalculation> calculateInto(List<Operation> operations, List<TaxCalculation> results) {
+        boolean replaceable = taxEngine.getCostBasis() == TaxEngine.CostBasis.WEIGHTED_AVERAGE;
+        TaxEngine engine = taxEngine.streamsResults() || !replaceable ? taxEngine : REFERENCE;
+        try {
+            engine.calculateTaxes(operations, results);
+            return results;
+        } catch (RuntimeException e) {
+            close(results, e);
+            throw e;
+        }
+    }
+
+    private static void close(List<TaxCalculation> results, RuntimeException failure) {
+        if (results instanceof Closeable) {
+            try {
+                ((Closeable) results).close();
+            } catch (IOException e) {
+                failure.addSuppressed(e);
+            }
+        }
+    }
+
+    /**
+     * A new {@link java.util.concurrent.Flow.Processor} backed by this service
+     */
+    public TaxCalculationProcessor asProcessor() {
+        return new TaxCalculationProcessor(this);
+    }
+
     public static class TaxCalculationException extends RuntimeException {
         private static final long serialVersionUID = -7084735575365355314L;
 
@@ -39,4 +124,12 @@ public class TaxCalculationService {
             super(message, cause);
         }
     }
+
+    /**
+     * Logback is configured when something is first logged, not when the service loads
+     */
+    private static final class Log {
+
+        static final Logger logger = LoggerFactory.getLogger(TaxCalculationService.class);
+    }
 }
@@ -0,0 +1,30 @@
+package com.stocktax.application.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JFR event covering calculation and output of one operation set in {@code Application.run()}
+ */
+@Name("com.stocktax.OperationSet")
+@Label("Operation Set")
+@Category({"Stock Tax Calculator", "Application"})
+@Description("Calculation and output of one operation set")
+@StackTrace(false)
+@Threshold("1 ms")
+public class OperationSetEvent extends jdk.jfr.Event {
+
+    @Label("Set Index")
+    @Description("One-based position of the set in the input")
+    public long setIndex;
+
+    @Label("Operation Count")
+    public int operationCount;
+
+    @Label("Taxed Sell Count")
+    public int taxedSellCount;
+}
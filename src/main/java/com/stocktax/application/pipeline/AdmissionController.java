@@ -0,0 +1,174 @@
+package com.stocktax.application.pipeline;
+
+import com.stocktax.domain.model.Operation;
+import com.stocktax.domain.ports.MetricsPort;
+import com.stocktax.domain.ports.SpillPort;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Bounds the memory held by parsed sets that are not written yet. Each admitted set is
+ * charged an estimate of its operations and results, and the reader blocks while the
+ * charges would exceed the budget. A set larger than the whole budget is still admitted
+ * once nothing else is in flight, so the pipeline cannot stall on it.
+ * <p>
+ * Sets above the per-set limit are either rejected or moved off the heap through a
+ * {@link SpillPort}, and charged the native memory the spilled copy holds instead of their
+ * size. A set is only spilled once it has been parsed, so spilling shortens how long it
+ * stays on the heap but does not lower the peak while it is parsed; the controller also
+ * bounds nothing the input adapter holds before handing a set over. Charges are released
+ * in admission order, matching a pipeline that writes in input order.
+ */
+public class AdmissionController {
+
+    /** What happens to a set whose estimate exceeds the per-set limit */
+    public enum OversizedSets {
+        REJECT, SPILL;
+
+        public static OversizedSets fromName(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown oversized set policy: " + name
+                        + " (expected reject or spill)", e);
+            }
+        }
+    }
+
+    /**
+     * Heap per operation: the operation with its unit cost and list slot, about 72 bytes,
+     * and its result, about 64 bytes
+     */
+    static final long BYTES_PER_OPERATION = 136;
+
+    /** Heap per set regardless of its length: the lists and their headers */
+    static final long BYTES_PER_SET = 64;
+
+    private final long budgetBytes;
+    private final long maxSetBytes;
+    private final OversizedSets oversizedSets;
+    private final SpillPort spillPort;
+    private final MetricsPort metrics;
+
+    private final ArrayDeque<Long> charges = new ArrayDeque<>();
+    private long inFlightBytes;
+    private boolean cancelled;
+
+    public AdmissionController(long budgetBytes, long maxSetBytes, OversizedSets oversizedSets,
+            SpillPort spillPort, MetricsPort metrics) {
+        if (budgetBytes <= 0 || maxSetBytes <= 0) {
+            throw new IllegalArgumentException("Memory budget and per-set limit must be positive");
+        }
+        if (oversizedSets == OversizedSets.SPILL && spillPort == SpillPort.HEAP) {
+            throw new IllegalArgumentException("Spilling oversized sets needs a spill port");
+        }
+        this.budgetBytes = budgetBytes;
+        this.maxSetBytes = maxSetBytes;
+        this.oversizedSets = oversizedSets;
+        this.spillPort = spillPort;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Admits everything without blocking
+     */
+    public static AdmissionController unbounded() {
+        return new AdmissionController(Long.MAX_VALUE, Long.MAX_VALUE, OversizedSets.REJECT, SpillPort.HEAP,
+                MetricsPort.DISABLED);
+    }
+
+    /**
+     * Blocks until the set fits the budget and returns the set to process, which is the
+     * spilled copy if the set was spilled. Throws if the set is rejected or the controller
+     * was cancelled while waiting.
+     */
+    public List<Operation> admit(List<Operation> operations) throws IOException {
+        long bytes = spillPort.isSpilled(operations) ? spillPort.spilledBytes() : estimateBytes(operations);
+        if (bytes > maxSetBytes) {
+            if (oversizedSets == OversizedSets.REJECT) {
+                throw new IOException(String.format(Locale.ROOT,
+                        "Operation set of %d operations needs about %d bytes, above the per-set limit of %d",
+                        operations.size(), bytes, maxSetBytes));
+            }
+            operations = spill(operations);
+            bytes = spillPort.spilledBytes();
+        }
+        boolean waited = false;
+        synchronized (this) {
+            while (!cancelled && inFlightBytes > 0 && inFlightBytes + bytes > budgetBytes) {
+                waited = true;
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    release(operations);
+                    throw new InterruptedIOException("Interrupted while waiting for memory to be released");
+                }
+            }
+            if (cancelled) {
+                release(operations);
+                throw new IOException("Admission cancelled");
+            }
+            inFlightBytes += bytes;
+            charges.add(bytes);
+        }
+        if (waited) {
+            metrics.increment(MetricsPort.Counter.ADMISSION_WAITS);
+        }
+        return operations;
+    }
+
+    /**
+     * Releases the charge of the oldest set still in flight
+     */
+    public synchronized void release() {
+        Long bytes = charges.poll();
+        if (bytes == null) {
+            throw new IllegalStateException("No admitted set to release");
+        }
+        inFlightBytes -= bytes;
+        notifyAll();
+    }
+
+    /**
+     * Wakes any waiting reader; from now on nothing more is admitted
+     */
+    public synchronized void cancel() {
+        cancelled = true;
+        notifyAll();
+    }
+
+    public synchronized long getInFlightBytes() {
+        return inFlightBytes;
+    }
+
+    /**
+     * Heap a set and its results take while in flight
+     */
+    static long estimateBytes(List<Operation> operations) {
+        return BYTES_PER_SET + operations.size() * BYTES_PER_OPERATION;
+    }
+
+    private List<Operation> spill(List<Operation> operations) throws IOException {
+        List<Operation> spilled;
+        try {
+            spilled = spillPort.spill(operations);
+        } catch (IOException e) {
+            throw new IOException("Operation set of " + operations.size()
+                    + " operations is above the per-set limit: " + e.getMessage(), e);
+        }
+        metrics.increment(MetricsPort.Counter.SPILLED_SETS);
+        return spilled;
+    }
+
+    private static void release(List<Operation> operations) throws IOException {
+        if (operations instanceof Closeable) {
+            ((Closeable) operations).close();
+        }
+    }
+}
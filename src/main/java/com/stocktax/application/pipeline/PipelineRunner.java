@@ -0,0 +1,256 @@
+package com.stocktax.application.pipeline;
+
+import com.stocktax.application.TaxCalculationService;
+import com.stocktax.domain.model.Operation;
+import com.stocktax.domain.model.TaxCalculation;
+import com.stocktax.domain.ports.InputPort;
+import com.stocktax.domain.ports.OutputPort;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs parsing, tax calculation and output as overlapping stages: a parser thread, a set
+ * of compute workers and the calling thread as writer.
+ * <p>
+ * Every worker has its own input and output {@link SpscRingBuffer}, so each buffer has a
+ * single producer and a single consumer. The parser deals sets to the workers round-robin
+ * and the writer collects results in the same rotation, which keeps the output in input
+ * order without any reordering buffer.
+ * <p>
+ * The parser passes every set through an {@link AdmissionController} and the writer
+ * releases it once written, so the memory held by sets in flight stays within a budget
+ * however far the parser gets ahead.
+ */
+public class PipelineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(PipelineRunner.class);
+
+    public static final int DEFAULT_BUFFER_SIZE = 1024;
+
+    private static final Object END = new Object();
+
+    private final TaxCalculationService taxCalculationService;
+    private final InputPort inputAdapter;
+    private final OutputPort outputAdapter;
+    private final int workers;
+    private final int bufferSize;
+    private final WaitStrategy waitStrategy;
+    private final AdmissionController admission;
+
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    public PipelineRunner(TaxCalculationService taxCalculationService, InputPort inputAdapter,
+            OutputPort outputAdapter, int workers, int bufferSize, WaitStrategy waitStrategy) {
+        this(taxCalculationService, inputAdapter, outputAdapter, workers, bufferSize, waitStrategy,
+                AdmissionController.unbounded());
+    }
+
+    public PipelineRunner(TaxCalculationService taxCalculationService, InputPort inputAdapter,
+            OutputPort outputAdapter, int workers, int bufferSize, WaitStrategy waitStrategy,
+            AdmissionController admission) {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("Number of workers must be positive");
+        }
+        this.taxCalculationService = taxCalculationService;
+        this.inputAdapter = inputAdapter;
+        this.outputAdapter = outputAdapter;
+        this.workers = workers;
+        this.bufferSize = bufferSize;
+        this.waitStrategy = waitStrategy;
+        this.admission = admission;
+    }
+
+    public void run() throws IOException {
+        List<SpscRingBuffer<Object>> pending = new ArrayList<>(workers);
+        List<SpscRingBuffer<Object>> completed = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            pending.add(new SpscRingBuffer<>(bufferSize));
+            completed.add(new SpscRingBuffer<>(bufferSize));
+        }
+
+        List<Thread> threads = new ArrayList<>(workers + 1);
+        threads.add(startThread("pipeline-parser", () -> parse(pending)));
+        for (int i = 0; i < workers; i++) {
+            SpscRingBuffer<Object> in = pending.get(i);
+            SpscRingBuffer<Object> out = completed.get(i);
+            threads.add(startThread("pipeline-compute-" + (i + 1), () -> compute(in, out)));
+        }
+
+        try {
+            write(completed);
+        } catch (PipelineAbortedException e) {
+            throw stageFailure();
+        } catch (IOException | RuntimeException e) {
+            failure.compareAndSet(null, e);
+            throw e;
+        } finally {
+            // a parser waiting for memory would otherwise never see the failure
+            admission.cancel();
+            joinAll(threads);
+        }
+    }
+
+    private void parse(List<SpscRingBuffer<Object>> pending) {
+        Iterator<List<Operation>> operationSets = null;
+        try {
+            operationSets = inputAdapter.operationSets();
+            long index = 0;
+            while (operationSets.hasNext()) {
+                List<Operation> operations = operationSets.next();
+                put(pending.get((int) (index++ % workers)), admit(operations, index));
+            }
+            for (SpscRingBuffer<Object> buffer : pending) {
+                put(buffer, END);
+            }
+        } catch (IOException e) {
+            failure.compareAndSet(null, e);
+        } catch (UncheckedIOException e) {
+            failure.compareAndSet(null, e.getCause());
+        } finally {
+            // stopping early must not leave a parallel parser's threads and file open
+            close(operationSets);
+        }
+    }
+
+    private List<Operation> admit(List<Operation> operations, long index) throws IOException {
+        try {
+            return admission.admit(operations);
+        } catch (IOException e) {
+            if (failure.get() != null) {
+                throw new PipelineAbortedException();
+            }
+            throw new IOException("Failed to process operation set " + index + ": " + e.getMessage(), e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void compute(SpscRingBuffer<Object> in, SpscRingBuffer<Object> out) {
+        Object item;
+        while ((item = take(in)) != END) {
+            Object result;
+            try {
+                result = taxCalculationService.calculateTaxes((List<Operation>) item);
+            } catch (RuntimeException e) {
+                // the writer reports it with the set index
+                result = e;
+            } finally {
+                close(item);
+            }
+            put(out, result);
+        }
+        put(out, END);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void write(List<SpscRingBuffer<Object>> completed) throws IOException {
+        long index = 0;
+        Object item;
+        while ((item = take(completed.get((int) (index % workers)))) != END) {
+            index++;
+            if (item instanceof RuntimeException) {
+                logger.error("Error processing operation set {}", index, item);
+                throw new IOException("Failed to process operation set " + index, (RuntimeException) item);
+            }
+            outputAdapter.writeTaxCalculations((List<TaxCalculation>) item);
+            close(item);
+            admission.release();
+        }
+        if (index == 0) {
+            logger.warn("No operations provided in input");
+        }
+    }
+
+    /**
+     * Blocks per the wait strategy; once any stage has failed every other stage stops
+     * at its next wait instead of waiting for a peer that is gone
+     */
+    private void put(SpscRingBuffer<Object> buffer, Object item) {
+        int attempt = 0;
+        while (!buffer.offer(item)) {
+            checkNotFailed();
+            waitStrategy.idle(attempt++);
+        }
+    }
+
+    private Object take(SpscRingBuffer<Object> buffer) {
+        int attempt = 0;
+        Object item;
+        while ((item = buffer.poll()) == null) {
+            checkNotFailed();
+            waitStrategy.idle(attempt++);
+        }
+        return item;
+    }
+
+    private void checkNotFailed() {
+        if (failure.get() != null) {
+            throw new PipelineAbortedException();
+        }
+    }
+
+    private IOException stageFailure() {
+        Throwable cause = failure.get();
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        return new IOException("Pipeline failed: " + cause.getMessage(), cause);
+    }
+
+    private Thread startThread(String name, Runnable stage) {
+        Thread thread = new Thread(() -> {
+            try {
+                stage.run();
+            } catch (PipelineAbortedException e) {
+                logger.debug("{} stopped after a failure in another stage", Thread.currentThread().getName());
+            } catch (RuntimeException | Error e) {
+                failure.compareAndSet(null, e);
+                logger.error("Pipeline stage {} failed", Thread.currentThread().getName(), e);
+            }
+        }, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Off-heap sets and results hold native memory and a temporary file, and input
+     * iterators may hold parsing threads
+     */
+    private static void close(Object resource) {
+        if (resource instanceof Closeable) {
+            try {
+                ((Closeable) resource).close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static void joinAll(List<Thread> threads) throws IOException {
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while stopping the pipeline", e);
+            }
+        }
+    }
+
+    private static final class PipelineAbortedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        PipelineAbortedException() {
+            super(null, null, false, false);
+        }
+    }
+}
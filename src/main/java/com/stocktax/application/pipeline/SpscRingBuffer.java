@@ -0,0 +1,81 @@
+package com.stocktax.application.pipeline;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded lock-free queue for exactly one producer thread and one consumer thread.
+ * The slot array is allocated once; head and tail only ever grow and are published
+ * with ordered writes, so neither side takes a lock or allocates per element.
+ */
+public final class SpscRingBuffer<E> {
+
+    private final Object[] slots;
+    private final int mask;
+
+    // consumer position; written by the consumer only
+    private final AtomicLong head = new AtomicLong();
+    // producer position; written by the producer only
+    private final AtomicLong tail = new AtomicLong();
+
+    // each side caches the other side's position to avoid reading the shared counter per element
+    private long cachedHead;
+    private long cachedTail;
+
+    public SpscRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new Object[size];
+        this.mask = size - 1;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * Producer side; returns false when the buffer is full
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException("Ring buffer elements must not be null");
+        }
+        long currentTail = tail.get();
+        if (currentTail - cachedHead >= slots.length) {
+            cachedHead = head.get();
+            if (currentTail - cachedHead >= slots.length) {
+                return false;
+            }
+        }
+        slots[(int) (currentTail & mask)] = element;
+        tail.lazySet(currentTail + 1);
+        return true;
+    }
+
+    /**
+     * Consumer side; returns null when the buffer is empty
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long currentHead = head.get();
+        if (currentHead >= cachedTail) {
+            cachedTail = tail.get();
+            if (currentHead >= cachedTail) {
+                return null;
+            }
+        }
+        int index = (int) (currentHead & mask);
+        E element = (E) slots[index];
+        slots[index] = null;
+        head.lazySet(currentHead + 1);
+        return element;
+    }
+
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+}
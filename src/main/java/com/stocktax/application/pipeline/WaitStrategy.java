@@ -0,0 +1,60 @@
+package com.stocktax.application.pipeline;
+
+import java.util.Locale;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * What a pipeline stage does while its ring buffer is empty (consumer) or full (producer).
+ * SPIN has the lowest latency but burns a core per waiting stage, PARK frees the core
+ * at the cost of wake-up latency, YIELD sits in between.
+ */
+public enum WaitStrategy {
+
+    SPIN {
+        @Override
+        void idle(int attempt) {
+            Thread.onSpinWait();
+        }
+    },
+
+    YIELD {
+        @Override
+        void idle(int attempt) {
+            if (attempt < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    },
+
+    PARK {
+        @Override
+        void idle(int attempt) {
+            if (attempt < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else if (attempt < SPIN_TRIES + YIELD_TRIES) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+    };
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long PARK_NANOS = 50_000L;
+
+    /**
+     * Called once per failed attempt; {@code attempt} counts from zero since the last success
+     */
+    abstract void idle(int attempt);
+
+    public static WaitStrategy fromName(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown wait strategy: " + name + " (expected spin, yield or park)", e);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.stocktax.application.reactive;
+
+import com.stocktax.domain.model.Operation;
+import com.stocktax.domain.ports.InputPort;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the operation sets of an {@link InputPort}, parsing the next set only when
+ * there is outstanding demand for it. Emission runs on the given executor. The input can
+ * only be read once, so the publisher accepts a single subscriber.
+ */
+public class InputPortPublisher implements Flow.Publisher<List<Operation>> {
+
+    private final InputPort inputAdapter;
+    private final Executor executor;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    public InputPortPublisher(InputPort inputAdapter, Executor executor) {
+        this.inputAdapter = inputAdapter;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super List<Operation>> subscriber) {
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new TaxCalculationProcessor.NoopSubscription());
+            subscriber.onError(new IllegalStateException("InputPortPublisher supports a single subscriber"));
+            return;
+        }
+        subscriber.onSubscribe(new InputSubscription(subscriber));
+    }
+
+    private final class InputSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super List<Operation>> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        // serializes drain loops: only the caller that moves it from zero schedules one
+        private final AtomicInteger pendingDrains = new AtomicInteger();
+
+        private volatile boolean cancelled;
+        private boolean done;
+        private Iterator<List<Operation>> operationSets;
+
+        InputSubscription(Flow.Subscriber<? super List<Operation>> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancel();
+                subscriber.onError(new IllegalArgumentException("Demand must be positive, got " + n));
+                return;
+            }
+            requested.accumulateAndGet(n, TaxCalculationProcessor::addCapped);
+            if (pendingDrains.getAndIncrement() == 0) {
+                executor.execute(this::drain);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                long demand = requested.get();
+                long emitted = 0;
+                while (emitted != demand && !cancelled && !done) {
+                    List<Operation> next;
+                    try {
+                        if (operationSets == null) {
+                            operationSets = inputAdapter.operationSets();
+                        }
+                        if (!operationSets.hasNext()) {
+                            done = true;
+                            closeInput();
+                            subscriber.onComplete();
+                            return;
+                        }
+                        next = operationSets.next();
+                    } catch (UncheckedIOException e) {
+                        fail(e.getCause());
+                        return;
+                    } catch (Exception e) {
+                        fail(e);
+                        return;
+                    }
+                    subscriber.onNext(next);
+                    emitted++;
+                }
+                if (emitted > 0 && demand != Long.MAX_VALUE) {
+                    requested.addAndGet(-emitted);
+                }
+                if (cancelled) {
+                    closeInput();
+                }
+                missed = pendingDrains.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void fail(Throwable error) {
+            done = true;
+            closeInput();
+            subscriber.onError(error);
+        }
+
+        /**
+         * Runs inside the drain loop, which alone touches the iterator
+         */
+        private void closeInput() {
+            if (operationSets instanceof Closeable) {
+                try {
+                    ((Closeable) operationSets).close();
+                } catch (IOException e) {
+                    // the stream ends with its own outcome either way
+                }
+            }
+            operationSets = null;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.stocktax.application.reactive;
+
+import com.stocktax.domain.model.TaxCalculation;
+import com.stocktax.domain.ports.OutputPort;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * Writes results to an {@link OutputPort}, keeping at most {@code window} results
+ * requested ahead of what has been written
+ */
+public class OutputPortSubscriber implements Flow.Subscriber<List<TaxCalculation>> {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutputPortSubscriber.class);
+
+    public static final int DEFAULT_WINDOW = 16;
+
+    private final OutputPort outputAdapter;
+    private final int window;
+    private final CompletableFuture<Long> completion = new CompletableFuture<>();
+
+    private Flow.Subscription subscription;
+    private long written;
+    private int sinceLastRequest;
+
+    public OutputPortSubscriber(OutputPort outputAdapter, int window) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("Window must be positive");
+        }
+        this.outputAdapter = outputAdapter;
+        this.window = window;
+    }
+
+    /**
+     * Completes with the number of written sets once the stream ends
+     */
+    public CompletableFuture<Long> getCompletion() {
+        return completion;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(window);
+    }
+
+    @Override
+    public void onNext(List<TaxCalculation> taxCalculations) {
+        if (completion.isDone()) {
+            return;
+        }
+        try {
+            outputAdapter.writeTaxCalculations(taxCalculations);
+        } catch (IOException e) {
+            subscription.cancel();
+            completion.completeExceptionally(e);
+            return;
+        }
+        written++;
+        // replenish in half-window batches to keep request() calls off the per-set path
+        if (++sinceLastRequest >= Math.max(1, window / 2)) {
+            subscription.request(sinceLastRequest);
+            sinceLastRequest = 0;
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        completion.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        if (written == 0) {
+            logger.warn("No operations provided in input");
+        }
+        completion.complete(written);
+    }
+}
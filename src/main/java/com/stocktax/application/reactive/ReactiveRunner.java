@@ -0,0 +1,59 @@
+package com.stocktax.application.reactive;
+
+import com.stocktax.application.TaxCalculationService;
+import com.stocktax.domain.ports.InputPort;
+import com.stocktax.domain.ports.OutputPort;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Connects input, calculation and output as a demand-driven {@link java.util.concurrent.Flow}
+ * and waits for it to finish
+ */
+public class ReactiveRunner {
+
+    private final TaxCalculationService taxCalculationService;
+    private final InputPort inputAdapter;
+    private final OutputPort outputAdapter;
+    private final int window;
+
+    public ReactiveRunner(TaxCalculationService taxCalculationService, InputPort inputAdapter,
+            OutputPort outputAdapter, int window) {
+        this.taxCalculationService = taxCalculationService;
+        this.inputAdapter = inputAdapter;
+        this.outputAdapter = outputAdapter;
+        this.window = window;
+    }
+
+    /**
+     * Returns the number of written sets
+     */
+    public long run() throws IOException {
+        ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reactive-input");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            TaxCalculationProcessor processor = taxCalculationService.asProcessor();
+            OutputPortSubscriber subscriber = new OutputPortSubscriber(outputAdapter, window);
+            processor.subscribe(subscriber);
+            new InputPortPublisher(inputAdapter, executor).subscribe(processor);
+            return subscriber.getCompletion().get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the reactive run", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
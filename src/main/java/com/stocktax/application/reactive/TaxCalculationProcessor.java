@@ -0,0 +1,185 @@
+package com.stocktax.application.reactive;
+
+import com.stocktax.application.TaxCalculationService;
+import com.stocktax.domain.model.Operation;
+import com.stocktax.domain.model.TaxCalculation;
+
+import java.util.List;
+import java.util.concurrent.Flow;
+
+/**
+ * {@link TaxCalculationService} as a {@link Flow.Processor} from operation sets to their taxes.
+ * <p>
+ * Every set yields exactly one result, so downstream demand is forwarded upstream one to
+ * one and the processor never buffers: a slow subscriber throttles the publisher instead
+ * of letting pending results pile up. Supports a single subscriber.
+ */
+public class TaxCalculationProcessor implements Flow.Processor<List<Operation>, List<TaxCalculation>> {
+
+    private final TaxCalculationService taxCalculationService;
+
+    private Flow.Subscription upstream;
+    private Flow.Subscriber<? super List<TaxCalculation>> downstream;
+    // demand requested before the upstream subscription arrived
+    private long deferredDemand;
+    private boolean cancelled;
+    // terminal signal received before anyone subscribed downstream
+    private Throwable deferredError;
+    private boolean deferredComplete;
+
+    private long index;
+    private volatile boolean done;
+
+    public TaxCalculationProcessor(TaxCalculationService taxCalculationService) {
+        this.taxCalculationService = taxCalculationService;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super List<TaxCalculation>> subscriber) {
+        synchronized (this) {
+            if (downstream != null) {
+                subscriber.onSubscribe(new NoopSubscription());
+                subscriber.onError(new IllegalStateException("TaxCalculationProcessor supports a single subscriber"));
+                return;
+            }
+            downstream = subscriber;
+        }
+        subscriber.onSubscribe(new DownstreamSubscription());
+
+        Throwable error;
+        boolean complete;
+        synchronized (this) {
+            error = deferredError;
+            complete = deferredComplete;
+        }
+        if (error != null) {
+            subscriber.onError(error);
+        } else if (complete) {
+            subscriber.onComplete();
+        }
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        long demand;
+        synchronized (this) {
+            if (upstream != null || cancelled) {
+                subscription.cancel();
+                return;
+            }
+            upstream = subscription;
+            demand = deferredDemand;
+            deferredDemand = 0;
+        }
+        if (demand > 0) {
+            subscription.request(demand);
+        }
+    }
+
+    @Override
+    public void onNext(List<Operation> operations) {
+        if (done) {
+            return;
+        }
+        index++;
+        List<TaxCalculation> taxCalculations;
+        try {
+            taxCalculations = taxCalculationService.calculateTaxes(operations);
+        } catch (RuntimeException e) {
+            upstream.cancel();
+            signalError(new TaxCalculationService.TaxCalculationException(
+                    "Failed to process operation set " + index, e));
+            return;
+        }
+        downstream.onNext(taxCalculations);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        signalError(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        Flow.Subscriber<? super List<TaxCalculation>> subscriber;
+        synchronized (this) {
+            if (done) {
+                return;
+            }
+            done = true;
+            subscriber = downstream;
+            if (subscriber == null) {
+                deferredComplete = true;
+                return;
+            }
+        }
+        subscriber.onComplete();
+    }
+
+    private void signalError(Throwable throwable) {
+        Flow.Subscriber<? super List<TaxCalculation>> subscriber;
+        synchronized (this) {
+            if (done) {
+                return;
+            }
+            done = true;
+            subscriber = downstream;
+            if (subscriber == null) {
+                deferredError = throwable;
+                return;
+            }
+        }
+        subscriber.onError(throwable);
+    }
+
+    private final class DownstreamSubscription implements Flow.Subscription {
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                // cancelling first would mark the processor done and swallow the error (rule 3.9)
+                signalError(new IllegalArgumentException("Demand must be positive, got " + n));
+                cancel();
+                return;
+            }
+            Flow.Subscription subscription;
+            synchronized (TaxCalculationProcessor.this) {
+                subscription = upstream;
+                if (subscription == null) {
+                    deferredDemand = addCapped(deferredDemand, n);
+                    return;
+                }
+            }
+            subscription.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            Flow.Subscription subscription;
+            synchronized (TaxCalculationProcessor.this) {
+                cancelled = true;
+                done = true;
+                subscription = upstream;
+            }
+            if (subscription != null) {
+                subscription.cancel();
+            }
+        }
+    }
+
+    static long addCapped(long current, long n) {
+        long sum = current + n;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    static final class NoopSubscription implements Flow.Subscription {
+
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    }
+}
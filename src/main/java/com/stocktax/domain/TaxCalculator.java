@@ -4,18 +4,44 @@ import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.stocktax.domain.jfr.TaxCalculationEvent;
 import com.stocktax.domain.model.Operation;
 import com.stocktax.domain.model.StockPosition;
 import com.stocktax.domain.model.TaxCalculation;
+import com.stocktax.domain.model.TaxSummary;
 
 
-public class TaxCalculator {
+/**
+ * Reference engine; every other {@link TaxEngine} is measured against it
+ */
+public class TaxCalculator implements TaxEngine {
+
+    public static final String NAME = "reference";
 
     private static final BigDecimal TAX_RATE = new BigDecimal("0.20");
     private static final BigDecimal TAX_THRESHOLD = new BigDecimal("20000.00");
 
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
     public List<TaxCalculation> calculateTaxes(List<Operation> operations) {
-        List<TaxCalculation> results = new ArrayList<>();
+        List<TaxCalculation> results = new ArrayList<>(operations.size());
+        calculateTaxes(operations, results);
+        return results;
+    }
+
+    @Override
+    public boolean streamsResults() {
+        return true;
+    }
+
+    @Override
+    public void calculateTaxes(List<Operation> operations, List<TaxCalculation> results) {
+        TaxCalculationEvent event = new TaxCalculationEvent();
+        event.begin();
         StockPosition position = new StockPosition();
 
         for (int i = 0; i < operations.size(); i++) {
@@ -23,10 +49,53 @@ public class TaxCalculator {
             TaxCalculation tax = calculateTaxForOperation(operation, position);
             results.add(tax);
         }
-        return results;
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.engine = NAME;
+            event.operationCount = operations.size();
+            event.taxedSellCount = countTaxed(results);
+            event.commit();
+        }
+    }
+
+    /**
+     * Single pass over the set that only keeps running totals
+     */
+    @Override
+    public TaxSummary summarize(List<Operation> operations) {
+        StockPosition position = new StockPosition();
+        BigDecimal totalTax = BigDecimal.ZERO;
+        int taxed = 0;
+        for (int i = 0; i < operations.size(); i++) {
+            BigDecimal tax = taxFor(operations.get(i), position);
+            if (tax.signum() > 0) {
+                totalTax = totalTax.add(tax);
+                taxed++;
+            }
+        }
+        return new TaxSummary(operations.size(), taxed, totalTax, position.snapshot());
+    }
+
+    public static int countTaxed(List<TaxCalculation> taxCalculations) {
+        int taxed = 0;
+        for (TaxCalculation taxCalculation : taxCalculations) {
+            if (taxCalculation.getTax().signum() > 0) {
+                taxed++;
+            }
+        }
+        return taxed;
+    }
+
+    /**
+     * Tax of one operation given the position built by the operations before it in the
+     * same set; lets a caller tax a set one operation at a time
+     */
+    public TaxCalculation calculateTaxForOperation(Operation operation, StockPosition position) {
+        return new TaxCalculation(taxFor(operation, position));
     }
 
-    private TaxCalculation calculateTaxForOperation(Operation operation, StockPosition position) {
+    private BigDecimal taxFor(Operation operation, StockPosition position) {
         if (operation.isBuy()) {
             return handleBuyOperation(operation, position);
         } else {
@@ -34,29 +103,37 @@ public class TaxCalculator {
         }
     }
 
-    private TaxCalculation handleBuyOperation(Operation operation, StockPosition position) {
+    private BigDecimal handleBuyOperation(Operation operation, StockPosition position) {
         position.addStocks(operation.getQuantity(), operation.getUnitCost());
-        return new TaxCalculation(BigDecimal.ZERO);
+        return BigDecimal.ZERO;
     }
 
-    private TaxCalculation handleSellOperation(Operation operation, StockPosition position) {
+    private BigDecimal handleSellOperation(Operation operation, StockPosition position) {
         BigDecimal profitOrLoss = position.sellStocks(operation.getQuantity(), operation.getUnitCost());
 
-        BigDecimal operationAmount = operation.getTotalAmount();
-        if (operationAmount.compareTo(TAX_THRESHOLD) <= 0) {
+        if (!exceedsThreshold(operation)) {
             position.processLoss(profitOrLoss);
-            return new TaxCalculation(BigDecimal.ZERO);
+            return BigDecimal.ZERO;
         }
 
         if (profitOrLoss.compareTo(BigDecimal.ZERO) <= 0) {
             position.processLoss(profitOrLoss);
-            return new TaxCalculation(BigDecimal.ZERO);
+            return BigDecimal.ZERO;
         }
 
         // we do have a profit -> calculate tax
         BigDecimal taxableProfit = position.calculateTaxableProfit(profitOrLoss);
-        BigDecimal tax = taxableProfit.multiply(TAX_RATE);
+        return taxOn(taxableProfit);
+    }
+
+    /**
+     * Whether a sale is large enough to be taxed at all; smaller sales only carry losses
+     */
+    public static boolean exceedsThreshold(Operation sale) {
+        return sale.getTotalAmount().compareTo(TAX_THRESHOLD) > 0;
+    }
 
-        return new TaxCalculation(tax);
+    public static BigDecimal taxOn(BigDecimal taxableProfit) {
+        return taxableProfit.multiply(TAX_RATE);
     }
 }
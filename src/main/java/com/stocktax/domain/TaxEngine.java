@@ -0,0 +1,78 @@
+package com.stocktax.domain;
+
+import java.util.List;
+
+import com.stocktax.domain.model.Operation;
+import com.stocktax.domain.model.TaxCalculation;
+import com.stocktax.domain.model.TaxSummary;
+
+/**
+ * Calculates the taxes of one operation set. Implementations are discovered through
+ * {@link java.util.ServiceLoader} and must produce exactly the results of the reference
+ * {@link TaxCalculator}, including the scale of every tax, unless they declare another
+ * {@link CostBasis}.
+ */
+public interface TaxEngine {
+
+    /**
+     * How the cost of the stocks sold is determined
+     */
+    enum CostBasis {
+        WEIGHTED_AVERAGE, FIFO
+    }
+
+    /**
+     * Name used to select the engine, e.g. with {@code --engine}
+     */
+    String getName();
+
+    List<TaxCalculation> calculateTaxes(List<Operation> operations);
+
+    /**
+     * Appends the taxes to {@code results} instead of returning a new list, so the caller
+     * can pass an off-heap list for sets too large for the heap. By default the results
+     * are built on the heap first; see {@link #streamsResults()}.
+     */
+    default void calculateTaxes(List<Operation> operations, List<TaxCalculation> results) {
+        results.addAll(calculateTaxes(operations));
+    }
+
+    /**
+     * Whether {@link #calculateTaxes(List, List)} appends each tax as it is computed,
+     * without holding the set's results on the heap
+     */
+    default boolean streamsResults() {
+        return false;
+    }
+
+    /**
+     * Totals of the set without a result per operation. The final position is part of
+     * the summary, so engines without one of their own use the reference rules.
+     */
+    default TaxSummary summarize(List<Operation> operations) {
+        return new TaxCalculator().summarize(operations);
+    }
+
+    /**
+     * Whether this engine handles the set efficiently; the auto engine only picks engines
+     * that support a set. Calling {@link #calculateTaxes} for other sets is still correct.
+     */
+    default boolean supports(List<Operation> operations) {
+        return true;
+    }
+
+    /**
+     * The reference's weighted average unless overridden; the auto engine only picks
+     * engines on that basis
+     */
+    default CostBasis getCostBasis() {
+        return CostBasis.WEIGHTED_AVERAGE;
+    }
+
+    /**
+     * Engines with a higher priority are preferred by the auto engine
+     */
+    default int getPriority() {
+        return 0;
+    }
+}
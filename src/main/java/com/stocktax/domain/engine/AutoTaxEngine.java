@@ -0,0 +1,78 @@
+package com.stocktax.domain.engine;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import com.stocktax.domain.TaxEngine;
+import com.stocktax.domain.model.Operation;
+import com.stocktax.domain.model.TaxCalculation;
+
+/**
+ * Picks, per set, the highest-priority engine that supports it. The last engine in
+ * priority order must support every set, which the reference engine does. Engines on
+ * another cost basis than the reference's give different results and are left out.
+ */
+public class AutoTaxEngine implements TaxEngine {
+
+    public static final String NAME = "auto";
+
+    private final List<TaxEngine> engines;
+
+    public AutoTaxEngine(List<TaxEngine> engines) {
+        List<TaxEngine> byPriority = new ArrayList<>(engines.size());
+        for (TaxEngine engine : engines) {
+            if (engine.getCostBasis() == CostBasis.WEIGHTED_AVERAGE) {
+                byPriority.add(engine);
+            }
+        }
+        if (byPriority.isEmpty()) {
+            throw new IllegalArgumentException("At least one weighted-average engine is required");
+        }
+        byPriority.sort(Comparator.comparingInt(TaxEngine::getPriority).reversed());
+        this.engines = List.copyOf(byPriority);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public List<TaxCalculation> calculateTaxes(List<Operation> operations) {
+        return select(operations).calculateTaxes(operations);
+    }
+
+    @Override
+    public void calculateTaxes(List<Operation> operations, List<TaxCalculation> results) {
+        select(operations).calculateTaxes(operations, results);
+    }
+
+    /**
+     * Only when every engine it may pick does
+     */
+    @Override
+    public boolean streamsResults() {
+        for (TaxEngine engine : engines) {
+            if (!engine.streamsResults()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public TaxEngine select(List<Operation> operations) {
+        int last = engines.size() - 1;
+        for (int i = 0; i < last; i++) {
+            TaxEngine engine = engines.get(i);
+            if (engine.supports(operations)) {
+                return engine;
+            }
+        }
+        return engines.get(last);
+    }
+
+    public List<TaxEngine> getEngines() {
+        return engines;
+    }
+}
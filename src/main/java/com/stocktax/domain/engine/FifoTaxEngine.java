@@ -0,0 +1,108 @@
+package com.stocktax.domain.engine;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.stocktax.domain.TaxCalculator;
+import com.stocktax.domain.TaxEngine;
+import com.stocktax.domain.jfr.TaxCalculationEvent;
+import com.stocktax.domain.model.Operation;
+import com.stocktax.domain.model.PositionSnapshot;
+import com.stocktax.domain.model.StockPosition;
+import com.stocktax.domain.model.TaxCalculation;
+import com.stocktax.domain.model.TaxSummary;
+
+/**
+ * First-in, first-out cost basis: every buy opens a lot, and a sale is matched against the
+ * oldest open lots, splitting the last one it touches. The profit is the sale amount less
+ * the cost of the lots consumed; the threshold, loss carry-forward and tax rate are those
+ * of the reference. Results differ from the weighted-average engines by design, so the
+ * auto engine never picks this one.
+ */
+public class FifoTaxEngine implements TaxEngine {
+
+    public static final String NAME = "fifo";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public CostBasis getCostBasis() {
+        return CostBasis.FIFO;
+    }
+
+    @Override
+    public List<TaxCalculation> calculateTaxes(List<Operation> operations) {
+        List<TaxCalculation> results = new ArrayList<>(operations.size());
+        calculateTaxes(operations, results);
+        return results;
+    }
+
+    @Override
+    public boolean streamsResults() {
+        return true;
+    }
+
+    @Override
+    public void calculateTaxes(List<Operation> operations, List<TaxCalculation> results) {
+        TaxCalculationEvent event = new TaxCalculationEvent();
+        event.begin();
+        LotQueue lots = new LotQueue();
+        // only its accumulated losses are used
+        StockPosition losses = new StockPosition();
+        for (int i = 0; i < operations.size(); i++) {
+            results.add(new TaxCalculation(taxFor(operations.get(i), lots, losses)));
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.engine = NAME;
+            event.operationCount = operations.size();
+            event.taxedSellCount = TaxCalculator.countTaxed(results);
+            event.commit();
+        }
+    }
+
+    /**
+     * The final position holds the open quantity and its average cost over the open lots
+     */
+    @Override
+    public TaxSummary summarize(List<Operation> operations) {
+        LotQueue lots = new LotQueue();
+        StockPosition losses = new StockPosition();
+        BigDecimal totalTax = BigDecimal.ZERO;
+        int taxed = 0;
+        for (int i = 0; i < operations.size(); i++) {
+            BigDecimal tax = taxFor(operations.get(i), lots, losses);
+            if (tax.signum() > 0) {
+                totalTax = totalTax.add(tax);
+                taxed++;
+            }
+        }
+        PositionSnapshot finalPosition = PositionSnapshot.of(Math.toIntExact(lots.getHeldQuantity()),
+                lots.averagePrice(), losses.getAccumulatedLosses());
+        return new TaxSummary(operations.size(), taxed, totalTax, finalPosition);
+    }
+
+    private static BigDecimal taxFor(Operation operation, LotQueue lots, StockPosition losses) {
+        int quantity = operation.getQuantity();
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity must not be negative");
+        }
+        if (operation.isBuy()) {
+            if (quantity > 0) {
+                lots.add(quantity, operation.getUnitCost());
+            }
+            return BigDecimal.ZERO;
+        }
+
+        BigDecimal profitOrLoss = operation.getTotalAmount().subtract(lots.consume(quantity));
+        if (!TaxCalculator.exceedsThreshold(operation) || profitOrLoss.signum() <= 0) {
+            losses.processLoss(profitOrLoss);
+            return BigDecimal.ZERO;
+        }
+        return TaxCalculator.taxOn(losses.calculateTaxableProfit(profitOrLoss));
+    }
+}
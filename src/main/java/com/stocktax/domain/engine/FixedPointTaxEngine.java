@@ -0,0 +1,203 @@
+package com.stocktax.domain.engine;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.stocktax.domain.TaxCalculator;
+import com.stocktax.domain.TaxEngine;
+import com.stocktax.domain.jfr.TaxCalculationEvent;
+import com.stocktax.domain.model.Operation;
+import com.stocktax.domain.model.TaxCalculation;
+
+/**
+ * Applies the reference rules on scaled longs instead of {@link BigDecimal}. Every value is
+ * kept as an unscaled long plus the scale {@code BigDecimal} arithmetic would give it, so
+ * results are identical down to the scale. Operations are decoded in chunks of
+ * {@link OperationBatch}, whose branch-free pre-pass settles amounts and threshold checks,
+ * leaving only the position recurrence to the scalar loop. Sets with values out of range,
+ * or whose arithmetic would overflow, are handed to the reference engine.
+ */
+public class FixedPointTaxEngine implements TaxEngine {
+
+    public static final String NAME = "fixed-point";
+
+    // 0.20
+    private static final long TAX_RATE = 20L;
+    private static final int TAX_RATE_SCALE = 2;
+    private static final int AVERAGE_SCALE = 2;
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1L;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10L;
+        }
+    }
+
+    private final TaxEngine fallback;
+
+    public FixedPointTaxEngine() {
+        this(new TaxCalculator());
+    }
+
+    public FixedPointTaxEngine(TaxEngine fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int getPriority() {
+        return 10;
+    }
+
+    @Override
+    public boolean supports(List<Operation> operations) {
+        for (int i = 0; i < operations.size(); i++) {
+            if (!inRange(operations.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public List<TaxCalculation> calculateTaxes(List<Operation> operations) {
+        TaxCalculationEvent event = new TaxCalculationEvent();
+        event.begin();
+        List<TaxCalculation> results;
+        try {
+            results = calculate(operations);
+        } catch (ArithmeticException outOfRange) {
+            return fallback.calculateTaxes(operations);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.engine = NAME;
+            event.operationCount = operations.size();
+            event.taxedSellCount = TaxCalculator.countTaxed(results);
+            event.commit();
+        }
+        return results;
+    }
+
+    /**
+     * Throws {@link ArithmeticException} for anything it cannot reproduce exactly
+     */
+    private static List<TaxCalculation> calculate(List<Operation> operations) {
+        List<TaxCalculation> results = new ArrayList<>(operations.size());
+        OperationBatch batch = new OperationBatch(Math.min(operations.size(), OperationBatch.CAPACITY));
+        int held = 0;
+        long average = 0;
+        int averageScale = 0;
+        long losses = 0;
+        int lossesScale = 0;
+
+        for (int from = 0; from < operations.size(); from += batch.capacity()) {
+            batch.load(operations, from);
+            for (int i = 0; i < batch.size(); i++) {
+                long unitCost = batch.unitCosts[i];
+                int unitCostScale = batch.scales[i];
+                int quantity = batch.quantities[i];
+                long amount = batch.amounts[i];
+
+                if (batch.buys[i]) {
+                    if (held == 0) {
+                        average = unitCost;
+                        averageScale = unitCostScale;
+                    } else {
+                        int totalScale = Math.max(averageScale, unitCostScale);
+                        long total = Math.addExact(
+                                rescale(Math.multiplyExact(average, held), averageScale, totalScale),
+                                rescale(amount, unitCostScale, totalScale));
+                        average = divideHalfUp(total, totalScale, Math.addExact(held, quantity));
+                        averageScale = AVERAGE_SCALE;
+                    }
+                    held = Math.addExact(held, quantity);
+                    results.add(new TaxCalculation(BigDecimal.ZERO));
+                    continue;
+                }
+
+                if (quantity > held) {
+                    throw new IllegalArgumentException("Cannot sell more stocks than available");
+                }
+                int profitScale = Math.max(unitCostScale, averageScale);
+                long profit = Math.subtractExact(rescale(amount, unitCostScale, profitScale),
+                        rescale(Math.multiplyExact(average, quantity), averageScale, profitScale));
+                held -= quantity;
+
+                if (!batch.aboveThreshold[i] || profit <= 0) {
+                    if (profit < 0) {
+                        losses = addAligned(losses, lossesScale, Math.negateExact(profit), profitScale);
+                        lossesScale = Math.max(lossesScale, profitScale);
+                    }
+                    results.add(new TaxCalculation(BigDecimal.ZERO));
+                    continue;
+                }
+
+                long taxable;
+                int taxableScale;
+                if (losses == 0) {
+                    taxable = profit;
+                    taxableScale = profitScale;
+                } else {
+                    int scale = Math.max(profitScale, lossesScale);
+                    long alignedProfit = rescale(profit, profitScale, scale);
+                    long alignedLosses = rescale(losses, lossesScale, scale);
+                    if (alignedProfit >= alignedLosses) {
+                        taxable = alignedProfit - alignedLosses;
+                        taxableScale = scale;
+                        losses = 0;
+                        lossesScale = 0;
+                    } else {
+                        losses = alignedLosses - alignedProfit;
+                        lossesScale = scale;
+                        taxable = 0;
+                        taxableScale = 0;
+                    }
+                }
+                results.add(new TaxCalculation(BigDecimal.valueOf(Math.multiplyExact(taxable, TAX_RATE),
+                        taxableScale + TAX_RATE_SCALE)));
+            }
+        }
+        return results;
+    }
+
+    private static boolean inRange(Operation operation) {
+        return OperationBatch.inRange(operation.getUnitCost()) && operation.getUnitCost().signum() > 0
+                && operation.getQuantity() > 0;
+    }
+
+    private static long addAligned(long a, int aScale, long b, int bScale) {
+        int scale = Math.max(aScale, bScale);
+        return Math.addExact(rescale(a, aScale, scale), rescale(b, bScale, scale));
+    }
+
+    private static long rescale(long unscaled, int from, int to) {
+        return from == to ? unscaled : Math.multiplyExact(unscaled, POWERS_OF_TEN[to - from]);
+    }
+
+    /**
+     * {@code total / quantity} rounded HALF_UP to two decimals, as the reference's
+     * {@code divide(quantity, 2, HALF_UP)}; both operands are positive
+     */
+    private static long divideHalfUp(long total, int totalScale, int quantity) {
+        long dividend;
+        long divisor;
+        if (totalScale <= AVERAGE_SCALE) {
+            dividend = rescale(total, totalScale, AVERAGE_SCALE);
+            divisor = quantity;
+        } else {
+            dividend = total;
+            divisor = Math.multiplyExact((long) quantity, POWERS_OF_TEN[totalScale - AVERAGE_SCALE]);
+        }
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        return remainder >= divisor - remainder ? quotient + 1 : quotient;
+    }
+}
@@ -0,0 +1,136 @@
+package com.stocktax.domain.engine;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Open tax lots, oldest first, in a growable ring buffer of primitive arrays: a lot is a
+ * quantity and a unit price kept as unscaled long and scale, so holding lots allocates
+ * nothing per lot. The rare price whose unscaled value does not fit a long goes to a side
+ * array that is only created for it.
+ */
+final class LotQueue {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] quantities = new int[INITIAL_CAPACITY];
+    private long[] unscaledPrices = new long[INITIAL_CAPACITY];
+    private int[] scales = new int[INITIAL_CAPACITY];
+    private BigDecimal[] widePrices;
+    private int head;
+    private int size;
+    private long heldQuantity;
+
+    /**
+     * Opens a lot at the tail
+     */
+    void add(int quantity, BigDecimal price) {
+        if (size == quantities.length) {
+            grow();
+        }
+        int slot = (head + size) & (quantities.length - 1);
+        quantities[slot] = quantity;
+        if (price.unscaledValue().bitLength() <= 63) {
+            unscaledPrices[slot] = price.unscaledValue().longValue();
+            scales[slot] = price.scale();
+        } else {
+            if (widePrices == null) {
+                widePrices = new BigDecimal[quantities.length];
+            }
+            widePrices[slot] = price;
+        }
+        size++;
+        heldQuantity += quantity;
+    }
+
+    /**
+     * Takes {@code quantity} from the oldest lots and returns their cost, touching only
+     * the lots it consumes
+     */
+    BigDecimal consume(int quantity) {
+        if (quantity > heldQuantity) {
+            throw new IllegalArgumentException("Cannot sell more stocks than available");
+        }
+        BigDecimal cost = BigDecimal.ZERO;
+        int mask = quantities.length - 1;
+        int remaining = quantity;
+        while (remaining > 0) {
+            int taken = Math.min(remaining, quantities[head]);
+            cost = cost.add(costOf(head, taken));
+            remaining -= taken;
+            quantities[head] -= taken;
+            if (quantities[head] == 0) {
+                if (widePrices != null) {
+                    widePrices[head] = null;
+                }
+                head = (head + 1) & mask;
+                size--;
+            }
+        }
+        heldQuantity -= quantity;
+        return cost;
+    }
+
+    long getHeldQuantity() {
+        return heldQuantity;
+    }
+
+    int getLotCount() {
+        return size;
+    }
+
+    /**
+     * Cost of the open lots divided by the quantity held, rounded as the weighted average
+     * is; zero when nothing is held
+     */
+    BigDecimal averagePrice() {
+        if (heldQuantity == 0) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal cost = BigDecimal.ZERO;
+        int mask = quantities.length - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = (head + i) & mask;
+            cost = cost.add(costOf(slot, quantities[slot]));
+        }
+        return cost.divide(BigDecimal.valueOf(heldQuantity), 2, RoundingMode.HALF_UP);
+    }
+
+    private BigDecimal costOf(int slot, int quantity) {
+        if (widePrices != null && widePrices[slot] != null) {
+            return widePrices[slot].multiply(BigDecimal.valueOf(quantity));
+        }
+        long unscaled = unscaledPrices[slot];
+        long high = Math.multiplyHigh(unscaled, quantity);
+        long low = unscaled * quantity;
+        if ((high == 0 && low >= 0) || (high == -1 && low < 0)) {
+            return BigDecimal.valueOf(low, scales[slot]);
+        }
+        return BigDecimal.valueOf(unscaled, scales[slot]).multiply(BigDecimal.valueOf(quantity));
+    }
+
+    /**
+     * Doubles the capacity, moving the lots to the front in queue order
+     */
+    private void grow() {
+        int capacity = quantities.length;
+        int[] newQuantities = new int[capacity * 2];
+        long[] newPrices = new long[capacity * 2];
+        int[] newScales = new int[capacity * 2];
+        BigDecimal[] newWide = widePrices == null ? null : new BigDecimal[capacity * 2];
+        for (int i = 0; i < size; i++) {
+            int slot = (head + i) & (capacity - 1);
+            newQuantities[i] = quantities[slot];
+            newPrices[i] = unscaledPrices[slot];
+            newScales[i] = scales[slot];
+            if (newWide != null) {
+                newWide[i] = widePrices[slot];
+            }
+        }
+        quantities = newQuantities;
+        unscaledPrices = newPrices;
+        scales = newScales;
+        widePrices = newWide;
+        head = 0;
+    }
+}
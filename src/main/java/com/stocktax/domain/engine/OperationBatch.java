@@ -0,0 +1,104 @@
+package com.stocktax.domain.engine;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import com.stocktax.domain.model.Operation;
+
+/**
+ * A chunk of operations decoded into primitive arrays, with the work that does not depend
+ * on earlier operations done up front: sell amounts, threshold flags and validity checks.
+ * These are plain counted loops over arrays without calls or branches in their bodies,
+ * so they run without mispredictions whatever the mix of operations. Only the weighted
+ * average and loss recurrence is left to the sequential loop of the engine.
+ */
+final class OperationBatch {
+
+    static final int CAPACITY = 1024;
+
+    static final int MAX_SCALE = 4;
+    private static final int MAX_UNIT_COST_PRECISION = 12;
+
+    /** 20000.00 at unit cost scales 0 to 4 */
+    private static final long[] THRESHOLD_BY_SCALE = {20_000L, 200_000L, 2_000_000L, 20_000_000L, 200_000_000L};
+
+    final long[] unitCosts;
+    final int[] scales;
+    final int[] quantities;
+    final boolean[] buys;
+    final long[] amounts;
+    final boolean[] aboveThreshold;
+    private int size;
+
+    OperationBatch(int capacity) {
+        this.unitCosts = new long[capacity];
+        this.scales = new int[capacity];
+        this.quantities = new int[capacity];
+        this.buys = new boolean[capacity];
+        this.amounts = new long[capacity];
+        this.aboveThreshold = new boolean[capacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return unitCosts.length;
+    }
+
+    static boolean inRange(BigDecimal unitCost) {
+        return unitCost.scale() >= 0 && unitCost.scale() <= MAX_SCALE
+                && unitCost.precision() <= MAX_UNIT_COST_PRECISION;
+    }
+
+    /**
+     * Decodes the operations from {@code from} on, as many as fit; throws
+     * {@link ArithmeticException} when one is outside the range of the fixed-point engine
+     */
+    void load(List<Operation> operations, int from) {
+        size = Math.min(capacity(), operations.size() - from);
+        for (int i = 0; i < size; i++) {
+            Operation operation = operations.get(from + i);
+            BigDecimal unitCost = operation.getUnitCost();
+            if (!inRange(unitCost)) {
+                throw new ArithmeticException("Unit cost out of range: " + unitCost);
+            }
+            unitCosts[i] = unitCost.unscaledValue().longValue();
+            scales[i] = unitCost.scale();
+            quantities[i] = operation.getQuantity();
+            buys[i] = operation.isBuy();
+        }
+        prepare();
+    }
+
+    private void prepare() {
+        int n = size;
+        boolean valid = true;
+        long maxUnitCost = 0;
+        int maxQuantity = 0;
+        for (int i = 0; i < n; i++) {
+            // non-short-circuit so the body stays branch-free
+            valid &= unitCosts[i] > 0 & quantities[i] > 0;
+            maxUnitCost = Math.max(maxUnitCost, unitCosts[i]);
+            maxQuantity = Math.max(maxQuantity, quantities[i]);
+        }
+        if (!valid) {
+            throw new ArithmeticException("Non-positive unit cost or quantity");
+        }
+
+        if (Math.multiplyHigh(maxUnitCost, maxQuantity) == 0 && maxUnitCost * maxQuantity >= 0) {
+            // no product in the batch can overflow
+            for (int i = 0; i < n; i++) {
+                amounts[i] = unitCosts[i] * quantities[i];
+            }
+        } else {
+            for (int i = 0; i < n; i++) {
+                amounts[i] = Math.multiplyExact(unitCosts[i], quantities[i]);
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            aboveThreshold[i] = amounts[i] > THRESHOLD_BY_SCALE[scales[i]];
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.stocktax.domain.engine;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.stocktax.domain.TaxCalculator;
+import com.stocktax.domain.TaxEngine;
+import com.stocktax.domain.jfr.TaxCalculationEvent;
+import com.stocktax.domain.model.Operation;
+import com.stocktax.domain.model.StockPosition;
+import com.stocktax.domain.model.TaxCalculation;
+
+/**
+ * Spreads one long set over several threads. Whenever the position is fully sold, the next
+ * buy starts a fresh weighted average, so the set falls apart into segments whose profits
+ * do not depend on each other. Held quantities are a prefix sum over the set and are
+ * computed in parallel, which locates the segments; the segments' profits are computed
+ * concurrently, and a final sequential pass carries accumulated losses forward and taxes
+ * the sales.
+ * <p>
+ * All arithmetic goes through {@link StockPosition} and the {@link TaxCalculator} rules,
+ * so results match the reference down to the scale. Short sets, sets with negative
+ * quantities and sets whose held quantity would overflow are left to the sequential engine.
+ */
+public class SegmentParallelTaxEngine implements TaxEngine {
+
+    public static final String NAME = "segment-parallel";
+
+    /** Below this many operations forking costs more than it saves */
+    public static final int DEFAULT_MIN_OPERATIONS = 100_000;
+
+    private static final int TASKS_PER_THREAD = 4;
+
+    private final TaxEngine sequential;
+    private final int minOperations;
+    private final ForkJoinPool pool;
+
+    public SegmentParallelTaxEngine() {
+        this(new TaxCalculator(), DEFAULT_MIN_OPERATIONS, ForkJoinPool.commonPool());
+    }
+
+    public SegmentParallelTaxEngine(TaxEngine sequential, int minOperations, ForkJoinPool pool) {
+        this.sequential = sequential;
+        this.minOperations = minOperations;
+        this.pool = pool;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Ahead of the sequential engines, but only claims sets long enough to split and only
+     * when there is more than one thread to split them over
+     */
+    @Override
+    public int getPriority() {
+        return 20;
+    }
+
+    @Override
+    public boolean supports(List<Operation> operations) {
+        return operations.size() >= minOperations && pool.getParallelism() > 1;
+    }
+
+    @Override
+    public List<TaxCalculation> calculateTaxes(List<Operation> operations) {
+        if (operations.size() < minOperations) {
+            return sequential.calculateTaxes(operations);
+        }
+        TaxCalculationEvent event = new TaxCalculationEvent();
+        event.begin();
+        List<TaxCalculation> results = calculate(operations);
+        if (results == null) {
+            return sequential.calculateTaxes(operations);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.engine = NAME;
+            event.operationCount = operations.size();
+            event.taxedSellCount = TaxCalculator.countTaxed(results);
+            event.commit();
+        }
+        return results;
+    }
+
+    /**
+     * Null when the set has to be left to the sequential engine. The set is copied
+     * sequentially before forking, since the caller's list may not allow concurrent reads:
+     * off-heap sets decode every read through one shared buffer. The tax service already
+     * computes off-heap sets with the reference engine, so this only guards callers that
+     * use the engine directly.
+     */
+    private List<TaxCalculation> calculate(List<Operation> set) {
+        Operation[] operations = set.toArray(new Operation[0]);
+        int size = operations.length;
+        int chunk = Math.max(1, size / (pool.getParallelism() * TASKS_PER_THREAD));
+
+        // held quantity after each operation
+        long[] held = new long[size];
+        AtomicBoolean negativeQuantity = new AtomicBoolean();
+        List<Callable<Void>> decode = new ArrayList<>();
+        for (int from = 0; from < size; from += chunk) {
+            int start = from;
+            int end = Math.min(size, from + chunk);
+            decode.add(() -> {
+                for (int i = start; i < end; i++) {
+                    Operation operation = operations[i];
+                    int quantity = operation.getQuantity();
+                    if (quantity < 0) {
+                        negativeQuantity.set(true);
+                    }
+                    held[i] = operation.isBuy() ? quantity : -(long) quantity;
+                }
+                return null;
+            });
+        }
+        invokeAll(decode);
+        if (negativeQuantity.get()) {
+            return null;
+        }
+        Arrays.parallelPrefix(held, Long::sum);
+
+        // tasks are runs of whole segments, each starting flat
+        List<Integer> taskStarts = new ArrayList<>();
+        taskStarts.add(0);
+        for (int i = 0; i < size; i++) {
+            if (held[i] > Integer.MAX_VALUE) {
+                // the reference's int quantity would wrap around
+                return null;
+            }
+            if (held[i] < 0) {
+                throw new IllegalArgumentException("Cannot sell more stocks than available");
+            }
+            if (held[i] == 0 && i + 1 < size && i + 1 - taskStarts.get(taskStarts.size() - 1) >= chunk) {
+                taskStarts.add(i + 1);
+            }
+        }
+
+        BigDecimal[] profits = new BigDecimal[size];
+        boolean[] taxable = new boolean[size];
+        List<Callable<Void>> segments = new ArrayList<>(taskStarts.size());
+        for (int t = 0; t < taskStarts.size(); t++) {
+            int start = taskStarts.get(t);
+            int end = t + 1 < taskStarts.size() ? taskStarts.get(t + 1) : size;
+            segments.add(() -> {
+                StockPosition position = new StockPosition();
+                for (int i = start; i < end; i++) {
+                    Operation operation = operations[i];
+                    if (operation.isBuy()) {
+                        position.addStocks(operation.getQuantity(), operation.getUnitCost());
+                    } else {
+                        BigDecimal profit = position.sellStocks(operation.getQuantity(), operation.getUnitCost());
+                        profits[i] = profit;
+                        taxable[i] = profit.signum() > 0 && TaxCalculator.exceedsThreshold(operation);
+                    }
+                }
+                return null;
+            });
+        }
+        invokeAll(segments);
+
+        // losses carry across segments, so this part stays sequential
+        StockPosition losses = new StockPosition();
+        List<TaxCalculation> results = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            if (profits[i] == null) {
+                results.add(new TaxCalculation(BigDecimal.ZERO));
+            } else if (!taxable[i]) {
+                losses.processLoss(profits[i]);
+                results.add(new TaxCalculation(BigDecimal.ZERO));
+            } else {
+                results.add(new TaxCalculation(TaxCalculator.taxOn(losses.calculateTaxableProfit(profits[i]))));
+            }
+        }
+        return results;
+    }
+
+    private void invokeAll(List<Callable<Void>> tasks) {
+        List<Future<Void>> futures = pool.invokeAll(tasks);
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while calculating taxes", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IllegalStateException(cause);
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.stocktax.domain.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JFR event covering one {@code TaxEngine.calculateTaxes} call. Like all JFR events it
+ * is only recorded while a recording has it enabled; by default only calls slower than the
+ * threshold are kept.
+ */
+@Name("com.stocktax.TaxCalculation")
+@Label("Tax Calculation")
+@Category({"Stock Tax Calculator", "Compute"})
+@Description("Tax calculation for one operation set")
+@StackTrace(false)
+@Threshold("1 ms")
+public class TaxCalculationEvent extends jdk.jfr.Event {
+
+    @Label("Engine")
+    public String engine;
+
+    @Label("Operation Count")
+    public int operationCount;
+
+    @Label("Taxed Sell Count")
+    public int taxedSellCount;
+}
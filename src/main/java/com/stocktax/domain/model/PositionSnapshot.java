@@ -0,0 +1,133 @@
+package com.stocktax.domain.model;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Immutable copy of a {@link StockPosition} that can be shared between threads. Prices are
+ * kept as an unscaled long plus a scale, with the quantity and both scales packed into a
+ * single long; only values that do not fit fall back to {@link BigDecimal}. Scales are
+ * preserved exactly, so a position restored from a snapshot taxes like the original.
+ */
+public final class PositionSnapshot {
+
+    public static final PositionSnapshot EMPTY =
+            new PositionSnapshot(0, BigDecimal.ZERO, BigDecimal.ZERO);
+
+    private static final int QUANTITY_BITS = 32;
+    private static final int SCALE_BITS = 8;
+    private static final long SCALE_MASK = (1L << SCALE_BITS) - 1;
+
+    private final long packed;
+    private final long averagePrice;
+    private final long accumulatedLosses;
+    // only set when a value does not fit the compact form
+    private final BigDecimal bigAveragePrice;
+    private final BigDecimal bigAccumulatedLosses;
+
+    private PositionSnapshot(int totalQuantity, BigDecimal averagePrice, BigDecimal accumulatedLosses) {
+        boolean compact = fits(averagePrice) && fits(accumulatedLosses);
+        this.packed = pack(totalQuantity, compact ? averagePrice.scale() : 0,
+                compact ? accumulatedLosses.scale() : 0);
+        this.averagePrice = compact ? averagePrice.unscaledValue().longValue() : 0L;
+        this.accumulatedLosses = compact ? accumulatedLosses.unscaledValue().longValue() : 0L;
+        this.bigAveragePrice = compact ? null : averagePrice;
+        this.bigAccumulatedLosses = compact ? null : accumulatedLosses;
+    }
+
+    public static PositionSnapshot of(int totalQuantity, BigDecimal weightedAveragePrice,
+            BigDecimal accumulatedLosses) {
+        if (totalQuantity == 0 && BigDecimal.ZERO.equals(weightedAveragePrice)
+                && BigDecimal.ZERO.equals(accumulatedLosses)) {
+            return EMPTY;
+        }
+        return new PositionSnapshot(totalQuantity, weightedAveragePrice, accumulatedLosses);
+    }
+
+    /**
+     * Rebuilds a snapshot from the three longs of {@link #isCompact() compact} form
+     */
+    public static PositionSnapshot fromPacked(long packed, long averagePrice, long accumulatedLosses) {
+        return of((int) packed, BigDecimal.valueOf(averagePrice, scale(packed, 0)),
+                BigDecimal.valueOf(accumulatedLosses, scale(packed, 1)));
+    }
+
+    public int getTotalQuantity() {
+        return (int) packed;
+    }
+
+    public BigDecimal getWeightedAveragePrice() {
+        return bigAveragePrice != null ? bigAveragePrice : BigDecimal.valueOf(averagePrice, scale(packed, 0));
+    }
+
+    public BigDecimal getAccumulatedLosses() {
+        return bigAccumulatedLosses != null ? bigAccumulatedLosses
+                : BigDecimal.valueOf(accumulatedLosses, scale(packed, 1));
+    }
+
+    /**
+     * Whether the snapshot is fully described by {@link #getPacked()},
+     * {@link #getPackedAveragePrice()} and {@link #getPackedAccumulatedLosses()}
+     */
+    public boolean isCompact() {
+        return bigAveragePrice == null;
+    }
+
+    /** Quantity in the low 32 bits, then the scale of the average price and of the losses */
+    public long getPacked() {
+        return packed;
+    }
+
+    public long getPackedAveragePrice() {
+        return averagePrice;
+    }
+
+    public long getPackedAccumulatedLosses() {
+        return accumulatedLosses;
+    }
+
+    public StockPosition toStockPosition() {
+        return new StockPosition(getTotalQuantity(), getWeightedAveragePrice(), getAccumulatedLosses());
+    }
+
+    private static boolean fits(BigDecimal value) {
+        return value.unscaledValue().bitLength() <= 63 && value.scale() == (byte) value.scale();
+    }
+
+    private static long pack(int quantity, int averageScale, int lossesScale) {
+        return (quantity & 0xFFFFFFFFL)
+                | (averageScale & SCALE_MASK) << QUANTITY_BITS
+                | (lossesScale & SCALE_MASK) << (QUANTITY_BITS + SCALE_BITS);
+    }
+
+    private static int scale(long packed, int index) {
+        return (byte) (packed >>> (QUANTITY_BITS + index * SCALE_BITS));
+    }
+
+    /**
+     * Equal when the described positions are equal, including the scale of every value
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PositionSnapshot that = (PositionSnapshot) o;
+        return getTotalQuantity() == that.getTotalQuantity()
+                && getWeightedAveragePrice().equals(that.getWeightedAveragePrice())
+                && getAccumulatedLosses().equals(that.getAccumulatedLosses());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getTotalQuantity(), getWeightedAveragePrice(), getAccumulatedLosses());
+    }
+
+    @Override
+    public String toString() {
+        return "PositionSnapshot{" +
+                "totalQuantity=" + getTotalQuantity() +
+                ", weightedAveragePrice=" + getWeightedAveragePrice() +
+                ", accumulatedLosses=" + getAccumulatedLosses() +
+                '}';
+    }
+}
@@ -18,6 +18,15 @@ public class StockPosition {
         this.accumulatedLosses = BigDecimal.ZERO;
     }
     
+    /**
+     * Position restored from a {@link PositionSnapshot}
+     */
+    public StockPosition(int totalQuantity, BigDecimal weightedAveragePrice, BigDecimal accumulatedLosses) {
+        this.totalQuantity = totalQuantity;
+        this.weightedAveragePrice = weightedAveragePrice;
+        this.accumulatedLosses = accumulatedLosses;
+    }
+    
     public int getTotalQuantity() {
         return totalQuantity;
     }
@@ -96,6 +105,10 @@ public class StockPosition {
         return totalQuantity > 0;
     }
     
+    public PositionSnapshot snapshot() {
+        return PositionSnapshot.of(totalQuantity, weightedAveragePrice, accumulatedLosses);
+    }
+    
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,70 @@
+package com.stocktax.domain.model;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Totals of one operation set, for consumers that do not need the tax of every operation
+ */
+public class TaxSummary {
+    
+    private final int operationCount;
+    private final int taxedSellCount;
+    private final BigDecimal totalTax;
+    private final PositionSnapshot finalPosition;
+    
+    public TaxSummary(int operationCount, int taxedSellCount, BigDecimal totalTax, PositionSnapshot finalPosition) {
+        this.operationCount = operationCount;
+        this.taxedSellCount = taxedSellCount;
+        this.totalTax = totalTax;
+        this.finalPosition = finalPosition;
+    }
+    
+    public int getOperationCount() {
+        return operationCount;
+    }
+    
+    public int getTaxedSellCount() {
+        return taxedSellCount;
+    }
+    
+    /**
+     * Sum of the positive taxes, so its scale is that of the taxes actually paid
+     */
+    public BigDecimal getTotalTax() {
+        return totalTax;
+    }
+    
+    /**
+     * Quantity, weighted average price and accumulated losses after the last operation
+     */
+    public PositionSnapshot getFinalPosition() {
+        return finalPosition;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TaxSummary that = (TaxSummary) o;
+        return operationCount == that.operationCount &&
+                taxedSellCount == that.taxedSellCount &&
+                Objects.equals(totalTax, that.totalTax) &&
+                Objects.equals(finalPosition, that.finalPosition);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(operationCount, taxedSellCount, totalTax, finalPosition);
+    }
+    
+    @Override
+    public String toString() {
+        return "TaxSummary{" +
+                "operationCount=" + operationCount +
+                ", taxedSellCount=" + taxedSellCount +
+                ", totalTax=" + totalTax +
+                ", finalPosition=" + finalPosition +
+                '}';
+    }
+}
@@ -1,10 +1,22 @@
 package com.stocktax.domain.ports;
 
 import java.io.IOException;
+import java.util.Iterator;
 import java.util.List;
 
 import com.stocktax.domain.model.Operation;
 
 public interface InputPort {
 	List<List<Operation>> readOperations() throws IOException;
+
+	/**
+	 * Operation sets in input order, for callers that consume them one at a time.
+	 * Adapters that can parse lazily override this; failures while iterating surface
+	 * as {@link java.io.UncheckedIOException}. An iterator that is also
+	 * {@link java.io.Closeable} holds threads or files until it is exhausted, so
+	 * callers that may stop early close it.
+	 */
+	default Iterator<List<Operation>> operationSets() throws IOException {
+		return readOperations().iterator();
+	}
 }
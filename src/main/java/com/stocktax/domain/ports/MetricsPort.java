@@ -0,0 +1,60 @@
+package com.stocktax.domain.ports;
+
+/**
+ * Instrumentation hooks for the parse, compute and write stages, implemented by the
+ * infrastructure's metrics registry. Components take the {@link #DISABLED} instance by
+ * default, whose methods do nothing and which skips even the clock read, so
+ * instrumentation costs nothing unless it was switched on.
+ */
+public interface MetricsPort {
+
+	MetricsPort DISABLED = new DisabledMetrics();
+
+	enum Stage {
+		PARSE, COMPUTE, WRITE
+	}
+
+	enum Counter {
+		OPERATION_SETS, OPERATIONS, BUYS, SELLS, TAXED_SELLS, ERRORS, ADMISSION_WAITS, SPILLED_SETS,
+		PRICE_CACHE_HITS, PRICE_CACHE_MISSES
+	}
+
+	boolean isEnabled();
+
+	/**
+	 * Start of a timed section, to be passed to {@link #recordLatency}
+	 */
+	long startTimer();
+
+	void recordLatency(Stage stage, long startNanos);
+
+	void increment(Counter counter, long delta);
+
+	default void increment(Counter counter) {
+		increment(counter, 1);
+	}
+
+	final class DisabledMetrics implements MetricsPort {
+
+		private DisabledMetrics() {
+		}
+
+		@Override
+		public boolean isEnabled() {
+			return false;
+		}
+
+		@Override
+		public long startTimer() {
+			return 0L;
+		}
+
+		@Override
+		public void recordLatency(Stage stage, long startNanos) {
+		}
+
+		@Override
+		public void increment(Counter counter, long delta) {
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package com.stocktax.domain.ports;
+
+import java.util.List;
+
+import com.stocktax.domain.model.Operation;
+import com.stocktax.domain.model.TaxCalculation;
+
+/**
+ * Decides where the results of a set are kept. Sets too large for the heap get a list
+ * backed by storage of their own; the caller closes it once the results are written if
+ * it is {@link java.io.Closeable}.
+ */
+public interface ResultStorePort {
+
+	/** Every set's results are returned on the heap */
+	ResultStorePort HEAP = operations -> null;
+
+	/**
+	 * An empty list to append the results of the set to, or null when the results can
+	 * simply be returned on the heap
+	 */
+	List<TaxCalculation> createResultList(List<Operation> operations);
+}
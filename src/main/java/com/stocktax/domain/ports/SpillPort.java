@@ -0,0 +1,46 @@
+package com.stocktax.domain.ports;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.stocktax.domain.model.Operation;
+
+/**
+ * Moves operation sets off the heap. A spilled set holds storage of its own, such as
+ * native memory and a temporary file, until it is closed as a {@link java.io.Closeable}.
+ */
+public interface SpillPort {
+
+	/** Sets stay on the heap: none is off-heap and none can be spilled */
+	SpillPort HEAP = new SpillPort() {
+		@Override
+		public List<Operation> spill(List<Operation> operations) throws IOException {
+			throw new IOException("Spilling is not available");
+		}
+
+		@Override
+		public boolean isSpilled(List<Operation> operations) {
+			return false;
+		}
+
+		@Override
+		public long spilledBytes() {
+			return 0;
+		}
+	};
+
+	/**
+	 * An off-heap copy of the set; the set itself is left as it is
+	 */
+	List<Operation> spill(List<Operation> operations) throws IOException;
+
+	/**
+	 * Whether the set is already stored off the heap, by this port or by an input adapter
+	 */
+	boolean isSpilled(List<Operation> operations);
+
+	/**
+	 * Native memory a spilled set holds, however long it is
+	 */
+	long spilledBytes();
+}
@@ -0,0 +1,12 @@
+package com.stocktax.domain.ports;
+
+import java.io.IOException;
+
+import com.stocktax.domain.model.TaxSummary;
+
+/**
+ * Output of the aggregate mode, which writes the totals of each set in place of its taxes
+ */
+public interface SummaryOutputPort {
+	void writeTaxSummary(TaxSummary taxSummary) throws IOException;
+}
@@ -0,0 +1,172 @@
+package com.stocktax.domain.position;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.stocktax.domain.model.PositionSnapshot;
+
+/**
+ * Positions of many accounts, keyed by account id, in an open-addressing table of
+ * primitive arrays: four longs per slot instead of a position object, two
+ * {@link java.math.BigDecimal}s and a map entry per account. Snapshots are created on
+ * {@link #get}; the rare snapshot that does not fit the packed form is kept as an object
+ * on the side.
+ * <p>
+ * Not thread-safe; the snapshots it hands out are immutable and can be passed freely.
+ */
+public class PositionTable {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final double MAX_LOAD = 0.7;
+
+    // on top of the snapshot's packed quantity and scales, which never use bit 62 and up
+    private static final long OCCUPIED = 1L << 62;
+    private static final long OVERFLOW = 1L << 63;
+
+    private long[] keys;
+    private long[] packed;
+    private long[] averagePrices;
+    private long[] losses;
+    private final Map<Long, PositionSnapshot> overflow = new HashMap<>();
+    private int size;
+    private int resizeAt;
+
+    public PositionTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public PositionTable(int expectedAccounts) {
+        allocate(tableSizeFor(expectedAccounts));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The account's snapshot, or null if the account has none
+     */
+    public PositionSnapshot get(long accountId) {
+        int slot = find(accountId);
+        if (slot < 0) {
+            return null;
+        }
+        if ((packed[slot] & OVERFLOW) != 0) {
+            return overflow.get(accountId);
+        }
+        return PositionSnapshot.fromPacked(packed[slot] & ~OCCUPIED, averagePrices[slot], losses[slot]);
+    }
+
+    public void put(long accountId, PositionSnapshot snapshot) {
+        int slot = find(accountId);
+        if (slot < 0) {
+            if (size >= resizeAt) {
+                allocate(keys.length * 2);
+            }
+            slot = ~find(accountId);
+            keys[slot] = accountId;
+            size++;
+        } else if ((packed[slot] & OVERFLOW) != 0) {
+            overflow.remove(accountId);
+        }
+        if (snapshot.isCompact()) {
+            packed[slot] = snapshot.getPacked() | OCCUPIED;
+            averagePrices[slot] = snapshot.getPackedAveragePrice();
+            losses[slot] = snapshot.getPackedAccumulatedLosses();
+        } else {
+            packed[slot] = OCCUPIED | OVERFLOW;
+            overflow.put(accountId, snapshot);
+        }
+    }
+
+    public boolean remove(long accountId) {
+        int slot = find(accountId);
+        if (slot < 0) {
+            return false;
+        }
+        if ((packed[slot] & OVERFLOW) != 0) {
+            overflow.remove(accountId);
+        }
+        size--;
+        // backward-shift deletion keeps every probe sequence unbroken without tombstones
+        int mask = keys.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while ((packed[next] & OCCUPIED) != 0) {
+            int home = slotFor(keys[next], mask);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                move(next, hole);
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        packed[hole] = 0L;
+        return true;
+    }
+
+    /**
+     * Slot of the account, or the bitwise complement of the free slot where it would go
+     */
+    private int find(long accountId) {
+        int mask = keys.length - 1;
+        int slot = slotFor(accountId, mask);
+        while ((packed[slot] & OCCUPIED) != 0) {
+            if (keys[slot] == accountId) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return ~slot;
+    }
+
+    private void move(int from, int to) {
+        keys[to] = keys[from];
+        packed[to] = packed[from];
+        averagePrices[to] = averagePrices[from];
+        losses[to] = losses[from];
+    }
+
+    private void allocate(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldPacked = packed;
+        long[] oldAveragePrices = averagePrices;
+        long[] oldLosses = losses;
+        keys = new long[capacity];
+        packed = new long[capacity];
+        averagePrices = new long[capacity];
+        losses = new long[capacity];
+        resizeAt = (int) (capacity * MAX_LOAD);
+        if (oldKeys == null) {
+            return;
+        }
+        for (int i = 0; i < oldKeys.length; i++) {
+            if ((oldPacked[i] & OCCUPIED) != 0) {
+                int slot = ~find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                packed[slot] = oldPacked[i];
+                averagePrices[slot] = oldAveragePrices[i];
+                losses[slot] = oldLosses[i];
+            }
+        }
+    }
+
+    private static int slotFor(long accountId, int mask) {
+        // finalizer of MurmurHash3, so sequential ids spread over the table
+        long h = accountId;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    private static int tableSizeFor(int expectedAccounts) {
+        int needed = (int) Math.ceil(Math.max(expectedAccounts, 1) / MAX_LOAD);
+        int capacity = Integer.highestOneBit(Math.max(needed, 2) - 1) << 1;
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Too many accounts: " + expectedAccounts);
+        }
+        return capacity;
+    }
+}
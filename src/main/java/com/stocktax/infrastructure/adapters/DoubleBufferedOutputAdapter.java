@@ -0,0 +1,152 @@
+package com.stocktax.infrastructure.adapters;
+
+import com.stocktax.domain.model.TaxCalculation;
+import com.stocktax.domain.ports.MetricsPort;
+import com.stocktax.domain.ports.OutputPort;
+import com.stocktax.infrastructure.jfr.WriteEvent;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Writes the usual one line per set through two large direct buffers. Sets are encoded
+ * into the active buffer; once it is full the buffers are swapped and the full one is
+ * written on a background thread while the next sets fill the other. The caller only
+ * waits when it fills a whole buffer before the previous one has reached the kernel.
+ * <p>
+ * Writes are gathering writes: a set larger than a whole buffer goes out together with
+ * the buffer ahead of it in a single call. The channel is owned by the caller;
+ * {@link #close()} writes what is left and stops the background thread.
+ */
+public class DoubleBufferedOutputAdapter implements OutputPort, Closeable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 4 << 20;
+
+    private static final Future<?> IDLE = CompletableFuture.completedFuture(null);
+
+    private final GatheringByteChannel channel;
+    private final MetricsPort metrics;
+    private final TaxJsonEncoder encoder = new TaxJsonEncoder();
+    private final ExecutorService flusher;
+
+    private ByteBuffer active;
+    private ByteBuffer idle;
+    private Future<?> pending = IDLE;
+
+    public DoubleBufferedOutputAdapter(GatheringByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE, MetricsPort.DISABLED);
+    }
+
+    public DoubleBufferedOutputAdapter(GatheringByteChannel channel, int bufferSize, MetricsPort metrics) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive");
+        }
+        this.channel = channel;
+        this.metrics = metrics;
+        this.active = ByteBuffer.allocateDirect(bufferSize);
+        this.idle = ByteBuffer.allocateDirect(bufferSize);
+        this.flusher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "output-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void writeTaxCalculations(List<TaxCalculation> taxCalculations) throws IOException {
+        long start = metrics.startTimer();
+        WriteEvent event = new WriteEvent();
+        event.begin();
+        ByteBuffer encoded = encoder.dense(taxCalculations).newLine().asByteBuffer();
+        int size = encoded.remaining();
+        try {
+            if (size > active.remaining()) {
+                if (size > active.capacity()) {
+                    // the encoder's buffer is reused for the next set, so the flush gets a copy
+                    ByteBuffer copy = ByteBuffer.allocate(size).put(encoded).flip();
+                    swap(copy);
+                    encoded = null;
+                } else {
+                    swap(null);
+                }
+            }
+            if (encoded != null) {
+                active.put(encoded);
+            }
+        } catch (IOException e) {
+            metrics.increment(MetricsPort.Counter.ERRORS);
+            throw new IOException("Failed to write output: " + e.getMessage(), e);
+        }
+        metrics.recordLatency(MetricsPort.Stage.WRITE, start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.taxCount = taxCalculations.size();
+            event.bytesWritten = size;
+            event.commit();
+        }
+    }
+
+    /**
+     * Writes everything still buffered and waits for it; the channel stays open
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            awaitPending();
+            active.flip();
+            writeFully(channel, new ByteBuffer[] {active});
+            active.clear();
+        } finally {
+            flusher.shutdown();
+        }
+    }
+
+    /**
+     * Hands the active buffer, followed by {@code oversized} if given, to the background
+     * thread once it has finished the previous buffer, and continues in the other buffer
+     */
+    private void swap(ByteBuffer oversized) throws IOException {
+        awaitPending();
+        ByteBuffer full = active.flip();
+        ByteBuffer[] buffers = oversized == null ? new ByteBuffer[] {full} : new ByteBuffer[] {full, oversized};
+        pending = flusher.submit(() -> {
+            writeFully(channel, buffers);
+            full.clear();
+            return null;
+        });
+        active = idle;
+        idle = full;
+    }
+
+    private void awaitPending() throws IOException {
+        try {
+            pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for output to be written");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        } finally {
+            pending = IDLE;
+        }
+    }
+
+    private static void writeFully(GatheringByteChannel channel, ByteBuffer[] buffers) throws IOException {
+        ByteBuffer last = buffers[buffers.length - 1];
+        while (last.hasRemaining()) {
+            channel.write(buffers);
+        }
+    }
+}
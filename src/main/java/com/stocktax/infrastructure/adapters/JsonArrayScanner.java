@@ -0,0 +1,54 @@
+package com.stocktax.infrastructure.adapters;
+
+/**
+ * Tracks bracket depth of JSON text fed line by line, so a multi-line set is only handed
+ * to the parser once its top-level value is closed. Saves a failed parse, and the
+ * exception that comes with it, for every incomplete line.
+ */
+public final class JsonArrayScanner {
+
+    private int depth;
+    private boolean started;
+    private boolean inString;
+    private boolean escaped;
+
+    public void feed(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '[' || c == '{') {
+                depth++;
+                started = true;
+            } else if (c == ']' || c == '}') {
+                depth--;
+            } else if (!started && !Character.isWhitespace(c)) {
+                // a bare top-level value; let the parser decide
+                started = true;
+            }
+        }
+    }
+
+    /**
+     * True once everything opened so far has been closed again. The text may still be
+     * invalid JSON; this only says a parse attempt is worthwhile.
+     */
+    public boolean isBalanced() {
+        return started && depth <= 0 && !inString;
+    }
+
+    public void reset() {
+        depth = 0;
+        started = false;
+        inString = false;
+        escaped = false;
+    }
+}
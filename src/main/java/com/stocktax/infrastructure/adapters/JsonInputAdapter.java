@@ -1,77 +1,217 @@
 package com.stocktax.infrastructure.adapters;
 
 import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.stocktax.domain.model.Operation;
 import com.stocktax.domain.ports.InputPort;
+import com.stocktax.domain.ports.MetricsPort;
 import com.stocktax.infrastructure.dto.OperationDto;
+import com.stocktax.infrastructure.jfr.ParseEvent;
+import com.stocktax.infrastructure.logging.RateLimitedLogger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Adapter for reading JSON input from stdin
+ * Adapter for reading JSON input from stdin or any other input stream
  */
 public class JsonInputAdapter implements InputPort {
     
-    private static final Logger logger = LoggerFactory.getLogger(JsonInputAdapter.class);
-    private final ObjectMapper objectMapper;
+    private static final TypeReference<List<OperationDto>> OPERATION_LIST = new TypeReference<>() {};
+    
+    private final InputStream input;
+    private final MetricsPort metrics;
     
     public JsonInputAdapter() {
-        this.objectMapper = new ObjectMapper();
+        // stdin is resolved on read so System.setIn after construction is honoured
+        this(null);
+    }
+    
+    public JsonInputAdapter(InputStream input) {
+        this(input, MetricsPort.DISABLED);
+    }
+    
+    public JsonInputAdapter(InputStream input, MetricsPort metrics) {
+        this.input = input;
+        this.metrics = metrics;
     }
     
     /**
-     * Reads operations from stdin line by line
+     * Reads operations line by line
      */
     @Override
     public List<List<Operation>> readOperations() throws IOException {
         List<List<Operation>> allOperations = new ArrayList<>();
-        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
-        StringBuilder jsonBuffer = new StringBuilder();
-        String line;
-        
-        while ((line = reader.readLine()) != null && !line.trim().isEmpty()) {
-            jsonBuffer.append(line);
-            try {
-                List<Operation> operations = parseOperationsLine(jsonBuffer.toString());
-                allOperations.add(operations);
-                jsonBuffer.setLength(0);
-            } catch (Exception e) {
-                logger.debug("JSON not complete yet, continuing to read lines");
-            }
+        OperationSetReader setReader = new OperationSetReader(openReader());
+        List<Operation> operations;
+        while ((operations = setReader.readNext()) != null) {
+            allOperations.add(operations);
         }
-        
-        if (jsonBuffer.length() > 0) {
-            try {
-                List<Operation> operations = parseOperationsLine(jsonBuffer.toString());
-                allOperations.add(operations);
-                logger.debug("Successfully parsed {} operations from final buffer", operations.size());
-            } catch (Exception e) {
-                logger.error("Error parsing final JSON buffer: {}", jsonBuffer, e);
-                throw new IOException("Failed to parse operations: " + e.getMessage(), e);
-            }
-        }
-
         return allOperations;
     }
     
-    private List<Operation> parseOperationsLine(String line) throws IOException {
+    /**
+     * Parses each set only when the caller asks for it
+     */
+    @Override
+    public Iterator<List<Operation>> operationSets() {
+        return new OperationSetReader(openReader());
+    }
+    
+    /**
+     * Parses a single JSON array of operations, counting buys and sells as they are
+     * converted. Failures are left to the caller to log, since an incomplete multi-line
+     * set is an expected failure.
+     */
+    public List<Operation> parseOperations(String line) throws IOException {
+        List<Operation> operations;
+        long buys = 0;
         try {
-            List<OperationDto> dtos = objectMapper.readValue(line, new TypeReference<List<OperationDto>>() {});
-            return dtos.stream()
-                    .map(dto -> new Operation(dto.getOperation(), dto.getUnitCost(), dto.getQuantity()))
-                    .collect(Collectors.toList());
+            List<OperationDto> dtos = JsonMappers.mapper().readValue(line, OPERATION_LIST);
+            operations = new ArrayList<>(dtos.size());
+            for (OperationDto dto : dtos) {
+                Operation operation = new Operation(dto.getOperation(), dto.getUnitCost(), dto.getQuantity());
+                if (operation.isBuy()) {
+                    buys++;
+                }
+                operations.add(operation);
+            }
         } catch (Exception e) {
-            logger.error("Failed to parse JSON line: {}", line, e);
             throw new IOException("Invalid JSON format: " + e.getMessage(), e);
         }
+        countBuysAndSells(metrics, buys, operations.size());
+        return operations;
+    }
+    
+    /**
+     * Input adapters count buys and sells while they create the operations, so no stage
+     * walks a set again just to count them
+     */
+    static void countBuysAndSells(MetricsPort metrics, long buys, long operations) {
+        if (metrics.isEnabled()) {
+            metrics.increment(MetricsPort.Counter.BUYS, buys);
+            metrics.increment(MetricsPort.Counter.SELLS, operations - buys);
+        }
+    }
+    
+    private BufferedReader openReader() {
+        return input == null
+                ? new BufferedReader(new InputStreamReader(System.in))
+                : new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Logback is configured when something is first logged, not when the adapter loads
+     */
+    private static final class Log {
+        
+        static final Logger logger = LoggerFactory.getLogger(JsonInputAdapter.class);
+        static final RateLimitedLogger parseErrors = new RateLimitedLogger(logger, 10, 1, TimeUnit.MINUTES);
+    }
+    
+    /**
+     * Reads lines until they form one complete set; an empty line ends the input
+     */
+    private final class OperationSetReader implements Iterator<List<Operation>> {
+        
+        private final BufferedReader reader;
+        private boolean ended;
+        private List<Operation> next;
+        
+        OperationSetReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+        
+        List<Operation> readNext() throws IOException {
+            if (ended) {
+                return null;
+            }
+            long start = metrics.startTimer();
+            ParseEvent event = new ParseEvent();
+            event.begin();
+            StringBuilder jsonBuffer = new StringBuilder();
+            JsonArrayScanner scanner = new JsonArrayScanner();
+            String line;
+            
+            while ((line = reader.readLine()) != null && !line.trim().isEmpty()) {
+                jsonBuffer.append(line);
+                scanner.feed(line);
+                if (!scanner.isBalanced()) {
+                    continue;
+                }
+                try {
+                    return parsed(parseOperations(jsonBuffer.toString()), start, event, jsonBuffer);
+                } catch (IOException e) {
+                    if (Log.logger.isDebugEnabled()) {
+                        Log.logger.debug("JSON not complete yet, continuing to read lines");
+                    }
+                }
+            }
+            ended = true;
+            
+            if (jsonBuffer.length() > 0) {
+                try {
+                    List<Operation> operations = parseOperations(jsonBuffer.toString());
+                    if (Log.logger.isDebugEnabled()) {
+                        Log.logger.debug("Successfully parsed {} operations from final buffer", operations.size());
+                    }
+                    return parsed(operations, start, event, jsonBuffer);
+                } catch (Exception e) {
+                    metrics.increment(MetricsPort.Counter.ERRORS);
+                    Log.parseErrors.error("Error parsing final JSON buffer: {}", jsonBuffer, e);
+                    throw new IOException("Failed to parse operations: " + e.getMessage(), e);
+                }
+            }
+            return null;
+        }
+        
+        private List<Operation> parsed(List<Operation> operations, long start, ParseEvent event,
+                CharSequence json) {
+            if (metrics.isEnabled()) {
+                metrics.recordLatency(MetricsPort.Stage.PARSE, start);
+                metrics.increment(MetricsPort.Counter.OPERATION_SETS);
+                metrics.increment(MetricsPort.Counter.OPERATIONS, operations.size());
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.operationCount = operations.size();
+                event.bytesParsed = json.length();
+                event.commit();
+            }
+            return operations;
+        }
+        
+        @Override
+        public boolean hasNext() {
+            if (next == null && !ended) {
+                try {
+                    next = readNext();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return next != null;
+        }
+        
+        @Override
+        public List<Operation> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            List<Operation> operations = next;
+            next = null;
+            return operations;
+        }
     }
 }
@@ -0,0 +1,33 @@
+package com.stocktax.infrastructure.adapters;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.stocktax.infrastructure.dto.OperationDto;
+
+/**
+ * The {@link ObjectMapper} shared by the JSON adapters. Building one loads and configures
+ * a large part of Jackson, so it is built once, on first use rather than when an adapter
+ * is created.
+ */
+public final class JsonMappers {
+
+    private JsonMappers() {
+    }
+
+    public static ObjectMapper mapper() {
+        return Holder.MAPPER;
+    }
+
+    /**
+     * Reader for single operations, for the adapters that parse element by element
+     */
+    public static ObjectReader operationReader() {
+        return Holder.OPERATION_READER;
+    }
+
+    private static final class Holder {
+
+        static final ObjectMapper MAPPER = new ObjectMapper();
+        static final ObjectReader OPERATION_READER = MAPPER.readerFor(OperationDto.class);
+    }
+}
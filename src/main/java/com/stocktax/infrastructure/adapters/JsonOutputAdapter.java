@@ -1,45 +1,192 @@
 package com.stocktax.infrastructure.adapters;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.stocktax.domain.model.PositionSnapshot;
 import com.stocktax.domain.model.TaxCalculation;
+import com.stocktax.domain.model.TaxSummary;
+import com.stocktax.domain.ports.MetricsPort;
 import com.stocktax.domain.ports.OutputPort;
+import com.stocktax.domain.ports.SummaryOutputPort;
 import com.stocktax.infrastructure.dto.TaxCalculationDto;
+import com.stocktax.infrastructure.dto.TaxSummaryDto;
+import com.stocktax.infrastructure.jfr.WriteEvent;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.FilterWriter;
 import java.io.IOException;
+import java.io.Writer;
 import java.util.List;
 import java.util.stream.Collectors;
 
 /**
- * Adapter for writing JSON output to stdout
+ * Adapter for writing JSON output to stdout, or one line per set to a writer
  */
-public class JsonOutputAdapter implements OutputPort {
+public class JsonOutputAdapter implements OutputPort, SummaryOutputPort {
     
-    private static final Logger logger = LoggerFactory.getLogger(JsonOutputAdapter.class);
-    private final ObjectMapper objectMapper;
+    /** Sets with this many results are streamed to the writer instead of built as one string */
+    public static final int STREAMING_THRESHOLD = 10_000;
+    
+    private final Writer writer;
+    private final MetricsPort metrics;
     
     public JsonOutputAdapter() {
-        this.objectMapper = new ObjectMapper();
+        this(null);
+    }
+    
+    /**
+     * The writer is owned by the caller, which flushes and closes it
+     */
+    public JsonOutputAdapter(Writer writer) {
+        this(writer, MetricsPort.DISABLED);
+    }
+    
+    public JsonOutputAdapter(Writer writer, MetricsPort metrics) {
+        this.writer = writer;
+        this.metrics = metrics;
     }
     
     /**
-     * Writes tax calculations as JSON to stdout
+     * Writes tax calculations as JSON to stdout or the configured writer
      */
     @Override
     public void writeTaxCalculations(List<TaxCalculation> taxCalculations) throws IOException {
         try {
-            // Convert domain objects to DTOs for JSON serialization
-            List<TaxCalculationDto> dtos = taxCalculations.stream()
-                    .map(tc -> new TaxCalculationDto(tc.getTax()))
-                    .collect(Collectors.toList());
-            
-            String json = objectMapper.writeValueAsString(dtos);
-            logger.info(json);
+            long start = metrics.startTimer();
+            WriteEvent event = new WriteEvent();
+            event.begin();
+            long written;
+            if (writer != null && taxCalculations.size() >= STREAMING_THRESHOLD) {
+                written = stream(taxCalculations);
+            } else {
+                String json = toJson(taxCalculations);
+                if (writer == null) {
+                    Log.logger.info(json);
+                } else {
+                    writer.write(json);
+                    writer.write('\n');
+                }
+                // the JSON is ASCII, so characters are bytes
+                written = json.length() + 1;
+            }
+            metrics.recordLatency(MetricsPort.Stage.WRITE, start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.taxCount = taxCalculations.size();
+                event.bytesWritten = written;
+                event.commit();
+            }
+        } catch (Exception e) {
+            metrics.increment(MetricsPort.Counter.ERRORS);
+            Log.logger.error("Error writing tax calculations", e);
+            throw new IOException("Failed to write output: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes one JSON object per set to stdout or the configured writer
+     */
+    @Override
+    public void writeTaxSummary(TaxSummary taxSummary) throws IOException {
+        try {
+            long start = metrics.startTimer();
+            String json = toJson(taxSummary);
+            if (writer == null) {
+                Log.logger.info(json);
+            } else {
+                writer.write(json);
+                writer.write('\n');
+            }
+            metrics.recordLatency(MetricsPort.Stage.WRITE, start);
         } catch (Exception e) {
-            logger.error("Error writing tax calculations", e);
+            metrics.increment(MetricsPort.Counter.ERRORS);
+            Log.logger.error("Error writing tax summary", e);
             throw new IOException("Failed to write output: " + e.getMessage(), e);
         }
     }
+
+    public String toJson(TaxSummary taxSummary) throws IOException {
+        PositionSnapshot position = taxSummary.getFinalPosition();
+        return JsonMappers.mapper().writeValueAsString(new TaxSummaryDto(taxSummary.getOperationCount(),
+                taxSummary.getTaxedSellCount(), taxSummary.getTotalTax(), position.getTotalQuantity(),
+                position.getWeightedAveragePrice(), position.getAccumulatedLosses()));
+    }
+
+    /**
+     * Same output as {@link #toJson}, written element by element; returns the length written
+     */
+    private long stream(List<TaxCalculation> taxCalculations) throws IOException {
+        CountingWriter counting = new CountingWriter(writer);
+        try (JsonGenerator generator = JsonMappers.mapper().getFactory().createGenerator(counting)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            generator.writeStartArray();
+            for (int i = 0; i < taxCalculations.size(); i++) {
+                generator.writeStartObject();
+                generator.writeNumberField("tax", taxCalculations.get(i).getTax());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+        counting.write('\n');
+        return counting.count;
+    }
+
+    /**
+     * Serializes tax calculations as a single JSON array
+     */
+    public String toJson(List<TaxCalculation> taxCalculations) throws IOException {
+        // Convert domain objects to DTOs for JSON serialization
+        List<TaxCalculationDto> dtos = taxCalculations.stream()
+                .map(tc -> new TaxCalculationDto(tc.getTax()))
+                .collect(Collectors.toList());
+
+        return JsonMappers.mapper().writeValueAsString(dtos);
+    }
+
+    /**
+     * Counts what passes through to the caller's writer
+     */
+    private static final class CountingWriter extends FilterWriter {
+
+        long count;
+
+        CountingWriter(Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            out.write(c);
+            count++;
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            out.write(buffer, offset, length);
+            count += length;
+        }
+
+        @Override
+        public void write(String text, int offset, int length) throws IOException {
+            out.write(text, offset, length);
+            count += length;
+        }
+
+        /**
+         * The caller owns the writer
+         */
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Only needed when writing through the logger or on errors, so logback is not
+     * configured for output that goes to a writer
+     */
+    private static final class Log {
+
+        static final Logger logger = LoggerFactory.getLogger(JsonOutputAdapter.class);
+    }
 }
@@ -0,0 +1,404 @@
+package com.stocktax.infrastructure.adapters;
+
+import com.stocktax.domain.model.Operation;
+import com.stocktax.domain.ports.InputPort;
+import com.stocktax.domain.ports.MetricsPort;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Parses one input file on several threads. The file is cut into byte ranges that start
+ * at the beginning of a line opening a set, each range is parsed on its own, and the sets
+ * come out in file order. Since operations hold no arrays, a line whose first non-blank
+ * character is {@code [} can only start a set.
+ * <p>
+ * There are more ranges than threads, so the first sets are handed out while the rest of
+ * the file is still being parsed. Ranges are submitted as the consumer takes sets, with at
+ * most {@value #RANGES_AHEAD_PER_THREAD} per thread parsed ahead of it, so a consumer that
+ * blocks, such as the pipeline's admission control, also holds the parsers back. Ranges
+ * are kept below a maximum size, so what is parsed ahead is a bounded number of bytes of
+ * input whatever the file size; only a single set longer than a range makes its range
+ * longer. As with {@link JsonInputAdapter}, an empty line ends the input.
+ */
+public class ParallelFileInputAdapter implements InputPort {
+
+    /** Ranges per thread; smaller ranges let consumers start sooner */
+    private static final int RANGES_PER_THREAD = 4;
+    /** Ranges per thread submitted ahead of the one being consumed */
+    static final int RANGES_AHEAD_PER_THREAD = 2;
+    static final long MIN_RANGE_BYTES = 1 << 20;
+    static final long MAX_RANGE_BYTES = 64L << 20;
+    private static final int SCAN_BUFFER_SIZE = 8192;
+
+    private final Path file;
+    private final int threads;
+    private final long minRangeBytes;
+    private final long maxRangeBytes;
+    private final MetricsPort metrics;
+
+    public ParallelFileInputAdapter(Path file, int threads) {
+        this(file, threads, MetricsPort.DISABLED);
+    }
+
+    public ParallelFileInputAdapter(Path file, int threads, MetricsPort metrics) {
+        this(file, threads, MIN_RANGE_BYTES, MAX_RANGE_BYTES, metrics);
+    }
+
+    /**
+     * Ranges are sized so that about {@code aheadBytes} of input are parsed ahead of the
+     * consumer, within {@value #MIN_RANGE_BYTES} and {@value #MAX_RANGE_BYTES} bytes per range
+     */
+    public ParallelFileInputAdapter(Path file, int threads, long aheadBytes, MetricsPort metrics) {
+        this(file, threads, MIN_RANGE_BYTES, maxRangeBytes(threads, aheadBytes), metrics);
+    }
+
+    ParallelFileInputAdapter(Path file, int threads, long minRangeBytes, long maxRangeBytes, MetricsPort metrics) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Number of threads must be positive");
+        }
+        if (maxRangeBytes < minRangeBytes) {
+            throw new IllegalArgumentException("Maximum range size must not be below the minimum");
+        }
+        this.file = file;
+        this.threads = threads;
+        this.minRangeBytes = minRangeBytes;
+        this.maxRangeBytes = maxRangeBytes;
+        this.metrics = metrics;
+    }
+
+    private static long maxRangeBytes(int threads, long aheadBytes) {
+        long perRange = aheadBytes / Math.max(1, (long) threads * RANGES_AHEAD_PER_THREAD);
+        return Math.max(MIN_RANGE_BYTES, Math.min(MAX_RANGE_BYTES, perRange));
+    }
+
+    @Override
+    public List<List<Operation>> readOperations() throws IOException {
+        List<List<Operation>> allOperations = new ArrayList<>();
+        try (RangeIterator sets = new RangeIterator()) {
+            while (sets.hasNextRange()) {
+                allOperations.addAll(sets.nextRange());
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return allOperations;
+    }
+
+    /**
+     * Sets in file order, available as soon as the range holding them is parsed. The
+     * iterator is {@link Closeable}: parsing threads and the file are released once it is
+     * exhausted, fails or is closed, so callers that may stop early close it.
+     */
+    @Override
+    public Iterator<List<Operation>> operationSets() throws IOException {
+        return new SetIterator(new RangeIterator());
+    }
+
+    /**
+     * Start offsets of the ranges, beginning with 0; every other offset is the start of a
+     * line that opens a set
+     */
+    static List<Long> splitPoints(FileChannel channel, int ranges) throws IOException {
+        long size = channel.size();
+        List<Long> points = new ArrayList<>(ranges);
+        points.add(0L);
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        for (int i = 1; i < ranges; i++) {
+            long target = size / ranges * i;
+            if (target <= points.get(points.size() - 1)) {
+                continue;
+            }
+            long point = nextSetStart(channel, target, buffer);
+            if (point >= size) {
+                break;
+            }
+            if (point > points.get(points.size() - 1)) {
+                points.add(point);
+            }
+        }
+        return points;
+    }
+
+    /**
+     * Offset of the first line after {@code from} that opens a set, or the file size
+     */
+    private static long nextSetStart(FileChannel channel, long from, ByteBuffer buffer) throws IOException {
+        boolean afterNewline = false;
+        long lineStart = -1;
+        long position = from;
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = buffer.get(i);
+                if (b == '\n') {
+                    afterNewline = true;
+                    lineStart = position + i + 1;
+                } else if (afterNewline && b == '[') {
+                    return lineStart;
+                } else if (b != ' ' && b != '\t') {
+                    afterNewline = false;
+                }
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * {@value #RANGES_PER_THREAD} ranges per thread, fewer for a small file and more for
+     * one that would otherwise need ranges above the maximum size
+     */
+    int rangeCount(long size) {
+        long bySize = Math.max(1, size / minRangeBytes);
+        long ranges = Math.min((long) threads * RANGES_PER_THREAD, bySize);
+        long bounded = (size + maxRangeBytes - 1) / maxRangeBytes;
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(ranges, bounded));
+    }
+
+    /**
+     * Hands out the sets of the ranges in order, submitting a new range each time one is
+     * taken. Once a range ends at an empty line, later ranges are dropped.
+     */
+    private final class RangeIterator implements AutoCloseable {
+
+        private final FileChannel channel;
+        private final ExecutorService pool;
+        private final List<Long> points;
+        private final ArrayDeque<Future<RangeResult>> results = new ArrayDeque<>();
+        private int submitted;
+        private boolean ended;
+
+        RangeIterator() throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                points = splitPoints(channel, rangeCount(channel.size()));
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+            pool = Executors.newFixedThreadPool(Math.min(threads, points.size()), runnable -> {
+                Thread thread = new Thread(runnable, "parallel-parser");
+                thread.setDaemon(true);
+                return thread;
+            });
+            int ahead = Math.min(threads, points.size()) * RANGES_AHEAD_PER_THREAD;
+            while (submitted < ahead && submitted < points.size()) {
+                submitNext();
+            }
+        }
+
+        private void submitNext() {
+            long start = points.get(submitted);
+            long end = submitted + 1 < points.size() ? points.get(submitted + 1) : Long.MAX_VALUE;
+            results.add(pool.submit(() -> parseRange(start, end)));
+            if (++submitted == points.size()) {
+                pool.shutdown();
+            }
+        }
+
+        boolean hasNextRange() {
+            return !ended && !results.isEmpty();
+        }
+
+        List<List<Operation>> nextRange() throws IOException {
+            // the parsed sets are only referenced by the caller from here on
+            Future<RangeResult> future = results.poll();
+            if (submitted < points.size()) {
+                submitNext();
+            }
+            RangeResult result;
+            try {
+                result = future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while parsing " + file);
+            } catch (ExecutionException e) {
+                ended = true;
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException("Failed to parse operations: " + e.getCause().getMessage(), e.getCause());
+            }
+            if (result.endedAtEmptyLine) {
+                ended = true;
+            }
+            return result.operationSets;
+        }
+
+        /**
+         * Same line handling as {@link JsonInputAdapter}: lines are joined until the set
+         * is balanced and parses, and an empty line ends the range
+         */
+        private RangeResult parseRange(long start, long end) throws IOException {
+            JsonInputAdapter parser = new JsonInputAdapter(null, metrics);
+            List<List<Operation>> operationSets = new ArrayList<>();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new RangeInputStream(channel, start, end), StandardCharsets.UTF_8), 1 << 16);
+            StringBuilder jsonBuffer = new StringBuilder();
+            JsonArrayScanner scanner = new JsonArrayScanner();
+            boolean endedAtEmptyLine = false;
+            long timer = metrics.startTimer();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    endedAtEmptyLine = true;
+                    break;
+                }
+                jsonBuffer.append(line);
+                scanner.feed(line);
+                if (!scanner.isBalanced()) {
+                    continue;
+                }
+                try {
+                    operationSets.add(parsed(parser.parseOperations(jsonBuffer.toString()), timer));
+                    jsonBuffer.setLength(0);
+                    scanner.reset();
+                    timer = metrics.startTimer();
+                } catch (IOException e) {
+                    // not a complete set yet, keep reading
+                }
+            }
+            if (jsonBuffer.length() > 0) {
+                try {
+                    operationSets.add(parsed(parser.parseOperations(jsonBuffer.toString()), timer));
+                } catch (IOException e) {
+                    metrics.increment(MetricsPort.Counter.ERRORS);
+                    throw new IOException("Failed to parse operations: " + e.getMessage(), e);
+                }
+            }
+            return new RangeResult(operationSets, endedAtEmptyLine);
+        }
+
+        private List<Operation> parsed(List<Operation> operations, long timer) {
+            if (metrics.isEnabled()) {
+                metrics.recordLatency(MetricsPort.Stage.PARSE, timer);
+                metrics.increment(MetricsPort.Counter.OPERATION_SETS);
+                metrics.increment(MetricsPort.Counter.OPERATIONS, operations.size());
+            }
+            return operations;
+        }
+
+        @Override
+        public void close() {
+            ended = true;
+            pool.shutdownNow();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static final class SetIterator implements Iterator<List<Operation>>, Closeable {
+
+        private final RangeIterator ranges;
+        private Iterator<List<Operation>> current = List.<List<Operation>>of().iterator();
+
+        SetIterator(RangeIterator ranges) {
+            this.ranges = ranges;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                if (!ranges.hasNextRange()) {
+                    ranges.close();
+                    return false;
+                }
+                try {
+                    current = ranges.nextRange().iterator();
+                } catch (IOException e) {
+                    ranges.close();
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public List<Operation> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        @Override
+        public void close() {
+            ranges.close();
+        }
+    }
+
+    private static final class RangeResult {
+
+        final List<List<Operation>> operationSets;
+        final boolean endedAtEmptyLine;
+
+        RangeResult(List<List<Operation>> operationSets, boolean endedAtEmptyLine) {
+            this.operationSets = operationSets;
+            this.endedAtEmptyLine = endedAtEmptyLine;
+        }
+    }
+
+    /**
+     * Positional reads of {@code [start, end)} from a channel shared with other ranges
+     */
+    private static final class RangeInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private long position;
+        private final long end;
+
+        RangeInputStream(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            long remaining = end - position;
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, remaining)), position);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.stocktax.infrastructure.adapters;
+
+import com.stocktax.domain.model.TaxCalculation;
+import com.stocktax.domain.ports.MetricsPort;
+import com.stocktax.domain.ports.OutputPort;
+import com.stocktax.infrastructure.dto.PartitionManifestDto;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Writes the usual one line per set into several partition files at once, each with its
+ * own writer thread and buffered {@link FileChannel}. Consecutive sets go to the same
+ * partition in blocks of {@code blockSize}, and the blocks are dealt to the partitions in
+ * turn, so set {@code i} (from 0) is in partition {@code (i / blockSize) % partitions}.
+ * <p>
+ * Sets are encoded on the partition's thread. {@link #complete()} waits for every
+ * partition and then writes {@code manifest.json}, which lists the files with their set
+ * and byte counts; a directory without a manifest holds an incomplete run.
+ */
+public class PartitionedOutputAdapter implements OutputPort, Closeable {
+
+    public static final int DEFAULT_BLOCK_SIZE = 1024;
+    public static final String MANIFEST = "manifest.json";
+
+    private static final int QUEUE_CAPACITY = 64;
+    private static final int BUFFER_SIZE = 1 << 18;
+    private static final long OFFER_TIMEOUT_MILLIS = 10;
+    private static final Object END = new Object();
+
+    private final Path directory;
+    private final int blockSize;
+    private final MetricsPort metrics;
+    private final List<Partition> partitions;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final TaxJsonEncoder encoder = new TaxJsonEncoder();
+    private long sets;
+    private boolean completed;
+
+    public PartitionedOutputAdapter(Path directory, int partitions) throws IOException {
+        this(directory, partitions, DEFAULT_BLOCK_SIZE, MetricsPort.DISABLED);
+    }
+
+    public PartitionedOutputAdapter(Path directory, int partitions, int blockSize, MetricsPort metrics)
+            throws IOException {
+        if (partitions <= 0 || blockSize <= 0) {
+            throw new IllegalArgumentException("Number of partitions and block size must be positive");
+        }
+        this.directory = directory;
+        this.blockSize = blockSize;
+        this.metrics = metrics;
+        Files.createDirectories(directory);
+        // a manifest left by an earlier run would describe the files about to be replaced
+        Files.deleteIfExists(directory.resolve(MANIFEST));
+        this.partitions = new ArrayList<>(partitions);
+        try {
+            for (int i = 0; i < partitions; i++) {
+                this.partitions.add(new Partition(fileName(i)));
+            }
+        } catch (IOException e) {
+            for (Partition opened : this.partitions) {
+                opened.channel.close();
+            }
+            throw e;
+        }
+        for (Partition partition : this.partitions) {
+            partition.thread.start();
+        }
+    }
+
+    static String fileName(int partition) {
+        return String.format(Locale.ROOT, "part-%05d.jsonl", partition);
+    }
+
+    /**
+     * Hands the set to its partition, blocking while that partition is behind
+     */
+    @Override
+    public void writeTaxCalculations(List<TaxCalculation> taxCalculations) throws IOException {
+        checkNotFailed();
+        Partition partition = partitions.get((int) (sets++ / blockSize % partitions.size()));
+        // off-heap results are closed by the caller as soon as this returns
+        Object item = taxCalculations instanceof Closeable
+                ? encoder.dense(taxCalculations).newLine().toByteArray()
+                : taxCalculations;
+        partition.put(item);
+    }
+
+    /**
+     * Waits until every partition is written and forced to disk and then writes the
+     * manifest, forced along with its directory, returning its path
+     */
+    public Path complete() throws IOException {
+        for (Partition partition : partitions) {
+            partition.put(END);
+        }
+        for (Partition partition : partitions) {
+            partition.join();
+        }
+        checkNotFailed();
+
+        List<PartitionManifestDto.PartitionFile> files = new ArrayList<>(partitions.size());
+        for (Partition partition : partitions) {
+            files.add(new PartitionManifestDto.PartitionFile(partition.file, partition.sets, partition.bytes));
+        }
+        PartitionManifestDto manifest = new PartitionManifestDto(partitions.size(), blockSize, sets, files);
+        Path target = directory.resolve(MANIFEST);
+        Path temp = directory.resolve("." + MANIFEST + ".tmp");
+        DurableFiles.replace(target, temp, JsonMappers.mapper().writeValueAsBytes(manifest));
+        completed = true;
+        return target;
+    }
+
+    /**
+     * Stops the partition threads; without a prior {@link #complete()} the partition files
+     * are left as they are and no manifest is written
+     */
+    @Override
+    public void close() throws IOException {
+        if (completed) {
+            return;
+        }
+        for (Partition partition : partitions) {
+            partition.thread.interrupt();
+        }
+        for (Partition partition : partitions) {
+            partition.join();
+        }
+    }
+
+    private void checkNotFailed() throws IOException {
+        Throwable cause = failure.get();
+        if (cause != null) {
+            throw new IOException("Failed to write partitioned output: " + cause.getMessage(), cause);
+        }
+    }
+
+    private final class Partition implements Runnable {
+
+        final String file;
+        final Thread thread;
+        private final FileChannel channel;
+        private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final TaxJsonEncoder encoder = new TaxJsonEncoder();
+        // read once the thread is joined
+        long sets;
+        long bytes;
+
+        Partition(String file) throws IOException {
+            this.file = file;
+            this.channel = FileChannel.open(directory.resolve(file), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.thread = new Thread(this, "partition-writer-" + file);
+            thread.setDaemon(true);
+        }
+
+        void put(Object item) throws IOException {
+            try {
+                while (!queue.offer(item, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    checkNotFailed();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while writing " + file);
+            }
+        }
+
+        void join() throws IOException {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for " + file);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void run() {
+            try (channel) {
+                Object item;
+                while ((item = queue.take()) != END) {
+                    long start = metrics.startTimer();
+                    write(item instanceof byte[]
+                            ? ByteBuffer.wrap((byte[]) item)
+                            : encoder.dense((List<TaxCalculation>) item).newLine().asByteBuffer());
+                    sets++;
+                    metrics.recordLatency(MetricsPort.Stage.WRITE, start);
+                }
+                flush();
+                // on disk before the manifest names the file
+                channel.force(true);
+            } catch (InterruptedException e) {
+                // closed before completion
+            } catch (IOException | RuntimeException e) {
+                metrics.increment(MetricsPort.Counter.ERRORS);
+                failure.compareAndSet(null, new IOException(file + ": " + e.getMessage(), e));
+            }
+        }
+
+        private void write(ByteBuffer encoded) throws IOException {
+            if (encoded.remaining() > buffer.remaining()) {
+                flush();
+                if (encoded.remaining() > buffer.capacity()) {
+                    writeFully(encoded);
+                    return;
+                }
+            }
+            buffer.put(encoded);
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            writeFully(buffer);
+            buffer.clear();
+        }
+
+        private void writeFully(ByteBuffer source) throws IOException {
+            while (source.hasRemaining()) {
+                bytes += channel.write(source);
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.stocktax.infrastructure.adapters;
+
+import com.stocktax.domain.model.TaxCalculation;
+import com.stocktax.domain.ports.MetricsPort;
+import com.stocktax.domain.ports.OutputPort;
+import com.stocktax.infrastructure.jfr.WriteEvent;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Writes one line per set holding only the taxes that are not a plain {@code 0}, e.g.
+ * {@code {"length":2,"taxes":[[1,10000.0000]]}} for {@code [{"tax":0},{"tax":10000.0000}]}.
+ * Buys and untaxed sells, most of a typical set, take no space at all.
+ * {@link SparseOutputExpander} turns the lines back into the dense format, byte for byte.
+ */
+public class SparseJsonOutputAdapter implements OutputPort {
+
+    private final OutputStream output;
+    private final MetricsPort metrics;
+    private final TaxJsonEncoder encoder = new TaxJsonEncoder();
+
+    /**
+     * The stream is owned by the caller, which flushes and closes it
+     */
+    public SparseJsonOutputAdapter(OutputStream output) {
+        this(output, MetricsPort.DISABLED);
+    }
+
+    public SparseJsonOutputAdapter(OutputStream output, MetricsPort metrics) {
+        this.output = output;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void writeTaxCalculations(List<TaxCalculation> taxCalculations) throws IOException {
+        long start = metrics.startTimer();
+        WriteEvent event = new WriteEvent();
+        event.begin();
+        try {
+            encoder.sparse(taxCalculations).newLine().writeTo(output);
+        } catch (IOException e) {
+            metrics.increment(MetricsPort.Counter.ERRORS);
+            throw new IOException("Failed to write output: " + e.getMessage(), e);
+        }
+        metrics.recordLatency(MetricsPort.Stage.WRITE, start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.taxCount = taxCalculations.size();
+            event.bytesWritten = encoder.size();
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.stocktax.infrastructure.adapters;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.stocktax.domain.model.TaxCalculation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Turns the output of {@link SparseJsonOutputAdapter} back into the dense format of
+ * {@link JsonOutputAdapter}, one line per set
+ */
+public class SparseOutputExpander {
+
+    private static final TaxCalculation ZERO = new TaxCalculation(BigDecimal.ZERO);
+
+    private final TaxJsonEncoder encoder = new TaxJsonEncoder();
+
+    /**
+     * Expands every set of the input; returns the number of sets
+     */
+    public long expand(InputStream input, OutputStream output) throws IOException {
+        long sets = 0;
+        try (JsonParser parser = JsonMappers.mapper().getFactory().createParser(input)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                expect(token, JsonToken.START_OBJECT, parser);
+                encoder.dense(readSet(parser)).newLine().writeTo(output);
+                sets++;
+            }
+        }
+        return sets;
+    }
+
+    private static List<TaxCalculation> readSet(JsonParser parser) throws IOException {
+        int length = -1;
+        List<TaxCalculation> taxes = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("length".equals(field)) {
+                length = parser.getIntValue();
+            } else if ("taxes".equals(field)) {
+                if (length < 0) {
+                    throw new IOException("Sparse set lists its taxes before its length at "
+                            + parser.getCurrentLocation());
+                }
+                taxes = new ArrayList<>(Collections.nCopies(length, ZERO));
+                expect(parser.currentToken(), JsonToken.START_ARRAY, parser);
+                while (parser.nextToken() == JsonToken.START_ARRAY) {
+                    parser.nextToken();
+                    int index = parser.getIntValue();
+                    parser.nextToken();
+                    // keeps the scale of the written number
+                    BigDecimal tax = parser.getDecimalValue();
+                    expect(parser.nextToken(), JsonToken.END_ARRAY, parser);
+                    if (index < 0 || index >= length) {
+                        throw new IOException("Tax index " + index + " outside a set of " + length
+                                + " at " + parser.getCurrentLocation());
+                    }
+                    taxes.set(index, new TaxCalculation(tax));
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (taxes == null) {
+            throw new IOException("Sparse set without taxes at " + parser.getCurrentLocation());
+        }
+        return taxes;
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected, JsonParser parser) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Expected " + expected + " but found " + actual + " at "
+                    + parser.getCurrentLocation());
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.stocktax.infrastructure.adapters;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.stocktax.domain.model.Operation;
+import com.stocktax.domain.ports.InputPort;
+import com.stocktax.domain.ports.MetricsPort;
+import com.stocktax.infrastructure.dto.OperationDto;
+import com.stocktax.infrastructure.offheap.OffHeapOperationStore;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads operation sets with a streaming parser, element by element, so a set never has
+ * to exist as one string. Once a set grows past the spill threshold its operations move
+ * to an {@link OffHeapOperationStore}, which the caller closes after use.
+ * <p>
+ * Sets are consecutive top-level JSON arrays; unlike {@link JsonInputAdapter} an empty
+ * line does not end the input, only the end of the stream does.
+ */
+public class SpillingJsonInputAdapter implements InputPort {
+
+    public static final int DEFAULT_SPILL_THRESHOLD = 1_000_000;
+
+    private final ObjectReader operationReader;
+    private final InputStream input;
+    private final int spillThreshold;
+    private final MetricsPort metrics;
+
+    public SpillingJsonInputAdapter(InputStream input, int spillThreshold) {
+        this(input, spillThreshold, MetricsPort.DISABLED);
+    }
+
+    /**
+     * A null input reads stdin
+     */
+    public SpillingJsonInputAdapter(InputStream input, int spillThreshold, MetricsPort metrics) {
+        if (spillThreshold < 0) {
+            throw new IllegalArgumentException("Spill threshold must not be negative");
+        }
+        this.operationReader = JsonMappers.operationReader();
+        this.input = input;
+        this.spillThreshold = spillThreshold;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public List<List<Operation>> readOperations() throws IOException {
+        List<List<Operation>> allOperations = new ArrayList<>();
+        SetReader setReader = new SetReader();
+        List<Operation> operations;
+        while ((operations = setReader.readNext()) != null) {
+            allOperations.add(operations);
+        }
+        return allOperations;
+    }
+
+    @Override
+    public Iterator<List<Operation>> operationSets() throws IOException {
+        return new SetReader();
+    }
+
+    private final class SetReader implements Iterator<List<Operation>> {
+
+        private final JsonParser parser;
+        private List<Operation> next;
+        private boolean ended;
+
+        SetReader() throws IOException {
+            this.parser = operationReader.getFactory().createParser(input == null ? System.in : input);
+        }
+
+        List<Operation> readNext() throws IOException {
+            if (ended) {
+                return null;
+            }
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                ended = true;
+                return null;
+            }
+            long start = metrics.startTimer();
+            if (token != JsonToken.START_ARRAY) {
+                throw parseFailure("expected an array of operations but found " + token);
+            }
+
+            List<Operation> operations = new ArrayList<>();
+            OffHeapOperationStore store = null;
+            long buys = 0;
+            try {
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    if (token == null) {
+                        throw parseFailure("unexpected end of input inside an operation set");
+                    }
+                    OperationDto dto = operationReader.readValue(parser);
+                    if (store == null && operations.size() == spillThreshold) {
+                        store = new OffHeapOperationStore();
+                        store.addAll(operations);
+                        operations = store;
+                    }
+                    Operation operation = new Operation(dto.getOperation(), dto.getUnitCost(), dto.getQuantity());
+                    if (operation.isBuy()) {
+                        buys++;
+                    }
+                    operations.add(operation);
+                }
+            } catch (IOException | RuntimeException e) {
+                if (store != null) {
+                    store.close();
+                }
+                metrics.increment(MetricsPort.Counter.ERRORS);
+                throw parseFailure(e.getMessage(), e);
+            }
+            if (store != null) {
+                store.seal();
+            }
+            if (metrics.isEnabled()) {
+                metrics.recordLatency(MetricsPort.Stage.PARSE, start);
+                metrics.increment(MetricsPort.Counter.OPERATION_SETS);
+                metrics.increment(MetricsPort.Counter.OPERATIONS, operations.size());
+            }
+            JsonInputAdapter.countBuysAndSells(metrics, buys, operations.size());
+            return operations;
+        }
+
+        private IOException parseFailure(String message) {
+            return parseFailure(message, null);
+        }
+
+        private IOException parseFailure(String message, Throwable cause) {
+            return new IOException("Failed to parse operations: " + message, cause);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !ended) {
+                try {
+                    next = readNext();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public List<Operation> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            List<Operation> operations = next;
+            next = null;
+            return operations;
+        }
+    }
+}
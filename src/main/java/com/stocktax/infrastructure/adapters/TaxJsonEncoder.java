@@ -0,0 +1,222 @@
+package com.stocktax.infrastructure.adapters;
+
+import com.stocktax.domain.model.TaxCalculation;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Encodes the taxes of one set straight to bytes, in the dense format of
+ * {@link JsonOutputAdapter} or in the sparse format of {@link SparseJsonOutputAdapter}.
+ * Structural tokens and zero taxes are preformatted constants, and taxes whose unscaled
+ * value fits a long are formatted digit by digit. Either way a tax is written exactly as
+ * {@link BigDecimal#toString()} writes it, which is also how Jackson writes it.
+ * <p>
+ * Not thread-safe; each adapter keeps its own encoder and reuses its buffer across sets.
+ */
+final class TaxJsonEncoder {
+
+    private static final byte[] DENSE_ZERO = bytes("{\"tax\":0}");
+    private static final byte[] DENSE_TAX_START = bytes("{\"tax\":");
+    private static final byte[] SPARSE_START = bytes("{\"length\":");
+    private static final byte[] SPARSE_TAXES = bytes(",\"taxes\":[");
+    private static final byte[] SPARSE_END = bytes("]}");
+
+    /** {@code 0} to {@code 0.000000}; from scale 7 on {@link BigDecimal#toString()} writes {@code 0E-7} */
+    private static final byte[][] ZEROS = new byte[7][];
+
+    static {
+        StringBuilder zero = new StringBuilder("0");
+        for (int scale = 0; scale < ZEROS.length; scale++) {
+            ZEROS[scale] = bytes(zero.toString());
+            zero.append(scale == 0 ? ".0" : "0");
+        }
+    }
+
+    private final byte[] digits = new byte[20];
+    private byte[] buffer = new byte[8192];
+    private int size;
+
+    /**
+     * Whether the sparse format leaves the tax out: only the plain {@code 0} of buys and
+     * untaxed sells is, zeros with a scale are kept so expansion restores them
+     */
+    static boolean isImplicit(BigDecimal tax) {
+        return tax.signum() == 0 && tax.scale() == 0;
+    }
+
+    /**
+     * {@code [{"tax":0},{"tax":10000.0000}]}
+     */
+    TaxJsonEncoder dense(List<TaxCalculation> taxCalculations) {
+        size = 0;
+        write((byte) '[');
+        for (int i = 0; i < taxCalculations.size(); i++) {
+            if (i > 0) {
+                write((byte) ',');
+            }
+            BigDecimal tax = taxCalculations.get(i).getTax();
+            if (isImplicit(tax)) {
+                write(DENSE_ZERO);
+            } else {
+                write(DENSE_TAX_START);
+                writeDecimal(tax);
+                write((byte) '}');
+            }
+        }
+        write((byte) ']');
+        return this;
+    }
+
+    /**
+     * {@code {"length":2,"taxes":[[1,10000.0000]]}}: the set length and an index and tax
+     * pair for every tax that is not a plain {@code 0}
+     */
+    TaxJsonEncoder sparse(List<TaxCalculation> taxCalculations) {
+        size = 0;
+        write(SPARSE_START);
+        writeLong(taxCalculations.size());
+        write(SPARSE_TAXES);
+        boolean first = true;
+        for (int i = 0; i < taxCalculations.size(); i++) {
+            BigDecimal tax = taxCalculations.get(i).getTax();
+            if (isImplicit(tax)) {
+                continue;
+            }
+            if (!first) {
+                write((byte) ',');
+            }
+            first = false;
+            write((byte) '[');
+            writeLong(i);
+            write((byte) ',');
+            writeDecimal(tax);
+            write((byte) ']');
+        }
+        write(SPARSE_END);
+        return this;
+    }
+
+    TaxJsonEncoder newLine() {
+        write((byte) '\n');
+        return this;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void writeTo(OutputStream output) throws IOException {
+        output.write(buffer, 0, size);
+    }
+
+    /**
+     * The encoded bytes, valid until the next set is encoded
+     */
+    ByteBuffer asByteBuffer() {
+        return ByteBuffer.wrap(buffer, 0, size);
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer, 0, size, StandardCharsets.UTF_8);
+    }
+
+    private void writeDecimal(BigDecimal value) {
+        int scale = value.scale();
+        if (value.signum() == 0 && scale >= 0 && scale < ZEROS.length) {
+            write(ZEROS[scale]);
+            return;
+        }
+        // toString switches to exponent notation for negative scales and tiny values
+        if (scale < 0 || value.precision() - scale - 1 < -6 || value.unscaledValue().bitLength() > 62) {
+            write(bytes(value.toString()));
+            return;
+        }
+        long unscaled = value.unscaledValue().longValue();
+        if (unscaled < 0) {
+            write((byte) '-');
+            unscaled = -unscaled;
+        }
+        int count = toDigits(unscaled);
+        int integerDigits = count - scale;
+        if (integerDigits <= 0) {
+            write((byte) '0');
+            write((byte) '.');
+            for (int i = integerDigits; i < 0; i++) {
+                write((byte) '0');
+            }
+            writeDigits(0, count);
+        } else {
+            writeDigits(0, integerDigits);
+            if (scale > 0) {
+                write((byte) '.');
+                writeDigits(integerDigits, count);
+            }
+        }
+    }
+
+    private void writeLong(long value) {
+        if (value < 0) {
+            write((byte) '-');
+            value = -value;
+        }
+        writeDigits(0, toDigits(value));
+    }
+
+    /**
+     * Decimal digits of a non-negative value into {@link #digits}, returning their count
+     */
+    private int toDigits(long value) {
+        int count = 0;
+        do {
+            digits[count++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        // reverse into reading order
+        for (int i = 0, j = count - 1; i < j; i++, j--) {
+            byte digit = digits[i];
+            digits[i] = digits[j];
+            digits[j] = digit;
+        }
+        return count;
+    }
+
+    private void writeDigits(int from, int to) {
+        ensureCapacity(to - from);
+        System.arraycopy(digits, from, buffer, size, to - from);
+        size += to - from;
+    }
+
+    private void write(byte b) {
+        ensureCapacity(1);
+        buffer[size++] = b;
+    }
+
+    private void write(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > buffer.length) {
+            byte[] grown = new byte[Math.max(buffer.length * 2, size + extra)];
+            System.arraycopy(buffer, 0, grown, 0, size);
+            buffer = grown;
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
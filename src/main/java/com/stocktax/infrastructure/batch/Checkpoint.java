@@ -0,0 +1,132 @@
+package com.stocktax.infrastructure.batch;
+
+import com.stocktax.infrastructure.adapters.DurableFiles;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.Properties;
+
+/**
+ * Progress of a batch run: which input it reads, how far that input has been consumed
+ * and how much output was durably written for it
+ */
+public class Checkpoint {
+
+    public static final Checkpoint START = new Checkpoint(null, 0L, 0L, 0L);
+
+    private static final String INPUT_PATH = "input-path";
+    private static final String INPUT_SIZE = "input-size";
+    private static final String INPUT_MODIFIED = "input-modified";
+    private static final String INPUT_OFFSET = "input-offset";
+    private static final String OUTPUT_LINES = "output-lines";
+    private static final String OUTPUT_BYTES = "output-bytes";
+
+    private final InputIdentity input;
+    private final long inputOffset;
+    private final long outputLines;
+    private final long outputBytes;
+
+    /**
+     * The input is null only for {@link #START}, which has consumed nothing
+     */
+    public Checkpoint(InputIdentity input, long inputOffset, long outputLines, long outputBytes) {
+        this.input = input;
+        this.inputOffset = inputOffset;
+        this.outputLines = outputLines;
+        this.outputBytes = outputBytes;
+    }
+
+    public InputIdentity getInput() {
+        return input;
+    }
+
+    public long getInputOffset() {
+        return inputOffset;
+    }
+
+    public long getOutputLines() {
+        return outputLines;
+    }
+
+    public long getOutputBytes() {
+        return outputBytes;
+    }
+
+    /**
+     * Loads a checkpoint, or returns {@link #START} when none was written yet
+     */
+    public static Checkpoint load(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return START;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        try {
+            InputIdentity input = properties.getProperty(INPUT_PATH) == null ? null : new InputIdentity(
+                    properties.getProperty(INPUT_PATH),
+                    Long.parseLong(properties.getProperty(INPUT_SIZE)),
+                    Long.parseLong(properties.getProperty(INPUT_MODIFIED)));
+            return new Checkpoint(input,
+                    Long.parseLong(properties.getProperty(INPUT_OFFSET)),
+                    Long.parseLong(properties.getProperty(OUTPUT_LINES)),
+                    Long.parseLong(properties.getProperty(OUTPUT_BYTES)));
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt checkpoint file " + file, e);
+        }
+    }
+
+    /**
+     * Writes the checkpoint to a temporary sibling, fsyncs it, renames it over the previous
+     * one and fsyncs the directory, so a crash leaves either the old or the new checkpoint
+     * in place and a saved checkpoint cannot be rolled back to the old one
+     */
+    public void save(Path file) throws IOException {
+        Properties properties = new Properties();
+        if (input != null) {
+            properties.setProperty(INPUT_PATH, input.getPath());
+            properties.setProperty(INPUT_SIZE, Long.toString(input.getSize()));
+            properties.setProperty(INPUT_MODIFIED, Long.toString(input.getLastModified()));
+        }
+        properties.setProperty(INPUT_OFFSET, Long.toString(inputOffset));
+        properties.setProperty(OUTPUT_LINES, Long.toString(outputLines));
+        properties.setProperty(OUTPUT_BYTES, Long.toString(outputBytes));
+        StringWriter content = new StringWriter();
+        properties.store(content, null);
+
+        DurableFiles.replace(file, file.resolveSibling(file.getFileName() + ".tmp"),
+                content.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Checkpoint that = (Checkpoint) o;
+        return Objects.equals(input, that.input) &&
+                inputOffset == that.inputOffset &&
+                outputLines == that.outputLines &&
+                outputBytes == that.outputBytes;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(input, inputOffset, outputLines, outputBytes);
+    }
+
+    @Override
+    public String toString() {
+        return "Checkpoint{" +
+                "input=" + input +
+                ", inputOffset=" + inputOffset +
+                ", outputLines=" + outputLines +
+                ", outputBytes=" + outputBytes +
+                '}';
+    }
+}
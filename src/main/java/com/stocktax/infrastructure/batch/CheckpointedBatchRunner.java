@@ -0,0 +1,230 @@
+package com.stocktax.infrastructure.batch;
+
+import com.stocktax.application.TaxCalculationService;
+import com.stocktax.domain.model.Operation;
+import com.stocktax.domain.model.TaxCalculation;
+import com.stocktax.domain.ports.MetricsPort;
+import com.stocktax.infrastructure.adapters.JsonArrayScanner;
+import com.stocktax.infrastructure.adapters.JsonInputAdapter;
+import com.stocktax.infrastructure.adapters.JsonOutputAdapter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Batch run from an input file to an output file that periodically records its progress,
+ * so a restarted run continues from the last checkpoint instead of from the beginning.
+ * A checkpoint is only resumed against the input it was written for, unchanged. As on
+ * stdin, an empty line ends the input.
+ */
+public class CheckpointedBatchRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckpointedBatchRunner.class);
+
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 1000;
+
+    private final TaxCalculationService taxCalculationService;
+    private final JsonInputAdapter parser;
+    private final JsonOutputAdapter serializer;
+    private final Path inputFile;
+    private final Path outputFile;
+    private final Path checkpointFile;
+    private final int checkpointInterval;
+
+    public CheckpointedBatchRunner(TaxCalculationService taxCalculationService, Path inputFile,
+            Path outputFile, Path checkpointFile, int checkpointInterval) {
+        this(taxCalculationService, inputFile, outputFile, checkpointFile, checkpointInterval, MetricsPort.DISABLED);
+    }
+
+    public CheckpointedBatchRunner(TaxCalculationService taxCalculationService, Path inputFile,
+            Path outputFile, Path checkpointFile, int checkpointInterval, MetricsPort metrics) {
+        if (checkpointInterval <= 0) {
+            throw new IllegalArgumentException("Checkpoint interval must be positive");
+        }
+        this.taxCalculationService = taxCalculationService;
+        this.parser = new JsonInputAdapter(null, metrics);
+        this.serializer = new JsonOutputAdapter();
+        this.inputFile = inputFile;
+        this.outputFile = outputFile;
+        this.checkpointFile = checkpointFile;
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Processes the input from the last checkpoint on and returns the final checkpoint
+     */
+    public Checkpoint run() throws IOException {
+        Checkpoint checkpoint = Checkpoint.load(checkpointFile);
+        InputIdentity identity = InputIdentity.of(inputFile);
+        if (checkpoint.getInputOffset() > 0) {
+            if (!identity.equals(checkpoint.getInput())) {
+                throw new IOException("Checkpoint " + checkpointFile + " was written for input "
+                        + checkpoint.getInput() + ", not " + identity + "; refusing to resume");
+            }
+            logger.info("Resuming from {}", checkpoint);
+        }
+
+        try (FileChannel input = FileChannel.open(inputFile, StandardOpenOption.READ);
+             FileChannel output = FileChannel.open(outputFile, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE)) {
+            if (output.size() < checkpoint.getOutputBytes()) {
+                throw new IOException("Output file " + outputFile + " is shorter than its checkpoint "
+                        + checkpoint + "; refusing to resume");
+            }
+            // drop whatever was written after the last durable checkpoint
+            output.truncate(checkpoint.getOutputBytes());
+            output.position(checkpoint.getOutputBytes());
+            input.position(checkpoint.getInputOffset());
+
+            return process(new LineReader(Channels.newInputStream(input)), output, identity, checkpoint);
+        }
+    }
+
+    private Checkpoint process(LineReader in, FileChannel output, InputIdentity identity, Checkpoint start)
+            throws IOException {
+        long inputOffset = start.getInputOffset();
+        long outputLines = start.getOutputLines();
+        long outputBytes = start.getOutputBytes();
+        long consumed = inputOffset;
+        int setsSinceCheckpoint = 0;
+
+        StringBuilder jsonBuffer = new StringBuilder();
+        JsonArrayScanner scanner = new JsonArrayScanner();
+        String line;
+        while ((line = in.readLine()) != null && !line.trim().isEmpty()) {
+            consumed += in.getLineLength();
+            jsonBuffer.append(line);
+            scanner.feed(line);
+            if (!scanner.isBalanced()) {
+                continue;
+            }
+
+            List<Operation> operations;
+            try {
+                operations = parser.parseOperations(jsonBuffer.toString());
+            } catch (IOException e) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("JSON not complete yet, continuing to read lines");
+                }
+                continue;
+            }
+            jsonBuffer.setLength(0);
+            scanner.reset();
+
+            List<TaxCalculation> taxCalculations = taxCalculationService.calculateTaxes(operations);
+            byte[] json = (serializer.toJson(taxCalculations) + "\n").getBytes(StandardCharsets.UTF_8);
+            writeFully(output, json);
+
+            inputOffset = consumed;
+            outputLines++;
+            outputBytes += json.length;
+            if (++setsSinceCheckpoint >= checkpointInterval) {
+                saveCheckpoint(output, new Checkpoint(identity, inputOffset, outputLines, outputBytes));
+                setsSinceCheckpoint = 0;
+            }
+        }
+
+        if (jsonBuffer.length() > 0) {
+            // surfaces the parse error of the incomplete trailing set
+            parser.parseOperations(jsonBuffer.toString());
+        }
+
+        Checkpoint last = new Checkpoint(identity, inputOffset, outputLines, outputBytes);
+        saveCheckpoint(output, last);
+        logger.info("Batch run finished at {}", last);
+        return last;
+    }
+
+    /**
+     * Output must be on disk before the checkpoint that covers it
+     */
+    private void saveCheckpoint(FileChannel output, Checkpoint checkpoint) throws IOException {
+        output.force(false);
+        checkpoint.save(checkpointFile);
+    }
+
+    private static void writeFully(FileChannel channel, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Reads lines from a block buffer and reports the raw length of each, including its
+     * terminator, so the caller can track the exact input offset
+     */
+    private static final class LineReader {
+
+        private static final int BUFFER_SIZE = 1 << 16;
+
+        private final InputStream in;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int position;
+        private int limit;
+        private byte[] line = new byte[256];
+        private int lineLength;
+
+        LineReader(InputStream in) {
+            this.in = in;
+        }
+
+        /**
+         * The next line without its terminator, or null at the end of the input
+         */
+        String readLine() throws IOException {
+            lineLength = 0;
+            while (true) {
+                if (position == limit) {
+                    limit = in.read(buffer);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        break;
+                    }
+                }
+                int end = position;
+                while (end < limit && buffer[end] != '\n') {
+                    end++;
+                }
+                boolean terminated = end < limit;
+                append(position, terminated ? end + 1 : end);
+                position = terminated ? end + 1 : end;
+                if (terminated) {
+                    break;
+                }
+            }
+            if (lineLength == 0) {
+                return null;
+            }
+            return new String(line, 0, lineLength, StandardCharsets.UTF_8).stripTrailing();
+        }
+
+        /**
+         * Bytes of the line last returned, including its terminator
+         */
+        int getLineLength() {
+            return lineLength;
+        }
+
+        private void append(int from, int to) {
+            int count = to - from;
+            if (lineLength + count > line.length) {
+                line = Arrays.copyOf(line, Math.max(line.length * 2, lineLength + count));
+            }
+            System.arraycopy(buffer, from, line, lineLength, count);
+            lineLength += count;
+        }
+    }
+}
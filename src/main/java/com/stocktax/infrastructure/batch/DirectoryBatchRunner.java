@@ -0,0 +1,122 @@
+package com.stocktax.infrastructure.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Processes every file of an input directory concurrently, writing one output file
+ * with the same name per input
+ */
+public class DirectoryBatchRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(DirectoryBatchRunner.class);
+
+    private final FileProcessor fileProcessor;
+    private final Path inputDirectory;
+    private final Path outputDirectory;
+    private final int workers;
+
+    public DirectoryBatchRunner(FileProcessor fileProcessor, Path inputDirectory, Path outputDirectory,
+            int workers) {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("Number of workers must be positive");
+        }
+        this.fileProcessor = fileProcessor;
+        this.inputDirectory = inputDirectory;
+        this.outputDirectory = outputDirectory;
+        this.workers = workers;
+    }
+
+    /**
+     * Processes all input files and returns how many there were. Files are submitted
+     * largest first, so the pool greedily balances work and a single huge file cannot
+     * end up alone at the tail of the run.
+     */
+    public int run() throws IOException {
+        List<Path> files = listInputFiles();
+        if (files.isEmpty()) {
+            logger.warn("No input files found in {}", inputDirectory);
+            return 0;
+        }
+        Files.createDirectories(outputDirectory);
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(workers, files.size()), workerThreads());
+        Map<Path, Future<?>> tasks = new LinkedHashMap<>();
+        try {
+            for (Path file : files) {
+                Path output = outputDirectory.resolve(file.getFileName());
+                tasks.put(file, pool.submit(() -> {
+                    fileProcessor.process(file, output);
+                    return null;
+                }));
+            }
+            int failed = awaitAll(tasks);
+            if (failed > 0) {
+                throw new IOException(failed + " of " + files.size() + " input files failed");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        logger.info("Processed {} files from {}", files.size(), inputDirectory);
+        return files.size();
+    }
+
+    private int awaitAll(Map<Path, Future<?>> tasks) throws IOException {
+        int failed = 0;
+        for (Map.Entry<Path, Future<?>> task : tasks.entrySet()) {
+            try {
+                task.getValue().get();
+            } catch (ExecutionException e) {
+                logger.error("Failed to process {}", task.getKey(), e.getCause());
+                failed++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while processing " + inputDirectory, e);
+            }
+        }
+        return failed;
+    }
+
+    private List<Path> listInputFiles() throws IOException {
+        Map<Path, Long> sizes = new HashMap<>();
+        try (Stream<Path> entries = Files.list(inputDirectory)) {
+            for (Path entry : entries.collect(Collectors.toList())) {
+                // hidden files are temporaries of in-flight writers
+                if (Files.isRegularFile(entry) && !entry.getFileName().toString().startsWith(".")) {
+                    sizes.put(entry, Files.size(entry));
+                }
+            }
+        }
+        List<Path> files = new ArrayList<>(sizes.keySet());
+        files.sort(Comparator.comparing((Path file) -> sizes.get(file)).reversed()
+                .thenComparing(Comparator.naturalOrder()));
+        return files;
+    }
+
+    private static ThreadFactory workerThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "batch-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
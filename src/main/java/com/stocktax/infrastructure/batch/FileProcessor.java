@@ -0,0 +1,51 @@
+package com.stocktax.infrastructure.batch;
+
+import com.stocktax.application.Application;
+import com.stocktax.application.TaxCalculationService;
+import com.stocktax.domain.ports.MetricsPort;
+import com.stocktax.infrastructure.adapters.JsonInputAdapter;
+import com.stocktax.infrastructure.adapters.JsonOutputAdapter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Runs one input file through the shared service with its own pair of adapters
+ */
+public class FileProcessor {
+
+    private final TaxCalculationService taxCalculationService;
+    private final MetricsPort metrics;
+
+    public FileProcessor(TaxCalculationService taxCalculationService) {
+        this(taxCalculationService, MetricsPort.DISABLED);
+    }
+
+    public FileProcessor(TaxCalculationService taxCalculationService, MetricsPort metrics) {
+        this.taxCalculationService = taxCalculationService;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Output is written to a hidden temporary sibling and renamed into place once complete,
+     * so readers of the output directory never see a partial file
+     */
+    public void process(Path input, Path output) throws IOException {
+        Path temp = output.resolveSibling("." + output.getFileName() + ".tmp");
+        try (InputStream in = Files.newInputStream(input);
+             Writer out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            Application application = new Application(taxCalculationService,
+                    new JsonInputAdapter(in, metrics), new JsonOutputAdapter(out, metrics));
+            application.run();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,60 @@
+package com.stocktax.infrastructure.batch;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * The input file a checkpoint was written for: its path, size and modification time. A
+ * checkpoint is only resumed against the same file, unchanged.
+ */
+public class InputIdentity {
+
+    private final String path;
+    private final long size;
+    private final long lastModified;
+
+    public InputIdentity(String path, long size, long lastModified) {
+        this.path = path;
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+    public static InputIdentity of(Path file) throws IOException {
+        return new InputIdentity(file.toAbsolutePath().normalize().toString(), Files.size(file),
+                Files.getLastModifiedTime(file).toMillis());
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        InputIdentity that = (InputIdentity) o;
+        return size == that.size &&
+                lastModified == that.lastModified &&
+                path.equals(that.path);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(path, size, lastModified);
+    }
+
+    @Override
+    public String toString() {
+        return path + " (" + size + " bytes, modified " + lastModified + ")";
+    }
+}
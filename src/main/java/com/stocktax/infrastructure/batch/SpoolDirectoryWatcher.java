@@ -0,0 +1,174 @@
+package com.stocktax.infrastructure.batch;
+
+import com.stocktax.infrastructure.logging.RateLimitedLogger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Long-lived process that picks up input files dropped into a spool directory and
+ * writes their results to an outbox.
+ * <p>
+ * Producers hand files over by renaming: they write under a hidden name (leading dot)
+ * or with a {@code .part} suffix and rename to the final name once complete. Only final
+ * names are picked up. Processed inputs are moved to {@code processed/}, and inputs that
+ * failed to {@code failed/}, both inside the spool directory.
+ */
+public class SpoolDirectoryWatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpoolDirectoryWatcher.class);
+    private static final RateLimitedLogger fileErrors = new RateLimitedLogger(logger, 10, 1, TimeUnit.MINUTES);
+
+    private static final String PARTIAL_SUFFIX = ".part";
+
+    private final FileProcessor fileProcessor;
+    private final Path spoolDirectory;
+    private final Path outboxDirectory;
+    private final Path processedDirectory;
+    private final Path failedDirectory;
+    private final int workers;
+    private final Set<Path> inFlight = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger processedCount = new AtomicInteger();
+
+    private volatile WatchService watchService;
+    private volatile boolean stopped;
+
+    public SpoolDirectoryWatcher(FileProcessor fileProcessor, Path spoolDirectory, Path outboxDirectory,
+            int workers) {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("Number of workers must be positive");
+        }
+        this.fileProcessor = fileProcessor;
+        this.spoolDirectory = spoolDirectory;
+        this.outboxDirectory = outboxDirectory;
+        this.processedDirectory = spoolDirectory.resolve("processed");
+        this.failedDirectory = spoolDirectory.resolve("failed");
+        this.workers = workers;
+    }
+
+    /**
+     * Watches the spool directory until {@link #stop()} is called or the thread is interrupted
+     */
+    public void run() throws IOException {
+        Files.createDirectories(outboxDirectory);
+        Files.createDirectories(processedDirectory);
+        Files.createDirectories(failedDirectory);
+
+        ExecutorService pool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "spool-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (WatchService service = FileSystems.getDefault().newWatchService()) {
+            watchService = service;
+            // a rename into the directory is reported as a create of the new name
+            spoolDirectory.register(service, StandardWatchEventKinds.ENTRY_CREATE);
+            logger.info("Watching {} for input files", spoolDirectory);
+
+            // files that arrived while we were not running
+            scan(pool);
+            while (!stopped) {
+                WatchKey key = service.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        scan(pool);
+                    } else {
+                        submit(pool, spoolDirectory.resolve((Path) event.context()));
+                    }
+                }
+                if (!key.reset()) {
+                    throw new IOException("Spool directory " + spoolDirectory + " is no longer accessible");
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            logger.debug("Watch service closed, stopping");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdown();
+            awaitTermination(pool);
+        }
+    }
+
+    public void stop() throws IOException {
+        stopped = true;
+        WatchService service = watchService;
+        if (service != null) {
+            service.close();
+        }
+    }
+
+    public int getProcessedCount() {
+        return processedCount.get();
+    }
+
+    private void scan(ExecutorService pool) throws IOException {
+        List<Path> entries;
+        try (Stream<Path> files = Files.list(spoolDirectory)) {
+            entries = files.sorted().collect(Collectors.toList());
+        }
+        for (Path entry : entries) {
+            submit(pool, entry);
+        }
+    }
+
+    private void submit(ExecutorService pool, Path file) {
+        String name = file.getFileName().toString();
+        if (name.startsWith(".") || name.endsWith(PARTIAL_SUFFIX) || !Files.isRegularFile(file)) {
+            return;
+        }
+        // a file can be reported by both the initial scan and a watch event
+        if (inFlight.add(file)) {
+            pool.execute(() -> process(file));
+        }
+    }
+
+    private void process(Path file) {
+        Path name = file.getFileName();
+        try {
+            fileProcessor.process(file, outboxDirectory.resolve(name));
+            Files.move(file, processedDirectory.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+            processedCount.incrementAndGet();
+            logger.debug("Processed spool file {}", name);
+        } catch (Exception e) {
+            fileErrors.error("Failed to process spool file {}", name, e);
+            try {
+                Files.move(file, failedDirectory.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException moveFailure) {
+                logger.error("Could not move {} to {}", name, failedDirectory, moveFailure);
+            }
+        } finally {
+            inFlight.remove(file);
+        }
+    }
+
+    private static void awaitTermination(ExecutorService pool) {
+        try {
+            if (!pool.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.warn("Spool workers did not finish in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,18 +1,134 @@
 package com.stocktax.infrastructure.config;
 
 import com.stocktax.application.TaxCalculationService;
+import com.stocktax.application.pipeline.AdmissionController;
+import com.stocktax.application.pipeline.PipelineRunner;
+import com.stocktax.application.pipeline.WaitStrategy;
+import com.stocktax.application.reactive.OutputPortSubscriber;
+import com.stocktax.application.reactive.ReactiveRunner;
 import com.stocktax.domain.TaxCalculator;
+import com.stocktax.domain.TaxEngine;
+import com.stocktax.domain.engine.AutoTaxEngine;
 import com.stocktax.domain.ports.InputPort;
+import com.stocktax.domain.ports.MetricsPort;
 import com.stocktax.domain.ports.OutputPort;
+import com.stocktax.infrastructure.adapters.DoubleBufferedOutputAdapter;
 import com.stocktax.infrastructure.adapters.JsonInputAdapter;
 import com.stocktax.infrastructure.adapters.JsonOutputAdapter;
+import com.stocktax.infrastructure.adapters.ParallelFileInputAdapter;
+import com.stocktax.infrastructure.adapters.PartitionedOutputAdapter;
+import com.stocktax.infrastructure.adapters.SparseJsonOutputAdapter;
+import com.stocktax.infrastructure.adapters.SparseOutputExpander;
+import com.stocktax.infrastructure.adapters.SpillingJsonInputAdapter;
+import com.stocktax.infrastructure.batch.CheckpointedBatchRunner;
+import com.stocktax.infrastructure.batch.DirectoryBatchRunner;
+import com.stocktax.infrastructure.batch.FileProcessor;
+import com.stocktax.infrastructure.batch.SpoolDirectoryWatcher;
+import com.stocktax.infrastructure.dto.PriceInterner;
+import com.stocktax.infrastructure.metrics.MetricsJmxPublisher;
+import com.stocktax.infrastructure.metrics.MetricsRegistry;
+import com.stocktax.infrastructure.offheap.OffHeapResultStore;
+import com.stocktax.infrastructure.offheap.OffHeapSpill;
+import com.stocktax.infrastructure.streaming.StreamingTaxRunner;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.stream.Collectors;
+import javax.management.JMException;
 
 
 public class ApplicationConfig {
+
+	public static final String ENGINE_PROPERTY = "stocktax.engine";
+
+	/** Same as {@code --fast-start}: stdin mode writes results to stdout without the logger */
+	public static final String FAST_START_PROPERTY = "stocktax.fast-start";
+
+	private static final long MEGABYTE = 1L << 20;
+
+	private static volatile MetricsPort metrics = MetricsPort.DISABLED;
  
+	/**
+	 * Switches on metrics for everything created afterwards: publishes them over JMX and
+	 * prints a report to stderr when the JVM exits
+	 */
+	public static MetricsRegistry enableMetrics() {
+		MetricsRegistry registry = new MetricsRegistry();
+		try {
+			MetricsJmxPublisher.register(registry);
+		} catch (JMException e) {
+			Log.logger.warn("Could not publish metrics over JMX", e);
+		}
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> System.err.print(registry.report()),
+				"metrics-report"));
+		metrics = registry;
+		PriceInterner.shared().setMetrics(registry);
+		return registry;
+	}
+
+	public static MetricsPort getMetrics() {
+		return metrics;
+	}
+
 	public static TaxCalculationService createTaxCalculationService() {
-		TaxCalculator taxCalculator = new TaxCalculator();
-		return new TaxCalculationService(taxCalculator);
+		return createTaxCalculationService(System.getProperty(ENGINE_PROPERTY, TaxCalculator.NAME));
+	}
+
+	/**
+	 * {@code --engine} wins over the {@code stocktax.engine} system property
+	 */
+	public static TaxCalculationService createTaxCalculationService(CommandLineOptions options) {
+		return createTaxCalculationService(engineName(options));
+	}
+
+	private static String engineName(CommandLineOptions options) {
+		return options.get("engine", System.getProperty(ENGINE_PROPERTY, TaxCalculator.NAME));
+	}
+
+	/**
+	 * Sets spilled off-heap by the input adapter or the admission controller get their
+	 * results off-heap as well
+	 */
+	public static TaxCalculationService createTaxCalculationService(String engineName) {
+		return new TaxCalculationService(createTaxEngine(engineName), metrics, new OffHeapResultStore());
+	}
+
+	/**
+	 * The registered engine with the given name, or for {@code auto} an engine that picks
+	 * the fastest registered engine per set
+	 */
+	public static TaxEngine createTaxEngine(String name) {
+		List<TaxEngine> engines = new ArrayList<>();
+		ServiceLoader.load(TaxEngine.class).forEach(engines::add);
+		if (AutoTaxEngine.NAME.equals(name)) {
+			Log.logger.debug("Using auto engine over {}", engines.size());
+			return new AutoTaxEngine(engines);
+		}
+		for (TaxEngine engine : engines) {
+			if (engine.getName().equals(name)) {
+				return engine;
+			}
+		}
+		String available = engines.stream().map(TaxEngine::getName).collect(Collectors.joining(", "));
+		throw new IllegalArgumentException("Unknown engine: " + name + " (available: " + available + ", "
+				+ AutoTaxEngine.NAME + ")");
 	}
 
 	public static InputPort createInputAdapter() {
@@ -26,10 +142,189 @@ public class ApplicationConfig {
 	}
 
 	public static InputPort createJsonInputAdapter() {
-		return new JsonInputAdapter();
+		return new JsonInputAdapter(null, metrics);
 	}
 
 	public static OutputPort createJsonOutputAdapter() {
-		return new JsonOutputAdapter();
+		return new JsonOutputAdapter(null, metrics);
+	}
+
+	public static OutputPort createJsonOutputAdapter(Writer writer) {
+		return new JsonOutputAdapter(writer, metrics);
+	}
+
+	/**
+	 * One summary line per set; the adapter also writes taxes, so it serves as both ports
+	 */
+	public static JsonOutputAdapter createSummaryOutputAdapter(Writer writer) {
+		return new JsonOutputAdapter(writer, metrics);
+	}
+
+	/**
+	 * Stdin reader that moves sets above {@code --spill-threshold} operations off-heap
+	 */
+	public static InputPort createSpillingInputAdapter(CommandLineOptions options) {
+		int threshold = options.getInt("spill-threshold", SpillingJsonInputAdapter.DEFAULT_SPILL_THRESHOLD);
+		return new SpillingJsonInputAdapter(null, threshold, metrics);
+	}
+
+	/**
+	 * Buffered writer on stdout, bypassing the logger; the caller flushes it
+	 */
+	public static Writer createStdoutWriter() {
+		return new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+	}
+
+	/**
+	 * Buffered stream on stdout for the byte-oriented writers; the caller flushes it
+	 */
+	public static OutputStream createStdoutStream() {
+		return new BufferedOutputStream(System.out, 1 << 16);
+	}
+
+	/**
+	 * Channel on the stdout file descriptor, for writers that bypass {@code System.out};
+	 * the caller must not close it
+	 */
+	public static FileChannel createStdoutChannel() {
+		return new FileOutputStream(FileDescriptor.out).getChannel();
+	}
+
+	/**
+	 * Double-buffered writer on the given channel, with {@code --output-buffer-size} MB per buffer;
+	 * the caller closes the adapter to write what is left
+	 */
+	public static DoubleBufferedOutputAdapter createDoubleBufferedOutputAdapter(GatheringByteChannel channel,
+			CommandLineOptions options) {
+		int bufferSize = options.has("output-buffer-size")
+				? Math.toIntExact(options.getInt("output-buffer-size", 0) * MEGABYTE)
+				: DoubleBufferedOutputAdapter.DEFAULT_BUFFER_SIZE;
+		return new DoubleBufferedOutputAdapter(channel, bufferSize, metrics);
+	}
+
+	public static OutputPort createSparseOutputAdapter(OutputStream output) {
+		return new SparseJsonOutputAdapter(output, metrics);
+	}
+
+	/**
+	 * {@code --partitions} files, one writer thread each, in {@code --output-dir}; the caller
+	 * completes the adapter to write the manifest
+	 */
+	public static PartitionedOutputAdapter createPartitionedOutputAdapter(CommandLineOptions options)
+			throws IOException {
+		int partitions = options.getInt("partitions", Runtime.getRuntime().availableProcessors());
+		int blockSize = options.getInt("block-size", PartitionedOutputAdapter.DEFAULT_BLOCK_SIZE);
+		return new PartitionedOutputAdapter(options.getPath("output-dir"), partitions, blockSize, metrics);
+	}
+
+	public static SparseOutputExpander createSparseOutputExpander() {
+		return new SparseOutputExpander();
+	}
+
+	public static CheckpointedBatchRunner createCheckpointedBatchRunner(TaxCalculationService taxCalculationService,
+			CommandLineOptions options) {
+		Path output = options.getPath("output");
+		// by default the checkpoint lives next to the output it describes
+		Path checkpoint = Paths.get(options.get("checkpoint", output + ".checkpoint"));
+		int interval = options.getInt("checkpoint-interval", CheckpointedBatchRunner.DEFAULT_CHECKPOINT_INTERVAL);
+		return new CheckpointedBatchRunner(taxCalculationService, options.getPath("input"), output,
+				checkpoint, interval, metrics);
+	}
+
+	public static DirectoryBatchRunner createDirectoryBatchRunner(TaxCalculationService taxCalculationService,
+			CommandLineOptions options) {
+		int workers = options.getInt("workers", Runtime.getRuntime().availableProcessors());
+		return new DirectoryBatchRunner(new FileProcessor(taxCalculationService, metrics), options.getPath("input-dir"),
+				options.getPath("output-dir"), workers);
+	}
+
+	public static SpoolDirectoryWatcher createSpoolDirectoryWatcher(TaxCalculationService taxCalculationService,
+			CommandLineOptions options) {
+		int workers = options.getInt("workers", Runtime.getRuntime().availableProcessors());
+		return new SpoolDirectoryWatcher(new FileProcessor(taxCalculationService, metrics), options.getPath("spool"),
+				options.getPath("outbox"), workers);
+	}
+
+	public static PipelineRunner createPipelineRunner(TaxCalculationService taxCalculationService,
+			CommandLineOptions options) {
+		return createPipelineRunner(taxCalculationService, createOutputAdapter(), options);
+	}
+
+	/**
+	 * Pipeline from stdin to the given output
+	 */
+	public static PipelineRunner createPipelineRunner(TaxCalculationService taxCalculationService,
+			OutputPort output, CommandLineOptions options) {
+		// parser and writer take a core each
+		int workers = options.getInt("workers", Math.max(1, Runtime.getRuntime().availableProcessors() - 2));
+		int bufferSize = options.getInt("buffer-size", PipelineRunner.DEFAULT_BUFFER_SIZE);
+		WaitStrategy waitStrategy = WaitStrategy.fromName(options.get("wait-strategy", "yield"));
+		return new PipelineRunner(taxCalculationService, createInputAdapter(), output, workers,
+				bufferSize, waitStrategy, createAdmissionController(options));
+	}
+
+	/**
+	 * Pipeline over one input file parsed on {@code --parse-threads} threads, writing to
+	 * the given writer; the caller flushes it. The ranges parsed ahead of admission take
+	 * about the memory budget's worth of input.
+	 */
+	public static PipelineRunner createParallelFileRunner(TaxCalculationService taxCalculationService,
+			Writer output, CommandLineOptions options) {
+		int cores = Runtime.getRuntime().availableProcessors();
+		int parseThreads = options.getInt("parse-threads", Math.max(1, cores - 1));
+		int workers = options.getInt("workers", Math.max(1, cores / 4));
+		int bufferSize = options.getInt("buffer-size", PipelineRunner.DEFAULT_BUFFER_SIZE);
+		WaitStrategy waitStrategy = WaitStrategy.fromName(options.get("wait-strategy", "park"));
+		InputPort input = new ParallelFileInputAdapter(options.getPath("input"), parseThreads,
+				memoryBudget(options), metrics);
+		return new PipelineRunner(taxCalculationService, input, createJsonOutputAdapter(output), workers,
+				bufferSize, waitStrategy, createAdmissionController(options));
+	}
+
+	/**
+	 * Memory for sets in flight, {@code --memory-budget} MB or half the maximum heap, and the
+	 * largest set kept on the heap, {@code --max-set-size} MB or the whole budget; larger sets
+	 * are handled per {@code --oversized-sets spill|reject}
+	 */
+	public static AdmissionController createAdmissionController(CommandLineOptions options) {
+		long budget = memoryBudget(options);
+		long maxSetSize = options.has("max-set-size") ? options.getInt("max-set-size", 0) * MEGABYTE : budget;
+		AdmissionController.OversizedSets oversizedSets =
+				AdmissionController.OversizedSets.fromName(options.get("oversized-sets", "spill"));
+		return new AdmissionController(budget, maxSetSize, oversizedSets, new OffHeapSpill(), metrics);
+	}
+
+	private static long memoryBudget(CommandLineOptions options) {
+		return options.has("memory-budget")
+				? options.getInt("memory-budget", 0) * MEGABYTE
+				: Runtime.getRuntime().maxMemory() / 2;
+	}
+
+	public static ReactiveRunner createReactiveRunner(TaxCalculationService taxCalculationService,
+			CommandLineOptions options) {
+		int window = options.getInt("window", OutputPortSubscriber.DEFAULT_WINDOW);
+		return new ReactiveRunner(taxCalculationService, createInputAdapter(), createOutputAdapter(), window);
+	}
+
+	/**
+	 * Streams stdin to the given writer; the caller flushes and closes the writer. Taxes
+	 * are computed one operation at a time, which only the reference engine supports.
+	 */
+	public static StreamingTaxRunner createStreamingTaxRunner(Writer output, CommandLineOptions options) {
+		String engine = engineName(options);
+		if (!TaxCalculator.NAME.equals(engine)) {
+			throw new IllegalArgumentException("Stream mode always uses the " + TaxCalculator.NAME
+					+ " engine, not " + engine);
+		}
+		int flushInterval = options.getInt("flush-interval", StreamingTaxRunner.DEFAULT_FLUSH_INTERVAL);
+		return new StreamingTaxRunner(new TaxCalculator(), System.in, output, flushInterval, metrics);
+	}
+
+	/**
+	 * Logback is configured when something is first logged, not when the config loads
+	 */
+	private static final class Log {
+
+		static final Logger logger = LoggerFactory.getLogger(ApplicationConfig.class);
 	}
 }
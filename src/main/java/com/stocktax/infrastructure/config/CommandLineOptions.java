@@ -0,0 +1,147 @@
+package com.stocktax.infrastructure.config;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Parses the command line into a run mode and its "--name value" options.
+ * Without a mode the application reads from stdin as before. An option the mode does
+ * not read is rejected, so a misspelt name cannot silently fall back to a default.
+ */
+public class CommandLineOptions {
+
+	public static final String STDIN_MODE = "stdin";
+
+	/** Options every mode accepts */
+	private static final Set<String> COMMON_OPTIONS = Set.of("metrics", "engine");
+
+	private static final Set<String> PIPELINE_OPTIONS = Set.of("workers", "buffer-size", "wait-strategy",
+			"memory-budget", "max-set-size", "oversized-sets");
+
+	private static final Map<String, Set<String>> MODE_OPTIONS = Map.ofEntries(
+			Map.entry(STDIN_MODE, Set.of("spill-threshold", "async-output", "output-buffer-size", "output-format",
+					"fast-start")),
+			Map.entry("batch", Set.of("input", "output", "checkpoint", "checkpoint-interval")),
+			Map.entry("directory", Set.of("input-dir", "output-dir", "workers")),
+			Map.entry("watch", Set.of("spool", "outbox", "workers")),
+			Map.entry("pipeline", PIPELINE_OPTIONS),
+			Map.entry("partitioned", union(PIPELINE_OPTIONS, Set.of("output-dir", "partitions", "block-size"))),
+			Map.entry("parallel", union(PIPELINE_OPTIONS, Set.of("input", "parse-threads"))),
+			Map.entry("aggregate", Set.of()),
+			Map.entry("expand", Set.of()),
+			Map.entry("reactive", Set.of("window")),
+			Map.entry("stream", Set.of("flush-interval")));
+
+	private final String mode;
+	private final Map<String, String> options;
+
+	private CommandLineOptions(String mode, Map<String, String> options) {
+		this.mode = mode;
+		this.options = options;
+	}
+
+	public static CommandLineOptions parse(String[] args) {
+		String mode = STDIN_MODE;
+		Map<String, String> options = new HashMap<>();
+
+		int i = 0;
+		if (args.length > 0 && !args[0].startsWith("--")) {
+			mode = args[0];
+			i = 1;
+		}
+
+		for (; i < args.length; i++) {
+			String arg = args[i];
+			if (!arg.startsWith("--")) {
+				throw new IllegalArgumentException("Unexpected argument: " + arg);
+			}
+			String name = arg.substring(2);
+			int equals = name.indexOf('=');
+			if (equals >= 0) {
+				options.put(name.substring(0, equals), name.substring(equals + 1));
+			} else if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+				options.put(name, args[++i]);
+			} else {
+				// flags without a value are switches
+				options.put(name, "true");
+			}
+		}
+		checkKnown(mode, options.keySet());
+		return new CommandLineOptions(mode, options);
+	}
+
+	/**
+	 * Unknown modes are left to the caller, which reports the mode itself
+	 */
+	private static void checkKnown(String mode, Set<String> names) {
+		Set<String> accepted = MODE_OPTIONS.get(mode);
+		if (accepted == null) {
+			return;
+		}
+		for (String name : names) {
+			if (!accepted.contains(name) && !COMMON_OPTIONS.contains(name)) {
+				Set<String> all = new TreeSet<>(accepted);
+				all.addAll(COMMON_OPTIONS);
+				throw new IllegalArgumentException("Unknown option --" + name + " for mode " + mode
+						+ " (accepted: --" + String.join(", --", all) + ")");
+			}
+		}
+	}
+
+	private static Set<String> union(Set<String> first, Set<String> second) {
+		Set<String> union = new HashSet<>(first);
+		union.addAll(second);
+		return Set.copyOf(union);
+	}
+
+	public String getMode() {
+		return mode;
+	}
+
+	public boolean has(String name) {
+		return options.containsKey(name);
+	}
+
+	public String get(String name, String defaultValue) {
+		return options.getOrDefault(name, defaultValue);
+	}
+
+	public String getRequired(String name) {
+		String value = options.get(name);
+		if (value == null) {
+			throw new IllegalArgumentException("Missing required option --" + name + " for mode " + mode);
+		}
+		return value;
+	}
+
+	public String getChoice(String name, String defaultValue, String... choices) {
+		String value = get(name, defaultValue);
+		if (!Arrays.asList(choices).contains(value)) {
+			throw new IllegalArgumentException("Option --" + name + " must be one of "
+					+ String.join(", ", choices) + ": " + value);
+		}
+		return value;
+	}
+
+	public Path getPath(String name) {
+		return Paths.get(getRequired(name));
+	}
+
+	public int getInt(String name, int defaultValue) {
+		String value = options.get(name);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Option --" + name + " must be an integer: " + value, e);
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package com.stocktax.infrastructure.dto;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import java.math.BigDecimal;
 
 /**
@@ -12,6 +13,7 @@ public class OperationDto {
     private String operation;
     
     @JsonProperty("unit-cost")
+    @JsonDeserialize(using = PriceDeserializer.class)
     private BigDecimal unitCost;
     
     @JsonProperty("quantity")
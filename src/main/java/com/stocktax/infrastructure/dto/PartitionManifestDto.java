@@ -0,0 +1,117 @@
+package com.stocktax.infrastructure.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Transfer Object for the manifest of partitioned output. Set {@code i}, counting
+ * from 0, is in partition {@code (i / block-size) % partitions}.
+ */
+@JsonPropertyOrder({"partitions", "block-size", "sets", "files"})
+public class PartitionManifestDto {
+    
+    @JsonProperty("partitions")
+    private int partitions;
+    
+    @JsonProperty("block-size")
+    private int blockSize;
+    
+    @JsonProperty("sets")
+    private long sets;
+    
+    @JsonProperty("files")
+    private List<PartitionFile> files = new ArrayList<>();
+    
+    public PartitionManifestDto() {
+    }
+    
+    public PartitionManifestDto(int partitions, int blockSize, long sets, List<PartitionFile> files) {
+        this.partitions = partitions;
+        this.blockSize = blockSize;
+        this.sets = sets;
+        this.files = files;
+    }
+    
+    public int getPartitions() {
+        return partitions;
+    }
+    
+    public void setPartitions(int partitions) {
+        this.partitions = partitions;
+    }
+    
+    public int getBlockSize() {
+        return blockSize;
+    }
+    
+    public void setBlockSize(int blockSize) {
+        this.blockSize = blockSize;
+    }
+    
+    public long getSets() {
+        return sets;
+    }
+    
+    public void setSets(long sets) {
+        this.sets = sets;
+    }
+    
+    public List<PartitionFile> getFiles() {
+        return files;
+    }
+    
+    public void setFiles(List<PartitionFile> files) {
+        this.files = files;
+    }
+    
+    /**
+     * One partition file, by name relative to the manifest
+     */
+    @JsonPropertyOrder({"file", "sets", "bytes"})
+    public static class PartitionFile {
+        
+        @JsonProperty("file")
+        private String file;
+        
+        @JsonProperty("sets")
+        private long sets;
+        
+        @JsonProperty("bytes")
+        private long bytes;
+        
+        public PartitionFile() {
+        }
+        
+        public PartitionFile(String file, long sets, long bytes) {
+            this.file = file;
+            this.sets = sets;
+            this.bytes = bytes;
+        }
+        
+        public String getFile() {
+            return file;
+        }
+        
+        public void setFile(String file) {
+            this.file = file;
+        }
+        
+        public long getSets() {
+            return sets;
+        }
+        
+        public void setSets(long sets) {
+            this.sets = sets;
+        }
+        
+        public long getBytes() {
+            return bytes;
+        }
+        
+        public void setBytes(long bytes) {
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.stocktax.infrastructure.dto;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.NumberDeserializers;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Reads JSON numbers through the shared {@link PriceInterner}, straight from the parser's
+ * text buffer; anything else, such as a price written as a string, is left to Jackson's
+ * own {@code BigDecimal} handling
+ */
+public class PriceDeserializer extends StdScalarDeserializer<BigDecimal> {
+
+    private static final long serialVersionUID = 1L;
+
+    public PriceDeserializer() {
+        super(BigDecimal.class);
+    }
+
+    @Override
+    public BigDecimal deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_NUMBER_INT) {
+            return PriceInterner.shared().intern(parser.getTextCharacters(), parser.getTextOffset(),
+                    parser.getTextLength());
+        }
+        return NumberDeserializers.BigDecimalDeserializer.instance.deserialize(parser, context);
+    }
+}
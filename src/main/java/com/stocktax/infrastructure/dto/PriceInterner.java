@@ -0,0 +1,108 @@
+package com.stocktax.infrastructure.dto;
+
+
+import com.stocktax.domain.ports.MetricsPort;
+
+import java.math.BigDecimal;
+
+/**
+ * Bounded cache of unit costs keyed on their JSON text, so the few prices that repeat
+ * across a feed are parsed once and shared by every operation quoting them. The table is
+ * direct-mapped: each text hashes to one slot and a new price simply replaces the one
+ * there, so memory stays fixed however many distinct prices go by.
+ * <p>
+ * Thread-safe without locking: slots hold immutable entries, so a parser thread sees
+ * either an old or a new entry and at worst parses a price again.
+ */
+public final class PriceInterner {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /** Longer texts are parsed without being cached */
+    static final int MAX_TEXT_LENGTH = 24;
+
+    private static final PriceInterner SHARED = new PriceInterner(DEFAULT_CAPACITY);
+
+    private final Entry[] table;
+    private final int mask;
+    private volatile MetricsPort metrics = MetricsPort.DISABLED;
+
+    /**
+     * Capacity is rounded up to a power of two
+     */
+    public PriceInterner(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << (capacity > 1 ? 1 : 0);
+        this.table = new Entry[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * The interner used by {@link PriceDeserializer}
+     */
+    public static PriceInterner shared() {
+        return SHARED;
+    }
+
+    /**
+     * Counts hits and misses as {@code price-cache-hits} and {@code price-cache-misses}
+     */
+    public void setMetrics(MetricsPort metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * The price written as {@code text[offset, offset + length)}, equal in value and scale
+     * to {@code new BigDecimal(text, offset, length)}
+     */
+    public BigDecimal intern(char[] text, int offset, int length) {
+        if (length > MAX_TEXT_LENGTH) {
+            metrics.increment(MetricsPort.Counter.PRICE_CACHE_MISSES);
+            return new BigDecimal(text, offset, length);
+        }
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + text[i];
+        }
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        Entry entry = table[slot];
+        if (entry != null && entry.matches(text, offset, length)) {
+            metrics.increment(MetricsPort.Counter.PRICE_CACHE_HITS);
+            return entry.value;
+        }
+        metrics.increment(MetricsPort.Counter.PRICE_CACHE_MISSES);
+        BigDecimal value = new BigDecimal(text, offset, length);
+        table[slot] = new Entry(text, offset, length, value);
+        return value;
+    }
+
+    public int capacity() {
+        return table.length;
+    }
+
+    private static final class Entry {
+
+        private final char[] text;
+        final BigDecimal value;
+
+        Entry(char[] text, int offset, int length, BigDecimal value) {
+            this.text = new char[length];
+            System.arraycopy(text, offset, this.text, 0, length);
+            this.value = value;
+        }
+
+        boolean matches(char[] other, int offset, int length) {
+            if (text.length != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (text[i] != other[offset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
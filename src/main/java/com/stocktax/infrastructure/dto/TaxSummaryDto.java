@@ -0,0 +1,91 @@
+package com.stocktax.infrastructure.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import java.math.BigDecimal;
+
+/**
+ * Data Transfer Object for JSON set summaries
+ */
+@JsonPropertyOrder({"operations", "taxed-sells", "total-tax", "quantity", "average-price", "accumulated-losses"})
+public class TaxSummaryDto {
+    
+    @JsonProperty("operations")
+    private int operations;
+    
+    @JsonProperty("taxed-sells")
+    private int taxedSells;
+    
+    @JsonProperty("total-tax")
+    private BigDecimal totalTax;
+    
+    @JsonProperty("quantity")
+    private int quantity;
+    
+    @JsonProperty("average-price")
+    private BigDecimal averagePrice;
+    
+    @JsonProperty("accumulated-losses")
+    private BigDecimal accumulatedLosses;
+    
+    public TaxSummaryDto() {
+    }
+    
+    public TaxSummaryDto(int operations, int taxedSells, BigDecimal totalTax, int quantity,
+            BigDecimal averagePrice, BigDecimal accumulatedLosses) {
+        this.operations = operations;
+        this.taxedSells = taxedSells;
+        this.totalTax = totalTax;
+        this.quantity = quantity;
+        this.averagePrice = averagePrice;
+        this.accumulatedLosses = accumulatedLosses;
+    }
+    
+    public int getOperations() {
+        return operations;
+    }
+    
+    public void setOperations(int operations) {
+        this.operations = operations;
+    }
+    
+    public int getTaxedSells() {
+        return taxedSells;
+    }
+    
+    public void setTaxedSells(int taxedSells) {
+        this.taxedSells = taxedSells;
+    }
+    
+    public BigDecimal getTotalTax() {
+        return totalTax;
+    }
+    
+    public void setTotalTax(BigDecimal totalTax) {
+        this.totalTax = totalTax;
+    }
+    
+    public int getQuantity() {
+        return quantity;
+    }
+    
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+    
+    public BigDecimal getAveragePrice() {
+        return averagePrice;
+    }
+    
+    public void setAveragePrice(BigDecimal averagePrice) {
+        this.averagePrice = averagePrice;
+    }
+    
+    public BigDecimal getAccumulatedLosses() {
+        return accumulatedLosses;
+    }
+    
+    public void setAccumulatedLosses(BigDecimal accumulatedLosses) {
+        this.accumulatedLosses = accumulatedLosses;
+    }
+}
@@ -0,0 +1,29 @@
+package com.stocktax.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JFR event covering reading and parsing of one operation set by an input adapter
+ */
+@Name("com.stocktax.Parse")
+@Label("Parse Operation Set")
+@Category({"Stock Tax Calculator", "Input"})
+@Description("Reading and parsing of one operation set")
+@StackTrace(false)
+@Threshold("1 ms")
+public class ParseEvent extends jdk.jfr.Event {
+
+    @Label("Operation Count")
+    public int operationCount;
+
+    @Label("Bytes Parsed")
+    @Description("Size of the JSON text of the set; input is ASCII so characters equal bytes")
+    @DataAmount
+    public long bytesParsed;
+}
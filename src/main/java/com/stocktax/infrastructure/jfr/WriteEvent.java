@@ -0,0 +1,28 @@
+package com.stocktax.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JFR event covering serialization and output of the taxes of one operation set
+ */
+@Name("com.stocktax.Write")
+@Label("Write Tax Calculations")
+@Category({"Stock Tax Calculator", "Output"})
+@Description("Serialization and output of the taxes of one operation set")
+@StackTrace(false)
+@Threshold("1 ms")
+public class WriteEvent extends jdk.jfr.Event {
+
+    @Label("Tax Count")
+    public int taxCount;
+
+    @Label("Bytes Written")
+    @DataAmount
+    public long bytesWritten;
+}
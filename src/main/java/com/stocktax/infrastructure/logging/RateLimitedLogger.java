@@ -0,0 +1,108 @@
+package com.stocktax.infrastructure.logging;
+
+import org.slf4j.Logger;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs at most {@code permitsPerWindow} messages per time window and counts the rest.
+ * The first message of a window carries the full stack trace, later ones only the
+ * exception's summary, and the next logged message reports how many were suppressed.
+ * Nothing is formatted or counted when the level is disabled.
+ */
+public final class RateLimitedLogger {
+
+    private final Logger logger;
+    private final int permitsPerWindow;
+    private final long windowNanos;
+
+    private long windowStart;
+    private int usedPermits;
+    private long suppressed;
+
+    public RateLimitedLogger(Logger logger, int permitsPerWindow, long window, TimeUnit unit) {
+        if (permitsPerWindow <= 0) {
+            throw new IllegalArgumentException("Permits per window must be positive");
+        }
+        this.logger = logger;
+        this.permitsPerWindow = permitsPerWindow;
+        this.windowNanos = unit.toNanos(window);
+        this.windowStart = System.nanoTime();
+    }
+
+    /**
+     * Same contract as {@link Logger#error(String, Object...)}: a trailing throwable is the exception
+     */
+    public void error(String format, Object... arguments) {
+        if (!logger.isErrorEnabled()) {
+            return;
+        }
+        Decision decision = decide();
+        if (decision != null) {
+            logger.error(decision.format(format, arguments), decision.arguments(arguments));
+        }
+    }
+
+    public void warn(String format, Object... arguments) {
+        if (!logger.isWarnEnabled()) {
+            return;
+        }
+        Decision decision = decide();
+        if (decision != null) {
+            logger.warn(decision.format(format, arguments), decision.arguments(arguments));
+        }
+    }
+
+    public synchronized long getSuppressedCount() {
+        return suppressed;
+    }
+
+    private synchronized Decision decide() {
+        long now = System.nanoTime();
+        if (now - windowStart >= windowNanos) {
+            windowStart = now;
+            usedPermits = 0;
+        }
+        if (usedPermits >= permitsPerWindow) {
+            suppressed++;
+            return null;
+        }
+        boolean withStackTrace = usedPermits++ == 0;
+        long previouslySuppressed = suppressed;
+        suppressed = 0;
+        return new Decision(withStackTrace, previouslySuppressed);
+    }
+
+    private static final class Decision {
+
+        private final boolean withStackTrace;
+        private final long previouslySuppressed;
+
+        Decision(boolean withStackTrace, long previouslySuppressed) {
+            this.withStackTrace = withStackTrace;
+            this.previouslySuppressed = previouslySuppressed;
+        }
+
+        String format(String format, Object[] arguments) {
+            String result = stripsThrowable(arguments) ? format + ": {}" : format;
+            return previouslySuppressed == 0 ? result
+                    : result + " (" + previouslySuppressed + " similar messages suppressed)";
+        }
+
+        Object[] arguments(Object[] arguments) {
+            if (!stripsThrowable(arguments)) {
+                return arguments;
+            }
+            // keep the exception's message but skip printing its stack trace
+            Object[] copy = Arrays.copyOf(arguments, arguments.length);
+            copy[copy.length - 1] = copy[copy.length - 1].toString();
+            return copy;
+        }
+
+        private boolean stripsThrowable(Object[] arguments) {
+            return !withStackTrace && arguments.length > 0
+                    && arguments[arguments.length - 1] instanceof Throwable;
+        }
+    }
+}
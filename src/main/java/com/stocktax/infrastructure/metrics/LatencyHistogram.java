@@ -0,0 +1,85 @@
+package com.stocktax.infrastructure.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free log-linear histogram of nanosecond latencies in the style of HdrHistogram.
+ * Values below 32 get exact buckets; above that every power of two is split into 16
+ * sub-buckets, so a reported percentile is within about 6% of the true value. Recording
+ * is a bucket index computation and one atomic increment.
+ */
+public class LatencyHistogram {
+
+    private static final int LINEAR_BUCKETS = 32;
+    private static final int SUB_BUCKETS = 16;
+    private static final int BUCKET_COUNT = LINEAR_BUCKETS + 58 * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        long value = Math.max(0L, nanos);
+        counts.incrementAndGet(bucketIndex(value));
+        totalCount.increment();
+        totalNanos.add(value);
+        if (value > maxNanos.get()) {
+            maxNanos.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public double getMeanNanos() {
+        long count = totalCount.sum();
+        return count == 0 ? 0.0 : (double) totalNanos.sum() / count;
+    }
+
+    /**
+     * Upper bound of the bucket holding the given percentile (0-100), capped at the maximum
+     * recorded value
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = totalCount.sum();
+        if (count == 0) {
+            return 0L;
+        }
+        long rank = Math.max(1L, (long) Math.ceil(count * Math.min(100.0, percentile) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    static int bucketIndex(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        // keeps the top five bits: a value in [16, 31] after the shift
+        int shift = msb - 4;
+        return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+        int shift = (index - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+        long subBucket = (index - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
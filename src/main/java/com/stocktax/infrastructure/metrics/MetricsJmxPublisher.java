@@ -0,0 +1,166 @@
+package com.stocktax.infrastructure.metrics;
+
+import com.stocktax.domain.ports.MetricsPort;
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Publishes a {@link MetricsRegistry} on the platform MBean server under
+ * {@code com.stocktax:type=Counters} and {@code com.stocktax:type=Latency,stage=...}
+ */
+public class MetricsJmxPublisher {
+
+    public interface CountersMXBean {
+        long getOperationSets();
+
+        long getOperations();
+
+        long getBuys();
+
+        long getSells();
+
+        long getTaxedSells();
+
+        long getErrors();
+
+        long getAdmissionWaits();
+
+        long getSpilledSets();
+
+        long getPriceCacheHits();
+
+        long getPriceCacheMisses();
+    }
+
+    public interface StageLatencyMXBean {
+        long getCount();
+
+        double getMeanMicros();
+
+        double getP50Micros();
+
+        double getP99Micros();
+
+        double getP999Micros();
+
+        double getMaxMicros();
+    }
+
+    public static void register(MetricsRegistry registry) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        register(server, new ObjectName("com.stocktax:type=Counters"), new Counters(registry));
+        for (MetricsPort.Stage stage : MetricsPort.Stage.values()) {
+            ObjectName name = new ObjectName("com.stocktax:type=Latency,stage=" + MetricsRegistry.name(stage));
+            register(server, name, new StageLatency(registry.getLatency(stage)));
+        }
+    }
+
+    private static void register(MBeanServer server, ObjectName name, Object bean) throws JMException {
+        // a second registry in the same JVM (e.g. tests) replaces the first
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+        server.registerMBean(bean, name);
+    }
+
+    private static final class Counters implements CountersMXBean {
+
+        private final MetricsRegistry registry;
+
+        Counters(MetricsRegistry registry) {
+            this.registry = registry;
+        }
+
+        @Override
+        public long getOperationSets() {
+            return registry.getCount(MetricsPort.Counter.OPERATION_SETS);
+        }
+
+        @Override
+        public long getOperations() {
+            return registry.getCount(MetricsPort.Counter.OPERATIONS);
+        }
+
+        @Override
+        public long getBuys() {
+            return registry.getCount(MetricsPort.Counter.BUYS);
+        }
+
+        @Override
+        public long getSells() {
+            return registry.getCount(MetricsPort.Counter.SELLS);
+        }
+
+        @Override
+        public long getTaxedSells() {
+            return registry.getCount(MetricsPort.Counter.TAXED_SELLS);
+        }
+
+        @Override
+        public long getErrors() {
+            return registry.getCount(MetricsPort.Counter.ERRORS);
+        }
+
+        @Override
+        public long getAdmissionWaits() {
+            return registry.getCount(MetricsPort.Counter.ADMISSION_WAITS);
+        }
+
+        @Override
+        public long getSpilledSets() {
+            return registry.getCount(MetricsPort.Counter.SPILLED_SETS);
+        }
+
+        @Override
+        public long getPriceCacheHits() {
+            return registry.getCount(MetricsPort.Counter.PRICE_CACHE_HITS);
+        }
+
+        @Override
+        public long getPriceCacheMisses() {
+            return registry.getCount(MetricsPort.Counter.PRICE_CACHE_MISSES);
+        }
+    }
+
+    private static final class StageLatency implements StageLatencyMXBean {
+
+        private final LatencyHistogram histogram;
+
+        StageLatency(LatencyHistogram histogram) {
+            this.histogram = histogram;
+        }
+
+        @Override
+        public long getCount() {
+            return histogram.getCount();
+        }
+
+        @Override
+        public double getMeanMicros() {
+            return histogram.getMeanNanos() / 1000.0;
+        }
+
+        @Override
+        public double getP50Micros() {
+            return histogram.getValueAtPercentile(50) / 1000.0;
+        }
+
+        @Override
+        public double getP99Micros() {
+            return histogram.getValueAtPercentile(99) / 1000.0;
+        }
+
+        @Override
+        public double getP999Micros() {
+            return histogram.getValueAtPercentile(99.9) / 1000.0;
+        }
+
+        @Override
+        public double getMaxMicros() {
+            return histogram.getMaxNanos() / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.stocktax.infrastructure.metrics;
+
+import com.stocktax.domain.ports.MetricsPort;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live counters and per-stage latency histograms, safe to record from any thread
+ */
+public class MetricsRegistry implements MetricsPort {
+
+    private final LongAdder[] counters = new LongAdder[Counter.values().length];
+    private final LatencyHistogram[] latencies = new LatencyHistogram[Stage.values().length];
+
+    public MetricsRegistry() {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public long startTimer() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public void recordLatency(Stage stage, long startNanos) {
+        latencies[stage.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    @Override
+    public void increment(Counter counter, long delta) {
+        counters[counter.ordinal()].add(delta);
+    }
+
+    public long getCount(Counter counter) {
+        return counters[counter.ordinal()].sum();
+    }
+
+    public LatencyHistogram getLatency(Stage stage) {
+        return latencies[stage.ordinal()];
+    }
+
+    /**
+     * Human-readable summary of all counters and latencies
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder("Stock tax calculator metrics\n");
+        for (Counter counter : Counter.values()) {
+            report.append(String.format(Locale.ROOT, "  %-20s %d%n", name(counter), getCount(counter)));
+        }
+        report.append(String.format(Locale.ROOT, "  %-8s %10s %10s %10s %10s %10s %10s%n",
+                "stage", "count", "mean(us)", "p50(us)", "p99(us)", "p99.9(us)", "max(us)"));
+        for (Stage stage : Stage.values()) {
+            LatencyHistogram histogram = getLatency(stage);
+            report.append(String.format(Locale.ROOT, "  %-8s %10d %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    name(stage), histogram.getCount(),
+                    histogram.getMeanNanos() / 1000.0,
+                    histogram.getValueAtPercentile(50) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxNanos() / 1000.0));
+        }
+        return report.toString();
+    }
+
+    static String name(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+}
@@ -0,0 +1,59 @@
+package com.stocktax.infrastructure.offheap;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Direct buffers handed back by closed spills, for the next spill to reuse. A direct buffer's
+ * native memory is only freed once the buffer is garbage collected, so without reuse every
+ * closed spill would keep its buffers until the next collection. At most
+ * {@link #MAX_IDLE_BUFFERS} buffers are kept; further ones are left to the collector.
+ */
+final class DirectBufferPool {
+
+    static final int MAX_IDLE_BUFFERS = 4;
+
+    private static final Map<Integer, ArrayDeque<ByteBuffer>> idle = new HashMap<>();
+    private static int idleCount;
+
+    private DirectBufferPool() {
+    }
+
+    /**
+     * A cleared buffer of exactly the given capacity, reused if one is idle
+     */
+    static synchronized ByteBuffer acquire(int capacity) {
+        ArrayDeque<ByteBuffer> buffers = idle.get(capacity);
+        ByteBuffer buffer = buffers == null ? null : buffers.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(capacity);
+        }
+        idleCount--;
+        return buffer.clear();
+    }
+
+    /**
+     * The caller must not use the buffer, or any view of it, afterwards
+     */
+    static synchronized void release(ByteBuffer buffer) {
+        if (buffer == null || idleCount >= MAX_IDLE_BUFFERS) {
+            return;
+        }
+        idle.computeIfAbsent(buffer.capacity(), capacity -> new ArrayDeque<>()).push(buffer);
+        idleCount++;
+    }
+
+    static synchronized int idleCount() {
+        return idleCount;
+    }
+
+    /**
+     * Drops every idle buffer
+     */
+    static synchronized void clear() {
+        idle.clear();
+        idleCount = 0;
+    }
+}
@@ -0,0 +1,79 @@
+package com.stocktax.infrastructure.offheap;
+
+import com.stocktax.domain.model.Operation;
+
+import java.io.Closeable;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Operation set stored off-heap as 16-byte records, for sets too large to keep as objects.
+ * {@link #get} builds a fresh {@link Operation} per call, so scanning the set keeps heap use
+ * constant. Unit costs must have an unscaled value that fits in a long.
+ */
+public class OffHeapOperationStore extends AbstractList<Operation> implements RandomAccess, Closeable {
+
+    /** Native memory per store unless configured otherwise */
+    public static final int DEFAULT_MEMORY_BUDGET = 8 << 20;
+
+    private static final int RECORD_SIZE = 16;
+    private static final byte BUY = 0;
+    private static final byte SELL = 1;
+
+    private final RecordSpill spill;
+
+    public OffHeapOperationStore() {
+        this(DEFAULT_MEMORY_BUDGET);
+    }
+
+    public OffHeapOperationStore(int memoryBudget) {
+        this.spill = new RecordSpill(RECORD_SIZE, memoryBudget);
+    }
+
+    @Override
+    public boolean add(Operation operation) {
+        if (spill.size() == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Operation set exceeds " + Integer.MAX_VALUE + " operations");
+        }
+        BigDecimal unitCost = operation.getUnitCost();
+        if (unitCost.unscaledValue().bitLength() > 63 || unitCost.scale() != (byte) unitCost.scale()) {
+            throw new IllegalArgumentException("Unit cost out of range for off-heap storage: " + unitCost);
+        }
+        ByteBuffer record = spill.append();
+        record.put(operation.isBuy() ? BUY : SELL);
+        record.put((byte) unitCost.scale());
+        record.putShort((short) 0);
+        record.putInt(operation.getQuantity());
+        record.putLong(unitCost.unscaledValue().longValue());
+        return true;
+    }
+
+    @Override
+    public Operation get(int index) {
+        ByteBuffer record = spill.record(index);
+        String type = record.get() == BUY ? "buy" : "sell";
+        int scale = record.get();
+        record.getShort();
+        int quantity = record.getInt();
+        return new Operation(type, BigDecimal.valueOf(record.getLong(), scale), quantity);
+    }
+
+    @Override
+    public int size() {
+        return (int) spill.size();
+    }
+
+    /**
+     * Called once the set is complete; releases the write buffer of a spilled set
+     */
+    public void seal() {
+        spill.seal();
+    }
+
+    @Override
+    public void close() {
+        spill.close();
+    }
+}
@@ -0,0 +1,18 @@
+package com.stocktax.infrastructure.offheap;
+
+import com.stocktax.domain.model.Operation;
+import com.stocktax.domain.model.TaxCalculation;
+import com.stocktax.domain.ports.ResultStorePort;
+
+import java.util.List;
+
+/**
+ * Keeps the results of a set off-heap when the set itself was stored off-heap
+ */
+public class OffHeapResultStore implements ResultStorePort {
+
+    @Override
+    public List<TaxCalculation> createResultList(List<Operation> operations) {
+        return operations instanceof OffHeapOperationStore ? new OffHeapTaxStore() : null;
+    }
+}
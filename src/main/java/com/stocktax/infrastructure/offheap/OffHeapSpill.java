@@ -0,0 +1,37 @@
+package com.stocktax.infrastructure.offheap;
+
+import com.stocktax.domain.model.Operation;
+import com.stocktax.domain.ports.SpillPort;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Spills sets to an {@link OffHeapOperationStore}
+ */
+public class OffHeapSpill implements SpillPort {
+
+    @Override
+    public List<Operation> spill(List<Operation> operations) throws IOException {
+        OffHeapOperationStore store = new OffHeapOperationStore();
+        try {
+            store.addAll(operations);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            store.close();
+            throw new IOException("Operation set of " + operations.size()
+                    + " operations cannot be spilled: " + e.getMessage(), e);
+        }
+        store.seal();
+        return store;
+    }
+
+    @Override
+    public boolean isSpilled(List<Operation> operations) {
+        return operations instanceof OffHeapOperationStore;
+    }
+
+    @Override
+    public long spilledBytes() {
+        return OffHeapOperationStore.DEFAULT_MEMORY_BUDGET;
+    }
+}
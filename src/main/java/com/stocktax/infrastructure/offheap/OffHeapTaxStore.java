@@ -0,0 +1,59 @@
+package com.stocktax.infrastructure.offheap;
+
+import com.stocktax.domain.model.TaxCalculation;
+
+import java.io.Closeable;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Results of an {@link OffHeapOperationStore} set, stored off-heap as 12-byte records
+ */
+public class OffHeapTaxStore extends AbstractList<TaxCalculation> implements RandomAccess, Closeable {
+
+    private static final int RECORD_SIZE = 12;
+
+    private final RecordSpill spill;
+
+    public OffHeapTaxStore() {
+        this(OffHeapOperationStore.DEFAULT_MEMORY_BUDGET);
+    }
+
+    public OffHeapTaxStore(int memoryBudget) {
+        this.spill = new RecordSpill(RECORD_SIZE, memoryBudget);
+    }
+
+    @Override
+    public boolean add(TaxCalculation taxCalculation) {
+        if (spill.size() == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Operation set exceeds " + Integer.MAX_VALUE + " results");
+        }
+        BigDecimal tax = taxCalculation.getTax();
+        if (tax.unscaledValue().bitLength() > 63) {
+            throw new ArithmeticException("Tax out of range for off-heap storage: " + tax);
+        }
+        ByteBuffer record = spill.append();
+        record.putLong(tax.unscaledValue().longValue());
+        record.putInt(tax.scale());
+        return true;
+    }
+
+    @Override
+    public TaxCalculation get(int index) {
+        ByteBuffer record = spill.record(index);
+        long unscaled = record.getLong();
+        return new TaxCalculation(BigDecimal.valueOf(unscaled, record.getInt()));
+    }
+
+    @Override
+    public int size() {
+        return (int) spill.size();
+    }
+
+    @Override
+    public void close() {
+        spill.close();
+    }
+}
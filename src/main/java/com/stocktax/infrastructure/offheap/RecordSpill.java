@@ -0,0 +1,190 @@
+package com.stocktax.infrastructure.offheap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only sequence of fixed-width records kept outside the heap. Records are collected
+ * in a direct buffer and spilled to a temporary file whenever it fills, so an open spill
+ * holds at most its budget of native memory however many records there are. Reads go
+ * through a second direct buffer holding a window of the file, which makes sequential
+ * scans cheap.
+ * <p>
+ * Both buffers are taken on first use and handed to the {@link DirectBufferPool} on
+ * {@link #seal()} and {@link #close()}, so the next spill reuses them instead of allocating
+ * while the closed one's memory waits for the garbage collector. Native memory thus follows
+ * the number of spills open at once, plus the pool's few idle buffers.
+ * <p>
+ * Not thread-safe. The temporary file is deleted on {@link #close()}, or once the spill
+ * becomes unreachable; on Unix it is unlinked right after opening and never visible.
+ */
+final class RecordSpill implements Closeable {
+
+    /** Directory for spill files, {@code java.io.tmpdir} by default */
+    static final String DIRECTORY_PROPERTY = "stocktax.spill.dir";
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final int recordSize;
+    private final int bufferRecords;
+    private boolean sealed;
+    private final SpillFile file = new SpillFile();
+    private final Cleaner.Cleanable cleanable;
+
+    private ByteBuffer writeBuffer;
+    private ByteBuffer pending;
+    private ByteBuffer readBuffer;
+    private long spilledRecords;
+    private long size;
+    private long windowStart;
+    private int windowRecords;
+
+    RecordSpill(int recordSize, int memoryBudget) {
+        this.recordSize = recordSize;
+        // half the budget for writing, half for reading
+        this.bufferRecords = Math.max(1, memoryBudget / 2 / recordSize);
+        this.cleanable = CLEANER.register(this, file);
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * Buffer to put exactly one record into, with relative puts
+     */
+    ByteBuffer append() {
+        if (sealed) {
+            throw new IllegalStateException("Spill is sealed");
+        }
+        if (writeBuffer == null) {
+            writeBuffer = DirectBufferPool.acquire(bufferRecords * recordSize);
+            pending = writeBuffer.duplicate();
+        }
+        if (!writeBuffer.hasRemaining()) {
+            spill();
+        }
+        size++;
+        return writeBuffer;
+    }
+
+    /**
+     * Moves everything to the file and releases the write buffer; reads stay possible
+     */
+    void seal() {
+        sealed = true;
+        if (writeBuffer != null && spilledRecords > 0) {
+            spill();
+            releaseWriteBuffer();
+        }
+    }
+
+    /**
+     * Buffer positioned at the first byte of the record, for relative gets
+     */
+    ByteBuffer record(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        if (index >= spilledRecords) {
+            pending.limit(writeBuffer.position());
+            pending.position((int) (index - spilledRecords) * recordSize);
+            return pending;
+        }
+        if (index < windowStart || index >= windowStart + windowRecords) {
+            loadWindow(index);
+        }
+        readBuffer.limit(windowRecords * recordSize);
+        readBuffer.position((int) (index - windowStart) * recordSize);
+        return readBuffer;
+    }
+
+    @Override
+    public void close() {
+        sealed = true;
+        releaseWriteBuffer();
+        DirectBufferPool.release(readBuffer);
+        readBuffer = null;
+        cleanable.clean();
+    }
+
+    private void releaseWriteBuffer() {
+        DirectBufferPool.release(writeBuffer);
+        writeBuffer = null;
+        pending = null;
+    }
+
+    private void spill() {
+        try {
+            FileChannel channel = file.open();
+            writeBuffer.flip();
+            long position = spilledRecords * recordSize;
+            while (writeBuffer.hasRemaining()) {
+                position += channel.write(writeBuffer, position);
+            }
+            spilledRecords += writeBuffer.limit() / recordSize;
+            writeBuffer.clear();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to spill records to disk", e);
+        }
+    }
+
+    private void loadWindow(long index) {
+        if (readBuffer == null) {
+            readBuffer = DirectBufferPool.acquire(bufferRecords * recordSize);
+        }
+        long records = Math.min(bufferRecords, spilledRecords - index);
+        readBuffer.clear().limit((int) records * recordSize);
+        try {
+            long position = index * recordSize;
+            while (readBuffer.hasRemaining()) {
+                int read = file.channel.read(readBuffer, position);
+                if (read < 0) {
+                    throw new IOException("Spill file ended early");
+                }
+                position += read;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read spilled records", e);
+        }
+        windowStart = index;
+        windowRecords = (int) records;
+    }
+
+    /**
+     * Kept apart from the spill so the cleaner does not keep the spill itself reachable
+     */
+    private static final class SpillFile implements Runnable {
+
+        private FileChannel channel;
+
+        FileChannel open() throws IOException {
+            if (channel == null) {
+                String directory = System.getProperty(DIRECTORY_PROPERTY, System.getProperty("java.io.tmpdir"));
+                Path path = Files.createTempFile(Paths.get(directory), "stocktax-spill", ".bin");
+                channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                        StandardOpenOption.DELETE_ON_CLOSE);
+            }
+            return channel;
+        }
+
+        @Override
+        public void run() {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    // nothing left to do for a temporary file
+                }
+            }
+        }
+    }
+}
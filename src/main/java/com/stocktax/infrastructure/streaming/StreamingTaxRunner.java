@@ -0,0 +1,134 @@
+package com.stocktax.infrastructure.streaming;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.stocktax.domain.TaxCalculator;
+import com.stocktax.domain.model.Operation;
+import com.stocktax.domain.model.StockPosition;
+import com.stocktax.domain.model.TaxCalculation;
+import com.stocktax.domain.ports.MetricsPort;
+import com.stocktax.infrastructure.adapters.JsonMappers;
+import com.stocktax.infrastructure.dto.OperationDto;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+
+/**
+ * Taxes each operation as soon as it is parsed and writes its {@code {"tax":...}} element
+ * right away, so memory does not grow with the length of a set and the first results of
+ * a huge set appear before the rest of it has been read.
+ * <p>
+ * Output is flushed every {@code flushInterval} results and at the end. A set that fails
+ * half-way leaves its line unterminated in the output, followed by the error.
+ */
+public class StreamingTaxRunner {
+
+    public static final int DEFAULT_FLUSH_INTERVAL = 8192;
+
+    private final TaxCalculator taxCalculator;
+    private final InputStream input;
+    private final Writer output;
+    private final int flushInterval;
+    private final MetricsPort metrics;
+    private final ObjectReader operationReader = JsonMappers.operationReader();
+
+    public StreamingTaxRunner(TaxCalculator taxCalculator, InputStream input, Writer output, int flushInterval,
+            MetricsPort metrics) {
+        if (flushInterval <= 0) {
+            throw new IllegalArgumentException("Flush interval must be positive");
+        }
+        this.taxCalculator = taxCalculator;
+        this.input = input;
+        this.output = output;
+        this.flushInterval = flushInterval;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Processes the whole input and returns the number of sets written
+     */
+    public long run() throws IOException {
+        JsonFactory factory = operationReader.getFactory();
+        long sets = 0;
+        try (JsonParser parser = factory.createParser(input);
+             JsonGenerator generator = factory.createGenerator(output)
+                     .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            // one set per line instead of the default space between root values
+            generator.setRootValueSeparator(null);
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                sets++;
+                if (token != JsonToken.START_ARRAY) {
+                    throw new IOException("Failed to process operation set " + sets
+                            + ": expected an array of operations but found " + token);
+                }
+                try {
+                    processSet(parser, generator);
+                } catch (IOException | RuntimeException e) {
+                    metrics.increment(MetricsPort.Counter.ERRORS);
+                    generator.flush();
+                    Log.logger.error("Error processing operation set {}", sets, e);
+                    throw new IOException("Failed to process operation set " + sets, e);
+                }
+            }
+            generator.flush();
+        }
+        if (sets == 0) {
+            Log.logger.warn("No operations provided in input");
+        }
+        return sets;
+    }
+
+    private void processSet(JsonParser parser, JsonGenerator generator) throws IOException {
+        StockPosition position = new StockPosition();
+        long operations = 0;
+        long buys = 0;
+        long taxed = 0;
+        generator.writeStartArray();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) {
+                throw new IOException("Unexpected end of input inside an operation set");
+            }
+            OperationDto dto = operationReader.readValue(parser);
+            Operation operation = new Operation(dto.getOperation(), dto.getUnitCost(), dto.getQuantity());
+            TaxCalculation tax = taxCalculator.calculateTaxForOperation(operation, position);
+            if (operation.isBuy()) {
+                buys++;
+            } else if (tax.getTax().signum() > 0) {
+                taxed++;
+            }
+
+            generator.writeStartObject();
+            generator.writeNumberField("tax", tax.getTax());
+            generator.writeEndObject();
+            if (++operations % flushInterval == 0) {
+                generator.flush();
+            }
+        }
+        generator.writeEndArray();
+        generator.writeRaw('\n');
+        if (metrics.isEnabled()) {
+            metrics.increment(MetricsPort.Counter.OPERATION_SETS);
+            metrics.increment(MetricsPort.Counter.OPERATIONS, operations);
+            metrics.increment(MetricsPort.Counter.BUYS, buys);
+            metrics.increment(MetricsPort.Counter.SELLS, operations - buys);
+            metrics.increment(MetricsPort.Counter.TAXED_SELLS, taxed);
+        }
+    }
+
+    /**
+     * Only errors are logged, so logback is configured on the first one
+     */
+    private static final class Log {
+
+        static final Logger logger = LoggerFactory.getLogger(StreamingTaxRunner.class);
+    }
+}
@@ -3,15 +3,21 @@ package com.stocktax.application;
 import com.stocktax.domain.TaxCalculator;
 import com.stocktax.domain.model.Operation;
 import com.stocktax.domain.model.TaxCalculation;
+import com.stocktax.domain.model.TaxSummary;
+import com.stocktax.domain.ports.InputPort;
+import com.stocktax.infrastructure.adapters.JsonOutputAdapter;
 import com.stocktax.infrastructure.adapters.MockInputAdapter;
 import com.stocktax.infrastructure.adapters.MockOutputAdapter;
+import com.stocktax.infrastructure.config.CommandLineOptions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -182,5 +188,90 @@ class ApplicationTest {
         assertEquals(0, written.get(0).get(1).getTax().compareTo(BigDecimal.ZERO)); // Loss
         assertEquals(0, written.get(0).get(2).getTax().compareTo(BigDecimal.ZERO)); // Profit covers loss
     }
-}
+    
+    @Test
+    void testRunAggregateWritesOneSummaryPerSet() throws IOException {
+        List<List<Operation>> operations = Arrays.asList(
+            Arrays.asList(new Operation("buy", new BigDecimal("10.00"), 10000),
+                new Operation("sell", new BigDecimal("20.00"), 5000)),
+            Arrays.asList(new Operation("buy", new BigDecimal("10.00"), 100))
+        );
+        application = new Application(taxCalculationService, new MockInputAdapter(operations), mockOutputAdapter);
+        
+        application.runAggregate(mockOutputAdapter);
+        
+        List<TaxSummary> summaries = mockOutputAdapter.getWrittenSummaries();
+        assertEquals(2, summaries.size());
+        assertEquals(new BigDecimal("10000.0000"), summaries.get(0).getTotalTax());
+        assertEquals(100, summaries.get(1).getFinalPosition().getTotalQuantity());
+        assertTrue(mockOutputAdapter.getWrittenCalculations().isEmpty());
+    }
+    
+    @Test
+    void testRunAggregateJsonFormat() throws IOException {
+        List<List<Operation>> operations = Arrays.asList(
+            Arrays.asList(new Operation("buy", new BigDecimal("10.00"), 10000),
+                new Operation("sell", new BigDecimal("20.00"), 5000))
+        );
+        StringWriter output = new StringWriter();
+        JsonOutputAdapter summaries = new JsonOutputAdapter(output);
+        application = new Application(taxCalculationService, new MockInputAdapter(operations), summaries);
+        
+        application.runAggregate(summaries);
+        
+        assertEquals("{\"operations\":2,\"taxed-sells\":1,\"total-tax\":10000.0000,\"quantity\":5000,"
+            + "\"average-price\":10.00,\"accumulated-losses\":0}\n", output.toString());
+    }
+    
+    @Test
+    void testRunReadsOneSetAtATime() throws IOException {
+        List<List<Operation>> operations = Arrays.asList(
+            Arrays.asList(new Operation("buy", new BigDecimal("10.00"), 100)),
+            Arrays.asList(new Operation("buy", new BigDecimal("10.00"), 100))
+        );
+        List<Integer> writtenBeforeRead = new ArrayList<>();
+        InputPort input = new InputPort() {
+            @Override
+            public List<List<Operation>> readOperations() {
+                throw new AssertionError("every set read at once");
+            }
+            
+            @Override
+            public Iterator<List<Operation>> operationSets() {
+                Iterator<List<Operation>> sets = operations.iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return sets.hasNext();
+                    }
+                    
+                    @Override
+                    public List<Operation> next() {
+                        writtenBeforeRead.add(mockOutputAdapter.getWrittenCalculations().size());
+                        return sets.next();
+                    }
+                };
+            }
+        };
+        
+        new Application(taxCalculationService, input, mockOutputAdapter).run();
+        
+        assertEquals(List.of(0, 1), writtenBeforeRead);
+    }
+
+    @Test
+    void testStdinSwitchesWithTheirOwnOutputCannotBeCombined() {
+        Application.checkStdinSwitches(stdinOptions("--spill-threshold", "1000", "--fast-start"));
+        Application.checkStdinSwitches(stdinOptions("--output-format", "dense", "--async-output"));
 
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> Application.checkStdinSwitches(stdinOptions("--async-output", "--output-format", "sparse")));
+        assertEquals("--async-output and --output-format sparse cannot be combined", e.getMessage());
+        assertThrows(IllegalArgumentException.class,
+                () -> Application.checkStdinSwitches(stdinOptions("--spill-threshold", "1000", "--async-output")));
+    }
+
+    private static CommandLineOptions stdinOptions(String... args) {
+        return CommandLineOptions.parse(args);
+    }
+}
@@ -0,0 +1,116 @@
+package com.stocktax.application.pipeline;
+
+import com.stocktax.domain.model.Operation;
+import com.stocktax.domain.ports.MetricsPort;
+import com.stocktax.domain.ports.SpillPort;
+import com.stocktax.infrastructure.metrics.MetricsRegistry;
+import com.stocktax.infrastructure.offheap.OffHeapOperationStore;
+import com.stocktax.infrastructure.offheap.OffHeapSpill;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControllerTest {
+
+    private static final List<Operation> SET = Collections.nCopies(10,
+            new Operation("buy", new BigDecimal("10.00"), 100));
+    private static final long SET_BYTES = AdmissionController.estimateBytes(SET);
+
+    @Test
+    void testReaderBlocksUntilMemoryIsReleased() throws Exception {
+        MetricsRegistry metrics = new MetricsRegistry();
+        AdmissionController admission = new AdmissionController(SET_BYTES * 2, SET_BYTES,
+                AdmissionController.OversizedSets.REJECT, SpillPort.HEAP, metrics);
+        admission.admit(SET);
+        admission.admit(SET);
+
+        CompletableFuture<List<Operation>> third = CompletableFuture.supplyAsync(() -> {
+            try {
+                return admission.admit(SET);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(100);
+        assertFalse(third.isDone());
+
+        admission.release();
+        assertSame(SET, third.get(10, TimeUnit.SECONDS));
+        assertEquals(SET_BYTES * 2, admission.getInFlightBytes());
+        assertEquals(1, metrics.getCount(MetricsPort.Counter.ADMISSION_WAITS));
+    }
+
+    @Test
+    void testSetLargerThanBudgetIsAdmittedAlone() throws IOException {
+        AdmissionController admission = new AdmissionController(SET_BYTES / 2, Long.MAX_VALUE,
+                AdmissionController.OversizedSets.REJECT, SpillPort.HEAP, MetricsPort.DISABLED);
+
+        assertSame(SET, admission.admit(SET));
+        assertEquals(SET_BYTES, admission.getInFlightBytes());
+    }
+
+    @Test
+    void testOversizedSetIsRejectedOrSpilled() throws IOException {
+        AdmissionController rejecting = new AdmissionController(Long.MAX_VALUE, SET_BYTES - 1,
+                AdmissionController.OversizedSets.REJECT, SpillPort.HEAP, MetricsPort.DISABLED);
+        assertThrows(IOException.class, () -> rejecting.admit(SET));
+        assertEquals(0, rejecting.getInFlightBytes());
+
+        AdmissionController spilling = new AdmissionController(Long.MAX_VALUE, SET_BYTES - 1,
+                AdmissionController.OversizedSets.SPILL, new OffHeapSpill(), MetricsPort.DISABLED);
+        List<Operation> spilled = spilling.admit(SET);
+        try {
+            assertTrue(spilled instanceof OffHeapOperationStore);
+            assertEquals(SET, spilled);
+        } finally {
+            ((OffHeapOperationStore) spilled).close();
+        }
+    }
+
+    @Test
+    void testSetsAlreadyOffHeapAreChargedTheirNativeMemory() throws IOException {
+        OffHeapSpill spillPort = new OffHeapSpill();
+        AdmissionController admission = new AdmissionController(Long.MAX_VALUE, Long.MAX_VALUE,
+                AdmissionController.OversizedSets.REJECT, spillPort, MetricsPort.DISABLED);
+        try (OffHeapOperationStore store = new OffHeapOperationStore()) {
+            store.addAll(SET);
+            store.seal();
+
+            assertSame(store, admission.admit(store));
+            assertEquals(spillPort.spilledBytes(), admission.getInFlightBytes());
+        }
+    }
+
+    @Test
+    void testSpillPolicyNeedsASpillPort() {
+        assertThrows(IllegalArgumentException.class, () -> new AdmissionController(Long.MAX_VALUE, SET_BYTES,
+                AdmissionController.OversizedSets.SPILL, SpillPort.HEAP, MetricsPort.DISABLED));
+    }
+
+    @Test
+    void testCancelWakesWaitingReader() throws Exception {
+        AdmissionController admission = new AdmissionController(SET_BYTES, SET_BYTES,
+                AdmissionController.OversizedSets.REJECT, SpillPort.HEAP, MetricsPort.DISABLED);
+        admission.admit(SET);
+
+        CompletableFuture<List<Operation>> blocked = CompletableFuture.supplyAsync(() -> {
+            try {
+                return admission.admit(SET);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(50);
+        admission.cancel();
+
+        Exception e = assertThrows(Exception.class, () -> blocked.get(10, TimeUnit.SECONDS));
+        assertTrue(e.getCause().getCause() instanceof IOException);
+    }
+}
@@ -0,0 +1,202 @@
+package com.stocktax.application.pipeline;
+
+import com.stocktax.application.TaxCalculationService;
+import com.stocktax.domain.TaxCalculator;
+import com.stocktax.domain.model.Operation;
+import com.stocktax.domain.model.TaxCalculation;
+import com.stocktax.domain.ports.InputPort;
+import com.stocktax.domain.ports.MetricsPort;
+import com.stocktax.domain.ports.SpillPort;
+import com.stocktax.infrastructure.adapters.MockInputAdapter;
+import com.stocktax.infrastructure.adapters.MockOutputAdapter;
+import com.stocktax.infrastructure.offheap.OffHeapSpill;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelineRunnerTest {
+
+    private TaxCalculationService taxCalculationService;
+    private MockOutputAdapter mockOutputAdapter;
+
+    @BeforeEach
+    void setUp() {
+        taxCalculationService = new TaxCalculationService(new TaxCalculator());
+        mockOutputAdapter = new MockOutputAdapter();
+    }
+
+    @ParameterizedTest
+    @EnumSource(WaitStrategy.class)
+    void testOutputKeepsInputOrder(WaitStrategy waitStrategy) throws IOException {
+        List<List<Operation>> operations = new ArrayList<>();
+        for (int i = 1; i <= 500; i++) {
+            // set i is taxed (i * 10000 - 5000) * 0.20, so every set has a distinct result
+            operations.add(Arrays.asList(
+                    new Operation("buy", new BigDecimal("10.00"), 1000),
+                    new Operation("sell", BigDecimal.valueOf(10L * i + 5).setScale(2), 1000)));
+        }
+
+        new PipelineRunner(taxCalculationService, new MockInputAdapter(operations), mockOutputAdapter,
+                3, 4, waitStrategy).run();
+
+        List<List<TaxCalculation>> written = mockOutputAdapter.getWrittenCalculations();
+        assertEquals(500, written.size());
+        for (int i = 0; i < written.size(); i++) {
+            assertEquals(taxCalculationService.calculateTaxes(operations.get(i)), written.get(i), "set " + (i + 1));
+        }
+    }
+
+    @Test
+    void testEmptyInputWritesNothing() throws IOException {
+        new PipelineRunner(taxCalculationService, new MockInputAdapter(List.of()), mockOutputAdapter,
+                2, 8, WaitStrategy.PARK).run();
+
+        assertTrue(mockOutputAdapter.getWrittenCalculations().isEmpty());
+    }
+
+    @Test
+    void testCalculationFailureReportsSetIndex() {
+        List<List<Operation>> operations = Arrays.asList(
+                Arrays.asList(new Operation("buy", new BigDecimal("10.00"), 100)),
+                Arrays.asList(new Operation("sell", new BigDecimal("10.00"), 100)));
+
+        PipelineRunner runner = new PipelineRunner(taxCalculationService, new MockInputAdapter(operations),
+                mockOutputAdapter, 2, 8, WaitStrategy.YIELD);
+
+        IOException e = assertThrows(IOException.class, runner::run);
+        assertEquals("Failed to process operation set 2", e.getMessage());
+    }
+
+    @Test
+    void testInputFailureIsRethrown() {
+        InputPort failingInput = () -> {
+            throw new IOException("broken input");
+        };
+
+        PipelineRunner runner = new PipelineRunner(taxCalculationService, failingInput, mockOutputAdapter,
+                2, 8, WaitStrategy.PARK);
+
+        IOException e = assertThrows(IOException.class, runner::run);
+        assertEquals("broken input", e.getMessage());
+    }
+
+    @Test
+    void testInputIteratorIsClosedWhenTheRunStopsEarly() {
+        ClosingIterator sets = new ClosingIterator();
+        InputPort input = new InputPort() {
+            @Override
+            public List<List<Operation>> readOperations() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Iterator<List<Operation>> operationSets() {
+                return sets;
+            }
+        };
+
+        PipelineRunner runner = new PipelineRunner(taxCalculationService, input, mockOutputAdapter,
+                2, 4, WaitStrategy.PARK);
+
+        assertThrows(IOException.class, runner::run);
+        assertTrue(sets.closed);
+    }
+
+    @Test
+    void testSmallMemoryBudgetKeepsOutput() throws IOException {
+        List<List<Operation>> operations = taxedSets(200);
+        // room for about two sets at a time
+        AdmissionController admission = new AdmissionController(700, 700,
+                AdmissionController.OversizedSets.REJECT, SpillPort.HEAP, MetricsPort.DISABLED);
+
+        new PipelineRunner(taxCalculationService, new MockInputAdapter(operations), mockOutputAdapter,
+                3, 4, WaitStrategy.PARK, admission).run();
+
+        List<List<TaxCalculation>> written = mockOutputAdapter.getWrittenCalculations();
+        assertEquals(200, written.size());
+        for (int i = 0; i < written.size(); i++) {
+            assertEquals(taxCalculationService.calculateTaxes(operations.get(i)), written.get(i), "set " + (i + 1));
+        }
+        assertEquals(0, admission.getInFlightBytes());
+    }
+
+    @Test
+    void testOversizedSetsAreSpilled() throws IOException {
+        List<List<Operation>> operations = taxedSets(20);
+        AdmissionController admission = new AdmissionController(1 << 20, 100,
+                AdmissionController.OversizedSets.SPILL, new OffHeapSpill(), MetricsPort.DISABLED);
+
+        new PipelineRunner(taxCalculationService, new MockInputAdapter(operations), mockOutputAdapter,
+                2, 4, WaitStrategy.YIELD, admission).run();
+
+        List<List<TaxCalculation>> written = mockOutputAdapter.getWrittenCalculations();
+        assertEquals(20, written.size());
+        for (int i = 0; i < written.size(); i++) {
+            assertEquals(taxCalculationService.calculateTaxes(operations.get(i)), written.get(i), "set " + (i + 1));
+        }
+    }
+
+    @Test
+    void testOversizedSetIsRejectedWithSetIndex() {
+        List<List<Operation>> operations = Arrays.asList(
+                Arrays.asList(new Operation("buy", new BigDecimal("10.00"), 100)),
+                Arrays.asList(new Operation("buy", new BigDecimal("10.00"), 100),
+                        new Operation("sell", new BigDecimal("20.00"), 100)));
+        AdmissionController admission = new AdmissionController(1 << 20, 300,
+                AdmissionController.OversizedSets.REJECT, SpillPort.HEAP, MetricsPort.DISABLED);
+
+        PipelineRunner runner = new PipelineRunner(taxCalculationService, new MockInputAdapter(operations),
+                mockOutputAdapter, 2, 8, WaitStrategy.PARK, admission);
+
+        IOException e = assertThrows(IOException.class, runner::run);
+        assertTrue(e.getMessage().startsWith("Failed to process operation set 2: "), e.getMessage());
+    }
+
+    private static List<List<Operation>> taxedSets(int count) {
+        List<List<Operation>> operations = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            operations.add(Arrays.asList(
+                    new Operation("buy", new BigDecimal("10.00"), 1000),
+                    new Operation("sell", BigDecimal.valueOf(10L * i + 5).setScale(2), 1000)));
+        }
+        return operations;
+    }
+
+    /**
+     * Fails the first set and never runs out, so only a stop on failure ends the parser
+     */
+    private static final class ClosingIterator implements Iterator<List<Operation>>, Closeable {
+
+        private int index;
+        private volatile boolean closed;
+
+        @Override
+        public boolean hasNext() {
+            return true;
+        }
+
+        @Override
+        public List<Operation> next() {
+            if (index++ == 0) {
+                return Arrays.asList(new Operation("sell", new BigDecimal("10.00"), 100));
+            }
+            return Arrays.asList(new Operation("buy", new BigDecimal("10.00"), 100));
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.stocktax.application.pipeline;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpscRingBufferTest {
+
+    @Test
+    void testCapacityIsRoundedUpToPowerOfTwo() {
+        assertEquals(8, new SpscRingBuffer<String>(5).capacity());
+        assertEquals(1, new SpscRingBuffer<String>(1).capacity());
+    }
+
+    @Test
+    void testOfferFailsWhenFullAndPollReturnsInOrder() {
+        SpscRingBuffer<Integer> buffer = new SpscRingBuffer<>(2);
+
+        assertTrue(buffer.offer(1));
+        assertTrue(buffer.offer(2));
+        assertFalse(buffer.offer(3));
+        assertEquals(2, buffer.size());
+
+        assertEquals(1, buffer.poll());
+        assertTrue(buffer.offer(3));
+        assertEquals(2, buffer.poll());
+        assertEquals(3, buffer.poll());
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    void testConcurrentProducerAndConsumerSeeEveryElementOnce() throws InterruptedException {
+        SpscRingBuffer<Integer> buffer = new SpscRingBuffer<>(16);
+        int count = 100_000;
+
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                while (!buffer.offer(i)) {
+                    Thread.yield();
+                }
+            }
+        });
+        producer.start();
+
+        for (int expected = 0; expected < count; expected++) {
+            Integer value;
+            while ((value = buffer.poll()) == null) {
+                Thread.yield();
+            }
+            assertEquals(expected, value);
+        }
+        producer.join();
+        assertNull(buffer.poll());
+    }
+}
@@ -0,0 +1,194 @@
+package com.stocktax.application.reactive;
+
+import com.stocktax.application.TaxCalculationService;
+import com.stocktax.domain.TaxCalculator;
+import com.stocktax.domain.model.Operation;
+import com.stocktax.domain.model.TaxCalculation;
+import com.stocktax.domain.ports.InputPort;
+import com.stocktax.infrastructure.adapters.MockOutputAdapter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaxCalculationProcessorTest {
+
+    private TaxCalculationService taxCalculationService;
+
+    @BeforeEach
+    void setUp() {
+        taxCalculationService = new TaxCalculationService(new TaxCalculator());
+    }
+
+    @Test
+    void testRunnerWritesAllResultsInOrder() throws IOException {
+        List<List<Operation>> operations = profitableSets(100);
+        MockOutputAdapter output = new MockOutputAdapter();
+
+        long written = new ReactiveRunner(taxCalculationService, () -> operations, output, 4).run();
+
+        assertEquals(100, written);
+        List<List<TaxCalculation>> results = output.getWrittenCalculations();
+        for (int i = 0; i < operations.size(); i++) {
+            assertEquals(taxCalculationService.calculateTaxes(operations.get(i)), results.get(i));
+        }
+    }
+
+    @Test
+    void testParsingIsThrottledByOutputDemand() throws Exception {
+        AtomicInteger parsed = new AtomicInteger();
+        InputPort countingInput = new InputPort() {
+            @Override
+            public List<List<Operation>> readOperations() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Iterator<List<Operation>> operationSets() {
+                Iterator<List<Operation>> sets = profitableSets(1000).iterator();
+                return new Iterator<>() {
+                    public boolean hasNext() {
+                        return sets.hasNext();
+                    }
+
+                    public List<Operation> next() {
+                        parsed.incrementAndGet();
+                        return sets.next();
+                    }
+                };
+            }
+        };
+        TaxCalculationProcessor processor = taxCalculationService.asProcessor();
+        List<List<TaxCalculation>> received = new ArrayList<>();
+        Flow.Subscription[] subscription = new Flow.Subscription[1];
+        processor.subscribe(new Flow.Subscriber<>() {
+            public void onSubscribe(Flow.Subscription s) {
+                subscription[0] = s;
+                s.request(3);
+            }
+
+            public void onNext(List<TaxCalculation> item) {
+                received.add(item);
+            }
+
+            public void onError(Throwable throwable) {
+                fail(throwable);
+            }
+
+            public void onComplete() {
+            }
+        });
+
+        // run the publisher on the calling thread so demand accounting is observable synchronously
+        new InputPortPublisher(countingInput, Runnable::run).subscribe(processor);
+
+        assertEquals(3, parsed.get());
+        assertEquals(3, received.size());
+
+        subscription[0].request(2);
+        assertEquals(5, parsed.get());
+    }
+
+    @Test
+    void testCalculationFailureIsSignalledWithSetIndex() {
+        List<List<Operation>> operations = Arrays.asList(
+                profitableSets(1).get(0),
+                Arrays.asList(new Operation("sell", new BigDecimal("10.00"), 100)));
+
+        IOException e = assertThrows(IOException.class,
+                () -> new ReactiveRunner(taxCalculationService, () -> operations, new MockOutputAdapter(), 4).run());
+
+        assertEquals("Failed to process operation set 2", e.getMessage());
+    }
+
+    @Test
+    void testWorksWithSubmissionPublisher() throws Exception {
+        TaxCalculationProcessor processor = taxCalculationService.asProcessor();
+        MockOutputAdapter output = new MockOutputAdapter();
+        OutputPortSubscriber subscriber = new OutputPortSubscriber(output, 2);
+        processor.subscribe(subscriber);
+
+        try (SubmissionPublisher<List<Operation>> publisher = new SubmissionPublisher<>()) {
+            publisher.subscribe(processor);
+            for (List<Operation> set : profitableSets(10)) {
+                publisher.submit(set);
+            }
+        }
+
+        assertEquals(10L, subscriber.getCompletion().get());
+        assertEquals(10, output.getWrittenCalculations().size());
+    }
+
+    @Test
+    void testSecondSubscriberIsRejected() {
+        TaxCalculationProcessor processor = taxCalculationService.asProcessor();
+        processor.subscribe(new OutputPortSubscriber(new MockOutputAdapter(), 1));
+        OutputPortSubscriber second = new OutputPortSubscriber(new MockOutputAdapter(), 1);
+
+        processor.subscribe(second);
+
+        assertTrue(second.getCompletion().isCompletedExceptionally());
+    }
+
+    @Test
+    void testNonPositiveRequestIsSignalledAsError() {
+        TaxCalculationProcessor processor = taxCalculationService.asProcessor();
+        AtomicBoolean upstreamCancelled = new AtomicBoolean();
+        processor.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+                upstreamCancelled.set(true);
+            }
+        });
+        List<Throwable> errors = new ArrayList<>();
+
+        processor.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(0);
+            }
+
+            @Override
+            public void onNext(List<TaxCalculation> item) {
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                errors.add(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0) instanceof IllegalArgumentException);
+        assertTrue(upstreamCancelled.get());
+    }
+
+    private static List<List<Operation>> profitableSets(int count) {
+        List<List<Operation>> operations = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            operations.add(Arrays.asList(
+                    new Operation("buy", new BigDecimal("10.00"), 1000),
+                    new Operation("sell", BigDecimal.valueOf(10L * i + 30).setScale(2), 1000)));
+        }
+        return operations;
+    }
+}
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 
 import com.stocktax.domain.model.Operation;
 import com.stocktax.domain.model.TaxCalculation;
+import com.stocktax.domain.model.TaxSummary;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
@@ -120,4 +121,38 @@ class TaxCalculatorTest {
         assertEquals(BigDecimal.ZERO, results.get(0).getTax()); // Buy
         assertEquals(new BigDecimal("10000.0000"), results.get(1).getTax()); // 20% of 50,000 profit
     }
+    
+    @Test
+    void testSummaryMatchesPerOperationResults() {
+        List<Operation> operations = Arrays.asList(
+            new Operation("buy", new BigDecimal("10.00"), 10000),
+            new Operation("sell", new BigDecimal("20.00"), 5000),  // Tax: 10,000
+            new Operation("buy", new BigDecimal("25.00"), 5000),   // Average: 17.50
+            new Operation("sell", new BigDecimal("5.00"), 1000),   // Loss: 12,500
+            new Operation("sell", new BigDecimal("30.00"), 2000)   // Profit 25,000 - 12,500 loss
+        );
+        
+        TaxSummary summary = taxCalculator.summarize(operations);
+        
+        assertEquals(5, summary.getOperationCount());
+        assertEquals(2, summary.getTaxedSellCount());
+        assertEquals(new BigDecimal("12500.0000"), summary.getTotalTax());
+        assertEquals(7000, summary.getFinalPosition().getTotalQuantity());
+        assertEquals(new BigDecimal("17.50"), summary.getFinalPosition().getWeightedAveragePrice());
+        assertEquals(BigDecimal.ZERO, summary.getFinalPosition().getAccumulatedLosses());
+    }
+    
+    @Test
+    void testSummaryKeepsRemainingLosses() {
+        List<Operation> operations = Arrays.asList(
+            new Operation("buy", new BigDecimal("20.00"), 2000),
+            new Operation("sell", new BigDecimal("10.00"), 1000)  // Loss: 10,000
+        );
+        
+        TaxSummary summary = taxCalculator.summarize(operations);
+        
+        assertEquals(0, summary.getTaxedSellCount());
+        assertEquals(BigDecimal.ZERO, summary.getTotalTax());
+        assertEquals(new BigDecimal("10000.00"), summary.getFinalPosition().getAccumulatedLosses());
+    }
 }
@@ -0,0 +1,153 @@
+package com.stocktax.domain.engine;
+
+import com.stocktax.domain.TaxCalculator;
+import com.stocktax.domain.TaxEngine;
+import com.stocktax.domain.model.Operation;
+import com.stocktax.domain.model.TaxCalculation;
+import com.stocktax.domain.model.TaxSummary;
+import com.stocktax.infrastructure.config.ApplicationConfig;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FifoTaxEngineTest {
+
+    private final FifoTaxEngine engine = new FifoTaxEngine();
+
+    @Test
+    void testSaleConsumesOldestLotsFirst() {
+        List<Operation> operations = List.of(
+                new Operation("buy", new BigDecimal("10.00"), 1000),
+                new Operation("buy", new BigDecimal("20.00"), 1000),
+                new Operation("sell", new BigDecimal("30.00"), 1500));
+
+        // 45000.00 - (1000 * 10.00 + 500 * 20.00) = 25000.00; the average cost would give 22500.00
+        assertEquals("5000.0000", engine.calculateTaxes(operations).get(2).getTax().toString());
+        assertEquals("4500.0000", new TaxCalculator().calculateTaxes(operations).get(2).getTax().toString());
+    }
+
+    @Test
+    void testLossesCarryForwardAcrossLots() {
+        List<TaxCalculation> taxes = engine.calculateTaxes(List.of(
+                new Operation("buy", new BigDecimal("10.00"), 1000),
+                new Operation("buy", new BigDecimal("20.00"), 1000),
+                new Operation("sell", new BigDecimal("30.00"), 1500),
+                // below the threshold: 500 * (10.00 - 20.00) is carried as a loss
+                new Operation("sell", new BigDecimal("10.00"), 500),
+                new Operation("buy", new BigDecimal("10.00"), 1000),
+                new Operation("sell", new BigDecimal("40.00"), 1000)));
+
+        assertEquals(BigDecimal.ZERO, taxes.get(3).getTax());
+        // 40000.00 - 10000.00 - 5000.00 carried loss
+        assertEquals("5000.0000", taxes.get(5).getTax().toString());
+    }
+
+    @Test
+    void testRejectsOversell() {
+        List<Operation> oversell = List.of(
+                new Operation("buy", new BigDecimal("10.00"), 10),
+                new Operation("sell", new BigDecimal("10.00"), 11));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> engine.calculateTaxes(oversell));
+        assertEquals("Cannot sell more stocks than available", e.getMessage());
+    }
+
+    @Test
+    void testMatchesLotByLotModel() {
+        Random random = new Random(50);
+        for (int run = 0; run < 200; run++) {
+            List<Operation> operations = new ArrayList<>();
+            long held = 0;
+            for (int i = 0; i < 300; i++) {
+                BigDecimal price = random.nextInt(50) == 0
+                        ? new BigDecimal("92233720368547758.07").add(BigDecimal.valueOf(random.nextInt(100)))
+                        : BigDecimal.valueOf(100 + random.nextInt(5000), random.nextInt(4));
+                if (held == 0 || random.nextInt(5) < 2) {
+                    int quantity = 1 + random.nextInt(2000);
+                    operations.add(new Operation("buy", price, quantity));
+                    held += quantity;
+                } else {
+                    int quantity = 1 + random.nextInt((int) Math.min(held, 5000));
+                    operations.add(new Operation("sell", price, quantity));
+                    held -= quantity;
+                }
+            }
+            assertEquals(lotByLot(operations), engine.calculateTaxes(operations), "run " + run);
+        }
+    }
+
+    @Test
+    void testSummaryKeepsOpenLots() {
+        TaxSummary summary = engine.summarize(List.of(
+                new Operation("buy", new BigDecimal("10.00"), 1000),
+                new Operation("buy", new BigDecimal("20.00"), 1000),
+                new Operation("sell", new BigDecimal("30.00"), 1500)));
+
+        assertEquals(1, summary.getTaxedSellCount());
+        assertEquals(new BigDecimal("5000.0000"), summary.getTotalTax());
+        assertEquals(500, summary.getFinalPosition().getTotalQuantity());
+        assertEquals(new BigDecimal("20.00"), summary.getFinalPosition().getWeightedAveragePrice());
+    }
+
+    @Test
+    void testAutoEngineLeavesFifoOut() {
+        assertEquals(TaxEngine.CostBasis.FIFO, engine.getCostBasis());
+        assertEquals(FifoTaxEngine.NAME, ApplicationConfig.createTaxEngine("fifo").getName());
+
+        AutoTaxEngine auto = new AutoTaxEngine(List.of(engine, new TaxCalculator()));
+        assertEquals(List.of(TaxCalculator.NAME),
+                auto.getEngines().stream().map(TaxEngine::getName).collect(Collectors.toList()));
+        assertThrows(IllegalArgumentException.class, () -> new AutoTaxEngine(List.of(engine)));
+    }
+
+    /**
+     * Straightforward FIFO with a lot object per buy
+     */
+    private static List<TaxCalculation> lotByLot(List<Operation> operations) {
+        ArrayDeque<BigDecimal[]> lots = new ArrayDeque<>();
+        BigDecimal losses = BigDecimal.ZERO;
+        List<TaxCalculation> taxes = new ArrayList<>();
+        for (Operation operation : operations) {
+            if (operation.isBuy()) {
+                lots.add(new BigDecimal[] {BigDecimal.valueOf(operation.getQuantity()), operation.getUnitCost()});
+                taxes.add(new TaxCalculation(BigDecimal.ZERO));
+                continue;
+            }
+            BigDecimal remaining = BigDecimal.valueOf(operation.getQuantity());
+            BigDecimal cost = BigDecimal.ZERO;
+            while (remaining.signum() > 0) {
+                BigDecimal[] lot = lots.peek();
+                BigDecimal taken = lot[0].min(remaining);
+                cost = cost.add(lot[1].multiply(taken));
+                remaining = remaining.subtract(taken);
+                lot[0] = lot[0].subtract(taken);
+                if (lot[0].signum() == 0) {
+                    lots.poll();
+                }
+            }
+            BigDecimal profit = operation.getTotalAmount().subtract(cost);
+            if (!TaxCalculator.exceedsThreshold(operation) || profit.signum() <= 0) {
+                if (profit.signum() < 0) {
+                    losses = losses.add(profit.negate());
+                }
+                taxes.add(new TaxCalculation(BigDecimal.ZERO));
+            } else if (profit.compareTo(losses) >= 0) {
+                BigDecimal taxable = losses.signum() == 0 ? profit : profit.subtract(losses);
+                losses = BigDecimal.ZERO;
+                taxes.add(new TaxCalculation(TaxCalculator.taxOn(taxable)));
+            } else {
+                losses = losses.subtract(profit);
+                taxes.add(new TaxCalculation(TaxCalculator.taxOn(BigDecimal.ZERO)));
+            }
+        }
+        return taxes;
+    }
+}
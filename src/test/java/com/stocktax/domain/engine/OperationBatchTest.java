@@ -0,0 +1,65 @@
+package com.stocktax.domain.engine;
+
+import com.stocktax.domain.model.Operation;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OperationBatchTest {
+
+    @Test
+    void testThresholdFlagsRespectEachScale() {
+        OperationBatch batch = new OperationBatch(OperationBatch.CAPACITY);
+
+        batch.load(List.of(
+                new Operation("sell", new BigDecimal("20"), 1000),
+                new Operation("sell", new BigDecimal("20.0"), 1001),
+                new Operation("sell", new BigDecimal("20.00"), 1000),
+                new Operation("sell", new BigDecimal("20.0001"), 1000)), 0);
+
+        assertEquals(4, batch.size());
+        assertArrayEquals(new long[] {20_000L, 200_200L, 2_000_000L, 200_001_000L},
+                Arrays.copyOf(batch.amounts, 4));
+        assertFalse(batch.aboveThreshold[0]);
+        assertTrue(batch.aboveThreshold[1]);
+        assertFalse(batch.aboveThreshold[2]);
+        assertTrue(batch.aboveThreshold[3]);
+    }
+
+    @Test
+    void testLoadsInChunks() {
+        List<Operation> operations = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            operations.add(new Operation("buy", BigDecimal.valueOf(i + 1, 2), 1));
+        }
+        OperationBatch batch = new OperationBatch(OperationBatch.CAPACITY);
+
+        batch.load(operations, 2048);
+
+        assertEquals(452, batch.size());
+        assertEquals(2049L, batch.unitCosts[0]);
+    }
+
+    @Test
+    void testOverflowingAmountIsRejected() {
+        OperationBatch batch = new OperationBatch(4);
+        List<Operation> operations = List.of(new Operation("buy", new BigDecimal("999999999999"), Integer.MAX_VALUE));
+
+        assertThrows(ArithmeticException.class, () -> batch.load(operations, 0));
+    }
+
+    @Test
+    void testInvalidOperationsAreRejected() {
+        OperationBatch batch = new OperationBatch(4);
+
+        assertThrows(ArithmeticException.class,
+                () -> batch.load(List.of(new Operation("buy", new BigDecimal("10.00"), 0)), 0));
+        assertThrows(ArithmeticException.class,
+                () -> batch.load(List.of(new Operation("buy", new BigDecimal("10.00001"), 1)), 0));
+    }
+}
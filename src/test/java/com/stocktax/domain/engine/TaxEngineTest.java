@@ -0,0 +1,150 @@
+package com.stocktax.domain.engine;
+
+import com.stocktax.domain.TaxCalculator;
+import com.stocktax.domain.TaxEngine;
+import com.stocktax.domain.model.Operation;
+import com.stocktax.domain.model.TaxCalculation;
+import com.stocktax.infrastructure.config.ApplicationConfig;
+import com.stocktax.infrastructure.offheap.OffHeapOperationStore;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaxEngineTest {
+
+    private static final List<Operation> PROFITABLE = List.of(
+            new Operation("buy", new BigDecimal("10.00"), 10000),
+            new Operation("sell", new BigDecimal("20.00"), 5000));
+
+    private static final List<Operation> HUGE_PRICES = List.of(
+            new Operation("buy", new BigDecimal("123456789012345.67"), 10),
+            new Operation("sell", new BigDecimal("223456789012345.67"), 10));
+
+    @Test
+    void testFixedPointKeepsReferenceScale() {
+        List<TaxCalculation> taxes = new FixedPointTaxEngine().calculateTaxes(PROFITABLE);
+
+        assertEquals("0", taxes.get(0).getTax().toString());
+        assertEquals("10000.0000", taxes.get(1).getTax().toString());
+    }
+
+    @Test
+    void testFixedPointFallsBackOutsideItsRange() {
+        FixedPointTaxEngine engine = new FixedPointTaxEngine();
+
+        assertFalse(engine.supports(HUGE_PRICES));
+        assertEquals(new TaxCalculator().calculateTaxes(HUGE_PRICES), engine.calculateTaxes(HUGE_PRICES));
+    }
+
+    @Test
+    void testFixedPointRejectsOversell() {
+        List<Operation> oversell = List.of(
+                new Operation("buy", new BigDecimal("10.00"), 10),
+                new Operation("sell", new BigDecimal("10.00"), 11));
+
+        assertThrows(IllegalArgumentException.class, () -> new FixedPointTaxEngine().calculateTaxes(oversell));
+    }
+
+    @Test
+    void testSegmentParallelMatchesReferenceOnLongSet() {
+        List<Operation> operations = new ArrayList<>();
+        Random random = new Random(43);
+        int held = 0;
+        while (operations.size() < 50_000) {
+            BigDecimal price = BigDecimal.valueOf(500 + random.nextInt(3000), 2);
+            if (held == 0 || random.nextInt(3) > 0) {
+                int quantity = 1 + random.nextInt(5000);
+                operations.add(new Operation("buy", price, quantity));
+                held += quantity;
+            } else {
+                // sells everything now and then, which is where segments start
+                int quantity = random.nextInt(4) == 0 ? held : 1 + random.nextInt(held);
+                operations.add(new Operation("sell", price, quantity));
+                held -= quantity;
+            }
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            SegmentParallelTaxEngine engine = new SegmentParallelTaxEngine(new TaxCalculator(), 1000, pool);
+
+            assertTrue(engine.supports(operations));
+            assertEquals(toStrings(new TaxCalculator().calculateTaxes(operations)),
+                    toStrings(engine.calculateTaxes(operations)));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testSegmentParallelRejectsOversellAndSkipsShortSets() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            List<Operation> oversell = List.of(
+                    new Operation("buy", new BigDecimal("10.00"), 10),
+                    new Operation("sell", new BigDecimal("10.00"), 11));
+
+            assertThrows(IllegalArgumentException.class,
+                    () -> new SegmentParallelTaxEngine(new TaxCalculator(), 0, pool).calculateTaxes(oversell));
+            assertFalse(new SegmentParallelTaxEngine(new TaxCalculator(), 1000, pool).supports(PROFITABLE));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testSegmentParallelCopiesOffHeapSetsBeforeForking() {
+        // fully sold every three operations, so the set splits into many segments
+        List<Operation> operations = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            BigDecimal unitCost = BigDecimal.valueOf(1000 + (i * 37) % 5000, 2);
+            operations.add(new Operation("buy", unitCost, 2000));
+            operations.add(new Operation("sell", unitCost.add(BigDecimal.valueOf(i % 7 - 3)), 1000));
+            operations.add(new Operation("sell", unitCost.add(BigDecimal.ONE), 1000));
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        // a few records per buffer, so reads page through windows of the spill file
+        try (OffHeapOperationStore store = new OffHeapOperationStore(256)) {
+            store.addAll(operations);
+            store.seal();
+
+            SegmentParallelTaxEngine engine = new SegmentParallelTaxEngine(new TaxCalculator(), 100, pool);
+            assertTrue(engine.supports(store));
+            assertEquals(new TaxCalculator().calculateTaxes(operations), engine.calculateTaxes(store));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testAutoPicksFastestSupportingEngine() {
+        AutoTaxEngine auto = new AutoTaxEngine(List.of(new TaxCalculator(), new FixedPointTaxEngine()));
+
+        assertEquals(FixedPointTaxEngine.NAME, auto.select(PROFITABLE).getName());
+        assertEquals(TaxCalculator.NAME, auto.select(HUGE_PRICES).getName());
+    }
+
+    @Test
+    void testEnginesAreDiscoveredByName() {
+        assertEquals(TaxCalculator.NAME, ApplicationConfig.createTaxEngine("reference").getName());
+        assertEquals(FixedPointTaxEngine.NAME, ApplicationConfig.createTaxEngine("fixed-point").getName());
+
+        TaxEngine auto = ApplicationConfig.createTaxEngine("auto");
+        assertEquals(SegmentParallelTaxEngine.NAME, ApplicationConfig.createTaxEngine("segment-parallel").getName());
+        assertEquals(3, ((AutoTaxEngine) auto).getEngines().size());
+        assertThrows(IllegalArgumentException.class, () -> ApplicationConfig.createTaxEngine("missing"));
+    }
+
+    private static List<String> toStrings(List<TaxCalculation> taxes) {
+        List<String> strings = new ArrayList<>(taxes.size());
+        for (TaxCalculation tax : taxes) {
+            strings.add(tax.getTax().toString());
+        }
+        return strings;
+    }
+}
@@ -0,0 +1,151 @@
+package com.stocktax.domain.fuzz;
+
+import com.stocktax.domain.TaxCalculator;
+import com.stocktax.domain.model.Operation;
+import com.stocktax.domain.model.TaxCalculation;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Runs random operation sets through the reference {@link TaxCalculator} and a candidate
+ * engine and reports the first disagreement, shrunk to a minimal set.
+ * <p>
+ * Taxes are compared by their {@link BigDecimal#toString()}, which is what ends up in the
+ * output, so a candidate must also match the scale of every result. A set the reference
+ * rejects with an exception must be rejected by the candidate as well.
+ */
+public class DifferentialFuzzer {
+
+    private final Function<List<Operation>, List<TaxCalculation>> reference;
+
+    public DifferentialFuzzer() {
+        this(new TaxCalculator()::calculateTaxes);
+    }
+
+    public DifferentialFuzzer(Function<List<Operation>, List<TaxCalculation>> reference) {
+        this.reference = reference;
+    }
+
+    public Optional<Mismatch> run(Function<List<Operation>, List<TaxCalculation>> candidate, long seed,
+            long iterations) {
+        OperationSequenceGenerator generator = new OperationSequenceGenerator(seed);
+        for (long i = 0; i < iterations; i++) {
+            List<Operation> operations = generator.next();
+            if (!agree(candidate, operations)) {
+                return Optional.of(shrink(candidate, operations, seed, i));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private boolean agree(Function<List<Operation>, List<TaxCalculation>> candidate, List<Operation> operations) {
+        return Objects.equals(outcome(reference, operations), outcome(candidate, operations));
+    }
+
+    private static String outcome(Function<List<Operation>, List<TaxCalculation>> engine,
+            List<Operation> operations) {
+        List<TaxCalculation> taxes;
+        try {
+            taxes = engine.apply(operations);
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            return "rejected";
+        }
+        StringBuilder result = new StringBuilder();
+        for (TaxCalculation tax : taxes) {
+            result.append(tax.getTax()).append(',');
+        }
+        return result.toString();
+    }
+
+    /**
+     * Greedy shrinking: drop chunks of operations, halving the chunk size down to single
+     * operations, then simplify quantities and unit costs, as long as the engines still disagree
+     */
+    private Mismatch shrink(Function<List<Operation>, List<TaxCalculation>> candidate, List<Operation> failing,
+            long seed, long iteration) {
+        List<Operation> current = new ArrayList<>(failing);
+        boolean progress = true;
+        while (progress) {
+            progress = false;
+            for (int chunk = Math.max(1, current.size() / 2); chunk >= 1; chunk /= 2) {
+                for (int from = 0; from + chunk <= current.size(); ) {
+                    List<Operation> smaller = new ArrayList<>(current.subList(0, from));
+                    smaller.addAll(current.subList(from + chunk, current.size()));
+                    if (!smaller.isEmpty() && !agree(candidate, smaller)) {
+                        current = smaller;
+                        progress = true;
+                    } else {
+                        from += chunk;
+                    }
+                }
+            }
+            for (int i = 0; i < current.size(); i++) {
+                for (Operation simpler : simplifications(current.get(i))) {
+                    List<Operation> attempt = new ArrayList<>(current);
+                    attempt.set(i, simpler);
+                    if (!agree(candidate, attempt)) {
+                        current = attempt;
+                        progress = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return new Mismatch(seed, iteration, failing.size(), current, outcome(reference, current),
+                outcome(candidate, current));
+    }
+
+    private static List<Operation> simplifications(Operation operation) {
+        String type = operation.isBuy() ? "buy" : "sell";
+        List<Operation> simpler = new ArrayList<>();
+        if (operation.getQuantity() > 1) {
+            simpler.add(new Operation(type, operation.getUnitCost(), operation.getQuantity() / 2));
+        }
+        BigDecimal unitCost = operation.getUnitCost();
+        if (unitCost.scale() > 0) {
+            BigDecimal rounded = unitCost.setScale(unitCost.scale() - 1, RoundingMode.DOWN);
+            if (rounded.signum() > 0) {
+                simpler.add(new Operation(type, rounded, operation.getQuantity()));
+            }
+        }
+        return simpler;
+    }
+
+    public static final class Mismatch {
+
+        private final long seed;
+        private final long iteration;
+        private final int originalSize;
+        private final List<Operation> operations;
+        private final String expected;
+        private final String actual;
+
+        Mismatch(long seed, long iteration, int originalSize, List<Operation> operations, String expected,
+                String actual) {
+            this.seed = seed;
+            this.iteration = iteration;
+            this.originalSize = originalSize;
+            this.operations = operations;
+            this.expected = expected;
+            this.actual = actual;
+        }
+
+        public List<Operation> getOperations() {
+            return operations;
+        }
+
+        @Override
+        public String toString() {
+            return "Engines disagree on iteration " + iteration + " of seed " + seed + ", shrunk from "
+                    + originalSize + " to " + operations.size() + " operations: " + operations
+                    + System.lineSeparator() + "  expected: " + expected
+                    + System.lineSeparator() + "  actual:   " + actual;
+        }
+    }
+}
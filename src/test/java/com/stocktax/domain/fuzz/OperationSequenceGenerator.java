@@ -0,0 +1,88 @@
+package com.stocktax.domain.fuzz;
+
+import com.stocktax.domain.model.Operation;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Random operation sets biased towards the places engines disagree: unit costs with 0 to 3
+ * decimals, weighted averages that need rounding, sells right at the 20000 threshold, long
+ * loss carry-forward runs and the occasional oversell.
+ */
+class OperationSequenceGenerator {
+
+    private static final int[] THRESHOLD_DIVISORS = {1, 2, 4, 5, 8, 10, 16, 20, 25, 40, 50, 80, 100, 125, 200};
+
+    private final Random random;
+
+    OperationSequenceGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    List<Operation> next() {
+        int length = random.nextInt(4) == 0 ? 1 + random.nextInt(200) : 1 + random.nextInt(12);
+        List<Operation> operations = new ArrayList<>(length);
+        long held = 0;
+        for (int i = 0; i < length; i++) {
+            boolean buy = held == 0 ? random.nextInt(20) != 0 : random.nextBoolean();
+            if (buy) {
+                int quantity = quantity();
+                operations.add(new Operation("buy", unitCost(), quantity));
+                held += quantity;
+            } else {
+                operations.add(sell(held));
+                held -= Math.min(held, operations.get(i).getQuantity());
+            }
+        }
+        return operations;
+    }
+
+    private Operation sell(long held) {
+        if (random.nextInt(8) == 0) {
+            // exactly at the threshold: taxed only above it
+            int divisor = THRESHOLD_DIVISORS[random.nextInt(THRESHOLD_DIVISORS.length)];
+            return new Operation("sell", BigDecimal.valueOf(20000L / divisor), divisor);
+        }
+        int quantity;
+        if (held > 0 && random.nextInt(50) != 0) {
+            quantity = 1 + (int) (random.nextDouble() * held);
+        } else {
+            // oversell; both engines must reject it
+            quantity = (int) held + 1 + random.nextInt(10);
+        }
+        return new Operation("sell", unitCost(), quantity);
+    }
+
+    private int quantity() {
+        switch (random.nextInt(4)) {
+        case 0:
+            return 1 + random.nextInt(10);
+        case 1:
+            return 1 + random.nextInt(1000);
+        case 2:
+            return 1 + random.nextInt(100_000);
+        default:
+            return 1 + random.nextInt(10_000_000);
+        }
+    }
+
+    private BigDecimal unitCost() {
+        int scale = random.nextInt(8) == 0 ? random.nextInt(4) : 2;
+        long unscaled;
+        switch (random.nextInt(3)) {
+        case 0:
+            unscaled = 1 + random.nextInt(100);
+            break;
+        case 1:
+            unscaled = 1 + random.nextInt(100_000);
+            break;
+        default:
+            unscaled = 1 + (long) (random.nextDouble() * 1_000_000_000L);
+            break;
+        }
+        return BigDecimal.valueOf(unscaled, scale);
+    }
+}
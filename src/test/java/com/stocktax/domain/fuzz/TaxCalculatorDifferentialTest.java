@@ -0,0 +1,151 @@
+package com.stocktax.domain.fuzz;
+
+import com.stocktax.domain.TaxCalculator;
+import com.stocktax.domain.engine.AutoTaxEngine;
+import com.stocktax.domain.engine.FixedPointTaxEngine;
+import com.stocktax.domain.engine.SegmentParallelTaxEngine;
+import com.stocktax.domain.model.Operation;
+import com.stocktax.domain.model.TaxCalculation;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Differential suite for alternative engines. The build runs a modest number of iterations;
+ * for a long run use e.g. {@code mvn test -Dtest=TaxCalculatorDifferentialTest
+ * -Dstocktax.fuzz.iterations=5000000 -Dstocktax.fuzz.seed=123}.
+ */
+class TaxCalculatorDifferentialTest {
+
+    private static final long ITERATIONS = Long.getLong("stocktax.fuzz.iterations", 20_000L);
+    private static final long SEED = Long.getLong("stocktax.fuzz.seed", System.nanoTime());
+
+    private final DifferentialFuzzer fuzzer = new DifferentialFuzzer();
+
+    @Test
+    void testReusedCalculatorKeepsNoStateBetweenSets() {
+        assertAgrees(new TaxCalculator()::calculateTaxes);
+    }
+
+    @Test
+    void testFixedPointEngineAgrees() {
+        assertAgrees(new FixedPointTaxEngine()::calculateTaxes);
+    }
+
+    @Test
+    void testAutoEngineAgrees() {
+        assertAgrees(new AutoTaxEngine(List.of(new TaxCalculator(), new FixedPointTaxEngine()))::calculateTaxes);
+    }
+
+    @Test
+    void testSegmentParallelEngineAgrees() {
+        // every set goes the parallel way, with tasks as small as single segments
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertAgrees(new SegmentParallelTaxEngine(new TaxCalculator(), 0, pool)::calculateTaxes);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testIndependentRewriteAgrees() {
+        assertAgrees(new RoundingVariant(RoundingMode.HALF_UP)::calculateTaxes);
+    }
+
+    @Test
+    void testDetectsAndShrinksHalfEvenAveraging() {
+        Optional<DifferentialFuzzer.Mismatch> mismatch = fuzzer.run(
+                new RoundingVariant(RoundingMode.HALF_EVEN)::calculateTaxes, 1L, 100_000L);
+
+        assertTrue(mismatch.isPresent());
+        // two buys to need an average, a sell to expose it
+        assertTrue(mismatch.get().getOperations().size() <= 4, mismatch.get().toString());
+    }
+
+    @Test
+    void testDetectsTaxWithoutScale() {
+        Function<List<Operation>, List<TaxCalculation>> stripped = operations -> {
+            List<TaxCalculation> taxes = new ArrayList<>();
+            for (TaxCalculation tax : new TaxCalculator().calculateTaxes(operations)) {
+                taxes.add(new TaxCalculation(tax.getTax().stripTrailingZeros()));
+            }
+            return taxes;
+        };
+
+        Optional<DifferentialFuzzer.Mismatch> mismatch = fuzzer.run(stripped, 1L, 100_000L);
+
+        assertTrue(mismatch.isPresent());
+        assertTrue(mismatch.get().getOperations().size() <= 2, mismatch.get().toString());
+    }
+
+    private void assertAgrees(Function<List<Operation>, List<TaxCalculation>> candidate) {
+        fuzzer.run(candidate, SEED, ITERATIONS).ifPresent(mismatch -> fail(mismatch.toString()));
+    }
+
+    /**
+     * Independent rewrite of the reference rules with a configurable weighted-average
+     * rounding mode; with HALF_UP it must be indistinguishable from the reference
+     */
+    private static final class RoundingVariant {
+
+        private static final BigDecimal THRESHOLD = new BigDecimal("20000.00");
+        private static final BigDecimal RATE = new BigDecimal("0.20");
+
+        private final RoundingMode roundingMode;
+
+        RoundingVariant(RoundingMode roundingMode) {
+            this.roundingMode = roundingMode;
+        }
+
+        List<TaxCalculation> calculateTaxes(List<Operation> operations) {
+            List<TaxCalculation> taxes = new ArrayList<>();
+            int held = 0;
+            BigDecimal average = BigDecimal.ZERO;
+            BigDecimal losses = BigDecimal.ZERO;
+            for (Operation operation : operations) {
+                BigDecimal quantity = BigDecimal.valueOf(operation.getQuantity());
+                if (operation.isBuy()) {
+                    average = held == 0 ? operation.getUnitCost()
+                            : average.multiply(BigDecimal.valueOf(held)).add(operation.getTotalAmount())
+                                    .divide(BigDecimal.valueOf(held + operation.getQuantity()), 2, roundingMode);
+                    held += operation.getQuantity();
+                    taxes.add(new TaxCalculation(BigDecimal.ZERO));
+                    continue;
+                }
+                if (operation.getQuantity() > held) {
+                    throw new IllegalArgumentException("Oversell");
+                }
+                BigDecimal profit = operation.getTotalAmount().subtract(average.multiply(quantity));
+                held -= operation.getQuantity();
+                if (operation.getTotalAmount().compareTo(THRESHOLD) <= 0 || profit.signum() <= 0) {
+                    if (profit.signum() < 0) {
+                        losses = losses.add(profit.abs());
+                    }
+                    taxes.add(new TaxCalculation(BigDecimal.ZERO));
+                    continue;
+                }
+                BigDecimal taxable;
+                if (losses.signum() == 0) {
+                    taxable = profit;
+                } else if (profit.compareTo(losses) >= 0) {
+                    taxable = profit.subtract(losses);
+                    losses = BigDecimal.ZERO;
+                } else {
+                    losses = losses.subtract(profit);
+                    taxable = BigDecimal.ZERO;
+                }
+                taxes.add(new TaxCalculation(taxable.multiply(RATE)));
+            }
+            return taxes;
+        }
+    }
+}
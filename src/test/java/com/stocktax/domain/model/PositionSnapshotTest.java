@@ -0,0 +1,55 @@
+package com.stocktax.domain.model;
+
+import com.stocktax.domain.TaxCalculator;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PositionSnapshotTest {
+
+    @Test
+    void testEmptyPositionSharesOneSnapshot() {
+        assertSame(PositionSnapshot.EMPTY, new StockPosition().snapshot());
+    }
+
+    @Test
+    void testCompactSnapshotPreservesScales() {
+        PositionSnapshot snapshot = PositionSnapshot.of(1500, new BigDecimal("16.67"), new BigDecimal("500.0000"));
+
+        assertTrue(snapshot.isCompact());
+        assertEquals(1500, snapshot.getTotalQuantity());
+        assertEquals("16.67", snapshot.getWeightedAveragePrice().toString());
+        assertEquals("500.0000", snapshot.getAccumulatedLosses().toString());
+        assertEquals(snapshot, PositionSnapshot.fromPacked(snapshot.getPacked(),
+                snapshot.getPackedAveragePrice(), snapshot.getPackedAccumulatedLosses()));
+    }
+
+    @Test
+    void testOversizedValuesFallBackToBigDecimal() {
+        BigDecimal huge = new BigDecimal("123456789012345678901234567890.12");
+        PositionSnapshot snapshot = PositionSnapshot.of(7, huge, BigDecimal.ZERO);
+
+        assertFalse(snapshot.isCompact());
+        assertEquals(huge, snapshot.getWeightedAveragePrice());
+        assertEquals(BigDecimal.ZERO, snapshot.getAccumulatedLosses());
+        assertEquals(7, snapshot.getTotalQuantity());
+    }
+
+    @Test
+    void testRestoredPositionContinuesLikeTheOriginal() {
+        TaxCalculator calculator = new TaxCalculator();
+        StockPosition original = new StockPosition();
+        calculator.calculateTaxForOperation(new Operation("buy", new BigDecimal("10.00"), 10000), original);
+        calculator.calculateTaxForOperation(new Operation("sell", new BigDecimal("2.00"), 5000), original);
+
+        StockPosition restored = original.snapshot().toStockPosition();
+        assertEquals(original, restored);
+
+        Operation sell = new Operation("sell", new BigDecimal("20.00"), 3000);
+        assertEquals(calculator.calculateTaxForOperation(sell, original).getTax().toString(),
+                calculator.calculateTaxForOperation(sell, restored).getTax().toString());
+        assertEquals(original.snapshot(), restored.snapshot());
+    }
+}
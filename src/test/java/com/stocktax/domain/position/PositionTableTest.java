@@ -0,0 +1,76 @@
+package com.stocktax.domain.position;
+
+import com.stocktax.domain.model.PositionSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PositionTableTest {
+
+    @Test
+    void testPutGetAndRemove() {
+        PositionTable table = new PositionTable();
+        PositionSnapshot snapshot = PositionSnapshot.of(100, new BigDecimal("12.34"), new BigDecimal("5.0"));
+
+        assertNull(table.get(42L));
+        table.put(42L, snapshot);
+        assertEquals(1, table.size());
+        assertEquals(snapshot, table.get(42L));
+        assertEquals("5.0", table.get(42L).getAccumulatedLosses().toString());
+
+        assertTrue(table.remove(42L));
+        assertFalse(table.remove(42L));
+        assertNull(table.get(42L));
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    void testOversizedSnapshotsAreKeptAndReplaced() {
+        PositionTable table = new PositionTable();
+        PositionSnapshot big = PositionSnapshot.of(1, new BigDecimal("12345678901234567890123.45"), BigDecimal.ZERO);
+        assertFalse(big.isCompact());
+        PositionSnapshot small = PositionSnapshot.of(1, BigDecimal.ONE, BigDecimal.ZERO);
+
+        table.put(-1L, big);
+        assertEquals(big, table.get(-1L));
+        table.put(-1L, small);
+        assertEquals(small, table.get(-1L));
+        table.put(-1L, big);
+        assertTrue(table.remove(-1L));
+        assertNull(table.get(-1L));
+    }
+
+    @Test
+    void testMatchesHashMapUnderRandomUpdates() {
+        PositionTable table = new PositionTable(4);
+        Map<Long, PositionSnapshot> expected = new HashMap<>();
+        Random random = new Random(40);
+
+        for (int i = 0; i < 200_000; i++) {
+            long account = random.nextInt(5_000);
+            int action = random.nextInt(4);
+            if (action == 0) {
+                assertEquals(expected.remove(account) != null, table.remove(account));
+            } else if (action == 1) {
+                assertEquals(expected.get(account), table.get(account));
+            } else {
+                PositionSnapshot snapshot = random.nextInt(100) == 0
+                        ? PositionSnapshot.of(random.nextInt(1000), new BigDecimal("99999999999999999999999.99"), BigDecimal.ZERO)
+                        : PositionSnapshot.of(random.nextInt(1000), BigDecimal.valueOf(random.nextInt(100_000), 2),
+                                BigDecimal.valueOf(random.nextInt(100_000), random.nextInt(5)));
+                expected.put(account, snapshot);
+                table.put(account, snapshot);
+            }
+        }
+
+        assertEquals(expected.size(), table.size());
+        for (Map.Entry<Long, PositionSnapshot> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), table.get(entry.getKey()));
+        }
+    }
+}
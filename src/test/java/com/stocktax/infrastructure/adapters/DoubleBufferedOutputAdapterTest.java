@@ -0,0 +1,101 @@
+package com.stocktax.infrastructure.adapters;
+
+import com.stocktax.domain.model.TaxCalculation;
+import com.stocktax.domain.ports.MetricsPort;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DoubleBufferedOutputAdapterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final JsonOutputAdapter dense = new JsonOutputAdapter();
+
+    @Test
+    void testOutputMatchesDenseFormatAcrossSwaps() throws IOException {
+        Random random = new Random(48);
+        List<List<TaxCalculation>> sets = new ArrayList<>();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            // up to 40 taxes per set, so some sets are larger than a whole buffer
+            List<TaxCalculation> set = new ArrayList<>();
+            for (int j = random.nextInt(40); j >= 0; j--) {
+                set.add(new TaxCalculation(random.nextBoolean()
+                        ? BigDecimal.ZERO
+                        : BigDecimal.valueOf(random.nextInt(1_000_000), 4)));
+            }
+            sets.add(set);
+            expected.append(dense.toJson(set)).append('\n');
+        }
+
+        Path file = tempDir.resolve("output.txt");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            try (DoubleBufferedOutputAdapter adapter = new DoubleBufferedOutputAdapter(channel, 256,
+                    MetricsPort.DISABLED)) {
+                for (List<TaxCalculation> set : sets) {
+                    adapter.writeTaxCalculations(set);
+                }
+            }
+        }
+
+        assertEquals(expected.toString(), Files.readString(file, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testWriteFailureIsReported() {
+        GatheringByteChannel broken = new GatheringByteChannel() {
+            @Override
+            public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+                throw new IOException("disk full");
+            }
+
+            @Override
+            public long write(ByteBuffer[] srcs) throws IOException {
+                return write(srcs, 0, srcs.length);
+            }
+
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                throw new IOException("disk full");
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        DoubleBufferedOutputAdapter adapter = new DoubleBufferedOutputAdapter(broken, 16, MetricsPort.DISABLED);
+        List<TaxCalculation> set = List.of(new TaxCalculation(BigDecimal.ZERO));
+
+        IOException e = assertThrows(IOException.class, () -> {
+            try {
+                for (int i = 0; i < 10; i++) {
+                    adapter.writeTaxCalculations(set);
+                }
+            } finally {
+                adapter.close();
+            }
+        });
+        assertTrue(e.getMessage().contains("disk full"), e.getMessage());
+    }
+}
@@ -0,0 +1,53 @@
+package com.stocktax.infrastructure.adapters;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonArrayScannerTest {
+
+    @Test
+    void testBalancedOnlyAfterClosingBracket() {
+        JsonArrayScanner scanner = new JsonArrayScanner();
+
+        scanner.feed("[{\"operation\":\"buy\", \"unit-cost\":10.00, \"quantity\": 100},");
+        assertFalse(scanner.isBalanced());
+        scanner.feed("{\"operation\":\"sell\", \"unit-cost\":15.00, \"quantity\": 50}]");
+        assertTrue(scanner.isBalanced());
+    }
+
+    @Test
+    void testBracketsInsideStringsAreIgnored() {
+        JsonArrayScanner scanner = new JsonArrayScanner();
+
+        scanner.feed("[{\"operation\":\"b]u\\\"y[\"");
+        assertFalse(scanner.isBalanced());
+        scanner.feed("}]");
+        assertTrue(scanner.isBalanced());
+    }
+
+    @Test
+    void testBlankInputIsNotBalanced() {
+        JsonArrayScanner scanner = new JsonArrayScanner();
+
+        scanner.feed("   ");
+        assertFalse(scanner.isBalanced());
+    }
+
+    @Test
+    void testAdapterReadsSetSplitOverManyLines() throws IOException {
+        String input = "[\n{\"operation\":\"buy\", \"unit-cost\":10.00,\n\"quantity\": 100}\n]\n"
+                + "[{\"operation\":\"buy\", \"unit-cost\":10.00, \"quantity\": 10}]\n";
+        JsonInputAdapter adapter = new JsonInputAdapter(
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+
+        List<?> sets = adapter.readOperations();
+
+        assertEquals(2, sets.size());
+    }
+}
@@ -1,18 +1,21 @@
 package com.stocktax.infrastructure.adapters;
 
 import com.stocktax.domain.model.TaxCalculation;
+import com.stocktax.domain.model.TaxSummary;
 import com.stocktax.domain.ports.OutputPort;
+import com.stocktax.domain.ports.SummaryOutputPort;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Mock implementation of OutputPort for testing purposes.
+ * Mock implementation of OutputPort and SummaryOutputPort for testing purposes.
  */
-public class MockOutputAdapter implements OutputPort {
+public class MockOutputAdapter implements OutputPort, SummaryOutputPort {
     
     private final List<List<TaxCalculation>> writtenCalculations;
+    private final List<TaxSummary> writtenSummaries = new ArrayList<>();
     
     public MockOutputAdapter() {
         this.writtenCalculations = new ArrayList<>();
@@ -23,6 +26,15 @@ public class MockOutputAdapter implements OutputPort {
         writtenCalculations.add(new ArrayList<>(taxCalculations));
     }
     
+    @Override
+    public void writeTaxSummary(TaxSummary taxSummary) throws IOException {
+        writtenSummaries.add(taxSummary);
+    }
+    
+    public List<TaxSummary> getWrittenSummaries() {
+        return new ArrayList<>(writtenSummaries);
+    }
+    
     public List<List<TaxCalculation>> getWrittenCalculations() {
         return new ArrayList<>(writtenCalculations);
     }
@@ -0,0 +1,222 @@
+package com.stocktax.infrastructure.adapters;
+
+import com.stocktax.domain.model.Operation;
+import com.stocktax.domain.ports.MetricsPort;
+import com.stocktax.infrastructure.metrics.MetricsRegistry;
+import com.stocktax.workload.WorkloadGenerator;
+import com.stocktax.workload.WorkloadProfile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelFileInputAdapterTest {
+
+    private static final String SET_1 =
+            "[{\"operation\":\"buy\", \"unit-cost\":10.00, \"quantity\": 100},{\"operation\":\"sell\", \"unit-cost\":15.00, \"quantity\": 50}]";
+    private static final String SET_2 =
+            "[{\"operation\":\"buy\", \"unit-cost\":20.00, \"quantity\": 10000},";
+    private static final String SET_2_CONTINUED =
+            "{\"operation\":\"sell\", \"unit-cost\":10.00, \"quantity\": 5000}]";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSplitPointsStartAtSetOpeningLines() throws IOException {
+        Path input = write(SET_1, SET_2, SET_2_CONTINUED, SET_1, "  " + SET_1);
+
+        try (FileChannel channel = FileChannel.open(input)) {
+            List<Long> points = ParallelFileInputAdapter.splitPoints(channel, 8);
+            String content = Files.readString(input);
+            assertEquals(0L, points.get(0));
+            for (long point : points.subList(1, points.size())) {
+                assertEquals('\n', content.charAt((int) point - 1));
+                assertEquals('[', content.substring((int) point).strip().charAt(0));
+                assertNotEquals(SET_2_CONTINUED, content.substring((int) point).lines().findFirst().orElse(""));
+            }
+            assertTrue(points.size() > 1);
+        }
+    }
+
+    @Test
+    void testMatchesSequentialParsingOverGeneratedWorkload() throws IOException {
+        Path input = tempDir.resolve("workload.txt");
+        new WorkloadGenerator(WorkloadProfile.builder().sets(2000).operationsPerSet(1, 40).seed(42).build())
+                .generate(input);
+
+        List<List<Operation>> expected;
+        try (InputStream in = Files.newInputStream(input)) {
+            expected = new JsonInputAdapter(in).readOperations();
+        }
+
+        ParallelFileInputAdapter adapter = smallRanges(input, 4, 1024, MetricsPort.DISABLED);
+        assertEquals(expected, adapter.readOperations());
+
+        List<List<Operation>> iterated = new ArrayList<>();
+        adapter.operationSets().forEachRemaining(iterated::add);
+        assertEquals(expected, iterated);
+    }
+
+    @Test
+    void testMultiLineSetsAcrossRangeBoundaries() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            lines.add(SET_1);
+            lines.add(SET_2);
+            lines.add(SET_2_CONTINUED);
+        }
+        Path input = write(lines.toArray(new String[0]));
+
+        List<List<Operation>> sets = smallRanges(input, 3, 512, MetricsPort.DISABLED).readOperations();
+
+        assertEquals(600, sets.size());
+        assertEquals(2, sets.get(1).size());
+        assertEquals(10000, sets.get(599).get(0).getQuantity());
+    }
+
+    @Test
+    void testEmptyLineEndsTheInput() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            lines.add(SET_1);
+        }
+        lines.add("");
+        for (int i = 0; i < 200; i++) {
+            lines.add(SET_1);
+        }
+        Path input = write(lines.toArray(new String[0]));
+
+        ParallelFileInputAdapter adapter = smallRanges(input, 4, 256, MetricsPort.DISABLED);
+        assertEquals(200, adapter.readOperations().size());
+        Iterator<List<Operation>> sets = adapter.operationSets();
+        int count = 0;
+        while (sets.hasNext()) {
+            sets.next();
+            count++;
+        }
+        assertEquals(200, count);
+    }
+
+    @Test
+    void testClosingTheIteratorEarlyStopsTheParsers() throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            lines.add(SET_1);
+        }
+        Path input = write(lines.toArray(new String[0]));
+
+        Iterator<List<Operation>> sets = smallRanges(input, 4, 1024, MetricsPort.DISABLED)
+                .operationSets();
+        assertTrue(sets.hasNext());
+        sets.next();
+        ((Closeable) sets).close();
+
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (parserThreads() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, parserThreads());
+        // the file is no longer held open
+        Files.delete(input);
+    }
+
+    @Test
+    void testParsersStayABoundedNumberOfRangesAhead() throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 4000; i++) {
+            lines.add(SET_1);
+        }
+        Path input = write(lines.toArray(new String[0]));
+        MetricsRegistry metrics = new MetricsRegistry();
+
+        // 8 ranges of about 500 sets, of which 4 are parsed ahead
+        Iterator<List<Operation>> sets = smallRanges(input, 2, 1024, metrics).operationSets();
+        try {
+            sets.next();
+            Thread.sleep(500);
+            long parsed = metrics.getCount(MetricsPort.Counter.OPERATION_SETS);
+            assertTrue(parsed < 4000, "parsed " + parsed);
+        } finally {
+            ((Closeable) sets).close();
+        }
+    }
+
+    @Test
+    void testInvalidSetFailsTheRead() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            lines.add(SET_1);
+        }
+        lines.add("[{\"operation\":\"buy\", \"unit-cost\":oops}]");
+        Path input = write(lines.toArray(new String[0]));
+
+        ParallelFileInputAdapter adapter = smallRanges(input, 2, 256, MetricsPort.DISABLED);
+        assertThrows(IOException.class, adapter::readOperations);
+    }
+
+    @Test
+    void testRangesStayBelowTheMaximumSize() {
+        Path input = tempDir.resolve("unused.txt");
+        long tenGigabytes = 10L << 30;
+
+        // 160 ranges of 64 MB, so 8 ranges or 512 MB parsed ahead rather than half the file
+        assertEquals(160, new ParallelFileInputAdapter(input, 4).rangeCount(tenGigabytes));
+        // 64 MB ahead across 4 threads: ranges of 8 MB
+        assertEquals(1280, new ParallelFileInputAdapter(input, 4, 64L << 20, MetricsPort.DISABLED)
+                .rangeCount(tenGigabytes));
+        // small files still get 4 ranges per thread, or fewer below the minimum range size
+        assertEquals(16, new ParallelFileInputAdapter(input, 4).rangeCount(100L << 20));
+        assertEquals(2, new ParallelFileInputAdapter(input, 4).rangeCount(2L << 20));
+    }
+
+    @Test
+    void testSmallMaximumRangeSizeMatchesSequentialParsing() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            lines.add(i % 2 == 0 ? SET_1 : SET_2);
+            if (i % 2 == 1) {
+                lines.add(SET_2_CONTINUED);
+            }
+        }
+        Path input = write(lines.toArray(new String[0]));
+
+        List<List<Operation>> expected;
+        try (InputStream in = Files.newInputStream(input)) {
+            expected = new JsonInputAdapter(in).readOperations();
+        }
+
+        // about 20 ranges of at most 1 KB, more than the 8 that 2 threads would otherwise get
+        ParallelFileInputAdapter adapter = new ParallelFileInputAdapter(input, 2, 256, 1024, MetricsPort.DISABLED);
+        assertTrue(adapter.rangeCount(Files.size(input)) > 8);
+        assertEquals(expected, adapter.readOperations());
+    }
+
+    private static ParallelFileInputAdapter smallRanges(Path input, int threads, long minRangeBytes,
+            MetricsPort metrics) {
+        return new ParallelFileInputAdapter(input, threads, minRangeBytes,
+                ParallelFileInputAdapter.MAX_RANGE_BYTES, metrics);
+    }
+
+    private static long parserThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("parallel-parser"))
+                .count();
+    }
+
+    private Path write(String... lines) throws IOException {
+        Path file = tempDir.resolve("input-" + System.nanoTime() + ".txt");
+        Files.write(file, List.of(lines));
+        return file;
+    }
+}
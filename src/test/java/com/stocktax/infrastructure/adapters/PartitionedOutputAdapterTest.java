@@ -0,0 +1,101 @@
+package com.stocktax.infrastructure.adapters;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.stocktax.domain.model.TaxCalculation;
+import com.stocktax.domain.ports.MetricsPort;
+import com.stocktax.infrastructure.offheap.OffHeapTaxStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionedOutputAdapterTest {
+
+    @TempDir
+    Path outputDir;
+
+    private final JsonOutputAdapter dense = new JsonOutputAdapter();
+
+    @Test
+    void testBlocksAreDealtToPartitionsInTurn() throws IOException {
+        List<List<TaxCalculation>> sets = new ArrayList<>();
+        for (int i = 0; i < 23; i++) {
+            sets.add(List.of(new TaxCalculation(BigDecimal.ZERO), new TaxCalculation(new BigDecimal(i + ".00"))));
+        }
+
+        try (PartitionedOutputAdapter adapter = new PartitionedOutputAdapter(outputDir, 3, 2, MetricsPort.DISABLED)) {
+            for (List<TaxCalculation> set : sets) {
+                adapter.writeTaxCalculations(set);
+            }
+            adapter.complete();
+        }
+
+        List<List<String>> partitions = new ArrayList<>();
+        for (int p = 0; p < 3; p++) {
+            partitions.add(Files.readAllLines(outputDir.resolve(PartitionedOutputAdapter.fileName(p))));
+        }
+        int[] next = new int[3];
+        for (int i = 0; i < sets.size(); i++) {
+            int partition = i / 2 % 3;
+            assertEquals(dense.toJson(sets.get(i)), partitions.get(partition).get(next[partition]++), "set " + i);
+        }
+        assertArrayEquals(new int[] {partitions.get(0).size(), partitions.get(1).size(), partitions.get(2).size()},
+                next);
+    }
+
+    @Test
+    void testManifestListsEveryPartition() throws IOException {
+        Path manifest;
+        try (PartitionedOutputAdapter adapter = new PartitionedOutputAdapter(outputDir, 4, 1, MetricsPort.DISABLED)) {
+            for (int i = 0; i < 6; i++) {
+                adapter.writeTaxCalculations(List.of(new TaxCalculation(BigDecimal.ZERO)));
+            }
+            manifest = adapter.complete();
+        }
+
+        JsonNode json = JsonMappers.mapper().readTree(manifest.toFile());
+        assertEquals(4, json.get("partitions").asInt());
+        assertEquals(1, json.get("block-size").asInt());
+        assertEquals(6, json.get("sets").asLong());
+        long[] expectedSets = {2, 2, 1, 1};
+        for (int p = 0; p < 4; p++) {
+            JsonNode file = json.get("files").get(p);
+            assertEquals(PartitionedOutputAdapter.fileName(p), file.get("file").asText());
+            assertEquals(expectedSets[p], file.get("sets").asLong());
+            assertEquals(Files.size(outputDir.resolve(file.get("file").asText())), file.get("bytes").asLong());
+        }
+        assertFalse(Files.exists(outputDir.resolve("." + PartitionedOutputAdapter.MANIFEST + ".tmp")));
+    }
+
+    @Test
+    void testOffHeapResultsAreEncodedBeforeTheCallerClosesThem() throws IOException {
+        try (PartitionedOutputAdapter adapter = new PartitionedOutputAdapter(outputDir, 2)) {
+            OffHeapTaxStore taxes = new OffHeapTaxStore();
+            taxes.add(new TaxCalculation(BigDecimal.ZERO));
+            taxes.add(new TaxCalculation(new BigDecimal("10000.0000")));
+            adapter.writeTaxCalculations(taxes);
+            taxes.close();
+            adapter.complete();
+        }
+
+        assertEquals("[{\"tax\":0},{\"tax\":10000.0000}]\n", Files.readString(
+                outputDir.resolve(PartitionedOutputAdapter.fileName(0)), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testNoManifestWithoutCompletion() throws IOException {
+        try (PartitionedOutputAdapter adapter = new PartitionedOutputAdapter(outputDir, 2)) {
+            adapter.writeTaxCalculations(List.of(new TaxCalculation(BigDecimal.ZERO)));
+        }
+
+        assertFalse(Files.exists(outputDir.resolve(PartitionedOutputAdapter.MANIFEST)));
+    }
+}
@@ -0,0 +1,97 @@
+package com.stocktax.infrastructure.adapters;
+
+import com.stocktax.domain.TaxCalculator;
+import com.stocktax.domain.model.TaxCalculation;
+import com.stocktax.domain.model.Operation;
+import com.stocktax.workload.WorkloadGenerator;
+import com.stocktax.workload.WorkloadProfile;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SparseJsonOutputAdapterTest {
+
+    private final JsonOutputAdapter dense = new JsonOutputAdapter();
+
+    @Test
+    void testWritesOnlyTaxesOtherThanPlainZero() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        SparseJsonOutputAdapter adapter = new SparseJsonOutputAdapter(output);
+
+        adapter.writeTaxCalculations(taxes("0", "10000.0000", "0", "0.0000"));
+        adapter.writeTaxCalculations(taxes("0"));
+        adapter.writeTaxCalculations(List.of());
+
+        assertEquals("{\"length\":4,\"taxes\":[[1,10000.0000],[3,0.0000]]}\n"
+                + "{\"length\":1,\"taxes\":[]}\n"
+                + "{\"length\":0,\"taxes\":[]}\n", output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testDecimalsAreWrittenAsJacksonWritesThem() throws IOException {
+        Random random = new Random(45);
+        List<String> values = new ArrayList<>(List.of("0.0005", "0.0000001", "-12.50", "1E+3", "0E-9", "0E+2",
+                "9223372036854775807.00", "-9223372036854775808", "123456789012345678901234567890.1234"));
+        for (int i = 0; i < 2000; i++) {
+            BigInteger unscaled = BigInteger.valueOf(random.nextLong()).shiftRight(random.nextInt(64));
+            values.add(new BigDecimal(unscaled, random.nextInt(24) - 4).toString());
+        }
+
+        for (String value : values) {
+            List<TaxCalculation> taxes = taxes(value);
+            assertEquals(dense.toJson(taxes), new TaxJsonEncoder().dense(taxes).toString(), value);
+        }
+    }
+
+    @Test
+    void testExpandsBackToTheDenseOutput() throws IOException {
+        StringWriter workload = new StringWriter();
+        new WorkloadGenerator(WorkloadProfile.builder().sets(2000).operationsPerSet(1, 30).seed(46).build())
+                .generate(workload);
+        List<List<Operation>> sets = new JsonInputAdapter(
+                new ByteArrayInputStream(workload.toString().getBytes(StandardCharsets.UTF_8))).readOperations();
+        TaxCalculator calculator = new TaxCalculator();
+        ByteArrayOutputStream sparse = new ByteArrayOutputStream();
+        SparseJsonOutputAdapter adapter = new SparseJsonOutputAdapter(sparse);
+        StringBuilder expected = new StringBuilder();
+        for (List<Operation> operations : sets) {
+            List<TaxCalculation> taxes = calculator.calculateTaxes(operations);
+            adapter.writeTaxCalculations(taxes);
+            expected.append(dense.toJson(taxes)).append('\n');
+        }
+
+        ByteArrayOutputStream expanded = new ByteArrayOutputStream();
+        long count = new SparseOutputExpander().expand(new ByteArrayInputStream(sparse.toByteArray()), expanded);
+
+        assertEquals(sets.size(), count);
+        assertEquals(expected.toString(), expanded.toString(StandardCharsets.UTF_8));
+        assertTrue(sparse.size() < expanded.size());
+    }
+
+    @Test
+    void testExpanderRejectsIndexOutsideTheSet() {
+        byte[] input = "{\"length\":1,\"taxes\":[[1,5.00]]}\n".getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(IOException.class,
+                () -> new SparseOutputExpander().expand(new ByteArrayInputStream(input), new ByteArrayOutputStream()));
+    }
+
+    private static List<TaxCalculation> taxes(String... values) {
+        List<TaxCalculation> taxes = new ArrayList<>();
+        for (String value : values) {
+            taxes.add(new TaxCalculation(new BigDecimal(value)));
+        }
+        return taxes;
+    }
+}
@@ -0,0 +1,152 @@
+package com.stocktax.infrastructure.batch;
+
+import com.stocktax.application.TaxCalculationService;
+import com.stocktax.infrastructure.config.ApplicationConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckpointedBatchRunnerTest {
+
+    private static final String SET_1 = "[{\"operation\":\"buy\", \"unit-cost\":10.00, \"quantity\": 10000},"
+            + "{\"operation\":\"sell\", \"unit-cost\":20.00, \"quantity\": 5000}]";
+    private static final String SET_2 = "[{\"operation\":\"buy\", \"unit-cost\":20.00, \"quantity\": 10000},"
+            + "{\"operation\":\"sell\", \"unit-cost\":10.00, \"quantity\": 5000}]";
+    private static final String SET_3 = "[{\"operation\":\"buy\", \"unit-cost\":10.00, \"quantity\": 100}]";
+
+    @TempDir
+    Path tempDir;
+
+    private TaxCalculationService taxCalculationService;
+    private Path input;
+    private Path output;
+    private Path checkpointFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        taxCalculationService = ApplicationConfig.createTaxCalculationService();
+        input = tempDir.resolve("input.txt");
+        output = tempDir.resolve("output.txt");
+        checkpointFile = tempDir.resolve("output.txt.checkpoint");
+        Files.write(input, List.of(SET_1, SET_2, SET_3), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testRunWritesOneLinePerSetAndFinalCheckpoint() throws IOException {
+        Checkpoint last = runner(2).run();
+
+        List<String> lines = Files.readAllLines(output);
+        assertEquals(List.of("[{\"tax\":0},{\"tax\":10000.0000}]", "[{\"tax\":0},{\"tax\":0}]", "[{\"tax\":0}]"), lines);
+        assertEquals(Files.size(input), last.getInputOffset());
+        assertEquals(3, last.getOutputLines());
+        assertEquals(Files.size(output), last.getOutputBytes());
+        assertEquals(last, Checkpoint.load(checkpointFile));
+    }
+
+    @Test
+    void testResumeDiscardsOutputWrittenAfterCheckpoint() throws IOException {
+        runner(1).run();
+        List<String> expected = Files.readAllLines(output);
+
+        // simulate a crash after the first set: checkpoint covers one line, a torn line follows
+        long firstInputLine = (SET_1 + "\n").getBytes(StandardCharsets.UTF_8).length;
+        long firstOutputLine = (expected.get(0) + "\n").getBytes(StandardCharsets.UTF_8).length;
+        Files.write(output, (expected.get(0) + "\n[{\"tax\":0},{\"ta").getBytes(StandardCharsets.UTF_8));
+        new Checkpoint(InputIdentity.of(input), firstInputLine, 1, firstOutputLine).save(checkpointFile);
+
+        Checkpoint last = runner(1).run();
+
+        assertEquals(expected, Files.readAllLines(output));
+        assertEquals(3, last.getOutputLines());
+    }
+
+    @Test
+    void testRerunAfterCompletionIsIdempotent() throws IOException {
+        runner(10).run();
+        List<String> expected = Files.readAllLines(output);
+
+        runner(10).run();
+
+        assertEquals(expected, Files.readAllLines(output));
+    }
+
+    @Test
+    void testMultiLineSetIsCheckpointedAfterItCompletes() throws IOException {
+        Files.write(input, List.of("[{\"operation\":\"buy\", \"unit-cost\":10.00, \"quantity\": 100},",
+                "{\"operation\":\"sell\", \"unit-cost\":15.00, \"quantity\": 50}]", SET_3), StandardCharsets.UTF_8);
+
+        Checkpoint last = runner(1).run();
+
+        assertEquals(List.of("[{\"tax\":0},{\"tax\":0}]", "[{\"tax\":0}]"), Files.readAllLines(output));
+        assertEquals(Files.size(input), last.getInputOffset());
+    }
+
+    @Test
+    void testEmptyLineEndsInputLikeStdin() throws IOException {
+        Files.write(input, List.of(SET_1, "", SET_2), StandardCharsets.UTF_8);
+
+        Checkpoint last = runner(1).run();
+        runner(1).run();
+
+        assertEquals(List.of("[{\"tax\":0},{\"tax\":10000.0000}]"), Files.readAllLines(output));
+        assertEquals((SET_1 + "\n").getBytes(StandardCharsets.UTF_8).length, last.getInputOffset());
+    }
+
+    @Test
+    void testLinesLongerThanTheReadBufferKeepExactOffsets() throws IOException {
+        StringBuilder longSet = new StringBuilder("[");
+        for (int i = 0; i < 2000; i++) {
+            longSet.append("{\"operation\":\"buy\", \"unit-cost\":10.00, \"quantity\": 1},");
+        }
+        longSet.append("{\"operation\":\"sell\", \"unit-cost\":10.00, \"quantity\": 1}]");
+        Files.write(input, List.of(longSet.toString(), SET_3), StandardCharsets.UTF_8);
+
+        Checkpoint last = runner(1).run();
+
+        assertEquals(2, last.getOutputLines());
+        assertEquals(Files.size(input), last.getInputOffset());
+    }
+
+    @Test
+    void testRefusesToResumeWhenOutputIsShorterThanCheckpoint() throws IOException {
+        new Checkpoint(InputIdentity.of(input), 10, 1, 100).save(checkpointFile);
+        Files.write(output, new byte[0], StandardOpenOption.CREATE);
+
+        assertThrows(IOException.class, () -> runner(1).run());
+    }
+
+    @Test
+    void testRefusesToResumeAgainstAChangedInput() throws IOException {
+        runner(1).run();
+        List<String> expected = Files.readAllLines(output);
+        Files.write(input, List.of(SET_3, SET_2, SET_1), StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(input, FileTime.fromMillis(Files.getLastModifiedTime(input).toMillis() + 1000));
+
+        IOException e = assertThrows(IOException.class, () -> runner(1).run());
+        assertTrue(e.getMessage().contains("refusing to resume"), e.getMessage());
+        assertEquals(expected, Files.readAllLines(output));
+    }
+
+    @Test
+    void testRefusesToResumeACheckpointWithoutInput() throws IOException {
+        runner(1).run();
+        Checkpoint last = Checkpoint.load(checkpointFile);
+        new Checkpoint(null, last.getInputOffset(), last.getOutputLines(), last.getOutputBytes()).save(checkpointFile);
+
+        assertThrows(IOException.class, () -> runner(1).run());
+    }
+
+    private CheckpointedBatchRunner runner(int interval) {
+        return new CheckpointedBatchRunner(taxCalculationService, input, output, checkpointFile, interval);
+    }
+}
@@ -0,0 +1,69 @@
+package com.stocktax.infrastructure.batch;
+
+import com.stocktax.infrastructure.config.ApplicationConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DirectoryBatchRunnerTest {
+
+    private static final String PROFIT = "[{\"operation\":\"buy\", \"unit-cost\":10.00, \"quantity\": 10000},"
+            + "{\"operation\":\"sell\", \"unit-cost\":20.00, \"quantity\": 5000}]";
+    private static final String LOSS = "[{\"operation\":\"buy\", \"unit-cost\":20.00, \"quantity\": 10000},"
+            + "{\"operation\":\"sell\", \"unit-cost\":10.00, \"quantity\": 5000}]";
+
+    @TempDir
+    Path tempDir;
+
+    private Path inputDir;
+    private Path outputDir;
+    private FileProcessor fileProcessor;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        inputDir = Files.createDirectories(tempDir.resolve("in"));
+        outputDir = tempDir.resolve("out");
+        fileProcessor = new FileProcessor(ApplicationConfig.createTaxCalculationService());
+    }
+
+    @Test
+    void testEachInputFileGetsMatchingOutputFile() throws IOException {
+        Files.write(inputDir.resolve("customer-a.txt"), List.of(PROFIT), StandardCharsets.UTF_8);
+        Files.write(inputDir.resolve("customer-b.txt"), List.of(LOSS, PROFIT), StandardCharsets.UTF_8);
+        Files.write(inputDir.resolve(".in-flight.tmp"), List.of(PROFIT), StandardCharsets.UTF_8);
+
+        int processed = new DirectoryBatchRunner(fileProcessor, inputDir, outputDir, 2).run();
+
+        assertEquals(2, processed);
+        assertEquals(List.of("[{\"tax\":0},{\"tax\":10000.0000}]"),
+                Files.readAllLines(outputDir.resolve("customer-a.txt")));
+        assertEquals(List.of("[{\"tax\":0},{\"tax\":0}]", "[{\"tax\":0},{\"tax\":10000.0000}]"),
+                Files.readAllLines(outputDir.resolve("customer-b.txt")));
+        assertFalse(Files.exists(outputDir.resolve(".in-flight.tmp")));
+    }
+
+    @Test
+    void testFailedFileDoesNotStopOthers() throws IOException {
+        Files.write(inputDir.resolve("good.txt"), List.of(PROFIT), StandardCharsets.UTF_8);
+        Files.write(inputDir.resolve("bad.txt"), List.of("[{\"operation\":\"buy\""), StandardCharsets.UTF_8);
+
+        DirectoryBatchRunner runner = new DirectoryBatchRunner(fileProcessor, inputDir, outputDir, 2);
+
+        assertThrows(IOException.class, runner::run);
+        assertTrue(Files.exists(outputDir.resolve("good.txt")));
+        assertFalse(Files.exists(outputDir.resolve("bad.txt")));
+    }
+
+    @Test
+    void testEmptyDirectoryProcessesNothing() throws IOException {
+        assertEquals(0, new DirectoryBatchRunner(fileProcessor, inputDir, outputDir, 4).run());
+    }
+}
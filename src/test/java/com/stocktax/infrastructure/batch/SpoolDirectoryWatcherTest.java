@@ -0,0 +1,105 @@
+package com.stocktax.infrastructure.batch;
+
+import com.stocktax.infrastructure.config.ApplicationConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpoolDirectoryWatcherTest {
+
+    private static final String PROFIT = "[{\"operation\":\"buy\", \"unit-cost\":10.00, \"quantity\": 10000},"
+            + "{\"operation\":\"sell\", \"unit-cost\":20.00, \"quantity\": 5000}]";
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    @TempDir
+    Path tempDir;
+
+    private Path spool;
+    private Path outbox;
+    private SpoolDirectoryWatcher watcher;
+    private Thread watcherThread;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        spool = Files.createDirectories(tempDir.resolve("spool"));
+        outbox = tempDir.resolve("outbox");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        watcher.stop();
+        watcherThread.join(TIMEOUT_MILLIS);
+    }
+
+    @Test
+    void testPicksUpFilesPresentAtStartup() throws Exception {
+        Files.write(spool.resolve("early.txt"), List.of(PROFIT), StandardCharsets.UTF_8);
+
+        startWatcher();
+
+        assertEquals(List.of("[{\"tax\":0},{\"tax\":10000.0000}]"), awaitOutput("early.txt"));
+        assertTrue(Files.exists(spool.resolve("processed").resolve("early.txt")));
+    }
+
+    @Test
+    void testPicksUpFileRenamedIntoSpool() throws Exception {
+        startWatcher();
+
+        Path partial = spool.resolve(".late.txt");
+        Files.write(partial, List.of(PROFIT, PROFIT), StandardCharsets.UTF_8);
+        Files.move(partial, spool.resolve("late.txt"), StandardCopyOption.ATOMIC_MOVE);
+
+        assertEquals(2, awaitOutput("late.txt").size());
+        assertFalse(Files.exists(outbox.resolve(".late.txt")));
+    }
+
+    @Test
+    void testInvalidFileIsMovedToFailed() throws Exception {
+        startWatcher();
+
+        Path partial = spool.resolve("broken.txt.part");
+        Files.write(partial, List.of("[{\"operation\":"), StandardCharsets.UTF_8);
+        Files.move(partial, spool.resolve("broken.txt"), StandardCopyOption.ATOMIC_MOVE);
+
+        Path failed = spool.resolve("failed").resolve("broken.txt");
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!Files.exists(failed) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(Files.exists(failed));
+        assertFalse(Files.exists(outbox.resolve("broken.txt")));
+    }
+
+    private void startWatcher() {
+        watcher = new SpoolDirectoryWatcher(new FileProcessor(ApplicationConfig.createTaxCalculationService()),
+                spool, outbox, 2);
+        watcherThread = new Thread(() -> {
+            try {
+                watcher.run();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        watcherThread.start();
+    }
+
+    private List<String> awaitOutput(String name) throws Exception {
+        Path output = outbox.resolve(name);
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!Files.exists(output) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(Files.exists(output), "Expected output " + output);
+        return Files.readAllLines(output);
+    }
+}
@@ -0,0 +1,47 @@
+package com.stocktax.infrastructure.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandLineOptionsTest {
+
+    @Test
+    void testParsesModeAndOptions() {
+        CommandLineOptions options = CommandLineOptions.parse(
+                new String[] {"batch", "--input", "in.txt", "--output=out.txt", "--metrics"});
+
+        assertEquals("batch", options.getMode());
+        assertEquals("in.txt", options.getRequired("input"));
+        assertEquals("out.txt", options.getRequired("output"));
+        assertTrue(options.has("metrics"));
+    }
+
+    @Test
+    void testRejectsOptionTheModeDoesNotRead() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse(
+                new String[] {"batch", "--input", "in.txt", "--checkpoint-intervall", "10"}));
+        assertTrue(e.getMessage().startsWith("Unknown option --checkpoint-intervall for mode batch"), e.getMessage());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> CommandLineOptions.parse(new String[] {"--partitions", "4"}));
+    }
+
+    @Test
+    void testCommonOptionsAreAcceptedEverywhere() {
+        CommandLineOptions options = CommandLineOptions.parse(new String[] {"expand", "--engine", "fifo"});
+
+        assertEquals("fifo", options.get("engine", null));
+    }
+
+    @Test
+    void testChoiceMustBeOneOfTheAcceptedValues() {
+        CommandLineOptions defaults = CommandLineOptions.parse(new String[0]);
+        CommandLineOptions options = CommandLineOptions.parse(new String[] {"--output-format", "sprase"});
+
+        assertEquals("dense", defaults.getChoice("output-format", "dense", "dense", "sparse"));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> options.getChoice("output-format", "dense", "dense", "sparse"));
+        assertEquals("Option --output-format must be one of dense, sparse: sprase", e.getMessage());
+    }
+}
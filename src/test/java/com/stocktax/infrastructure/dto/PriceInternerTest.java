@@ -0,0 +1,70 @@
+package com.stocktax.infrastructure.dto;
+
+import com.stocktax.domain.model.Operation;
+import com.stocktax.domain.ports.MetricsPort;
+import com.stocktax.infrastructure.adapters.JsonInputAdapter;
+import com.stocktax.infrastructure.metrics.MetricsRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceInternerTest {
+
+    @Test
+    void testInternedPriceKeepsValueAndScale() {
+        PriceInterner interner = new PriceInterner(64);
+        Random random = new Random(49);
+        String[] fixed = {"10", "10.00", "10.0", "-15.50", "0.001", "1e3", "1E+3", "2.5E-2", "0",
+                "123456789012345678901234567890.12"};
+        for (int i = 0; i < 5000; i++) {
+            String text = i < fixed.length
+                    ? fixed[i]
+                    : BigDecimal.valueOf(random.nextInt(100_000), random.nextInt(5)).toPlainString();
+            char[] padded = ("[" + text + ",").toCharArray();
+            BigDecimal interned = interner.intern(padded, 1, text.length());
+            BigDecimal expected = new BigDecimal(text);
+            assertEquals(expected, interned, text);
+            assertEquals(expected.scale(), interned.scale(), text);
+        }
+    }
+
+    @Test
+    void testRepeatedPricesShareOneInstance() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        PriceInterner interner = new PriceInterner(16);
+        interner.setMetrics(metrics);
+
+        BigDecimal first = interner.intern("20.00".toCharArray(), 0, 5);
+        BigDecimal second = interner.intern(" 20.00 ".toCharArray(), 1, 5);
+
+        assertSame(first, second);
+        assertNotSame(first, interner.intern("20.0".toCharArray(), 0, 4));
+        assertEquals(1, metrics.getCount(MetricsPort.Counter.PRICE_CACHE_HITS));
+        assertEquals(2, metrics.getCount(MetricsPort.Counter.PRICE_CACHE_MISSES));
+    }
+
+    @Test
+    void testCapacityIsBoundedPowerOfTwo() {
+        assertEquals(1, new PriceInterner(1).capacity());
+        assertEquals(8, new PriceInterner(5).capacity());
+        assertEquals(4096, new PriceInterner(PriceInterner.DEFAULT_CAPACITY).capacity());
+        assertThrows(IllegalArgumentException.class, () -> new PriceInterner(0));
+    }
+
+    @Test
+    void testParsedOperationsShareUnitCosts() throws IOException {
+        List<Operation> operations = new JsonInputAdapter().parseOperations(
+                "[{\"operation\":\"buy\", \"unit-cost\":15.50, \"quantity\": 100},"
+                        + "{\"operation\":\"sell\", \"unit-cost\":15.50, \"quantity\": 50},"
+                        + "{\"operation\":\"sell\", \"unit-cost\":\"15.50\", \"quantity\": 50}]");
+
+        assertSame(operations.get(0).getUnitCost(), operations.get(1).getUnitCost());
+        assertEquals(new BigDecimal("15.50"), operations.get(2).getUnitCost());
+        assertEquals(2, operations.get(2).getUnitCost().scale());
+    }
+}
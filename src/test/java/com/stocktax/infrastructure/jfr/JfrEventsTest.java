@@ -0,0 +1,102 @@
+package com.stocktax.infrastructure.jfr;
+
+import com.stocktax.application.Application;
+import com.stocktax.domain.model.TaxCalculation;
+import com.stocktax.infrastructure.adapters.JsonInputAdapter;
+import com.stocktax.infrastructure.adapters.JsonOutputAdapter;
+import com.stocktax.infrastructure.config.ApplicationConfig;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JfrEventsTest {
+
+    private static final String INPUT =
+            "[{\"operation\":\"buy\", \"unit-cost\":10.00, \"quantity\": 10000},"
+            + "{\"operation\":\"sell\", \"unit-cost\":20.00, \"quantity\": 5000}]\n"
+            + "[{\"operation\":\"buy\", \"unit-cost\":10.00, \"quantity\": 100}]\n";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testEventsAreEmittedPerSetWhenRecording() throws Exception {
+        Path dump = tempDir.resolve("run.jfr");
+        try (Recording recording = new Recording()) {
+            for (String name : List.of("com.stocktax.OperationSet", "com.stocktax.TaxCalculation",
+                    "com.stocktax.Parse", "com.stocktax.Write")) {
+                recording.enable(name).withThreshold(Duration.ZERO);
+            }
+            recording.start();
+
+            new Application(ApplicationConfig.createTaxCalculationService(),
+                    new JsonInputAdapter(new ByteArrayInputStream(INPUT.getBytes(StandardCharsets.UTF_8))),
+                    new JsonOutputAdapter(new StringWriter())).run();
+
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+
+        List<RecordedEvent> sets = named(events, "com.stocktax.OperationSet");
+        assertEquals(2, sets.size());
+        assertEquals(1L, sets.get(0).getLong("setIndex"));
+        assertEquals(2, sets.get(0).getInt("operationCount"));
+        assertEquals(1, sets.get(0).getInt("taxedSellCount"));
+
+        assertEquals(2, named(events, "com.stocktax.TaxCalculation").size());
+
+        List<RecordedEvent> parses = named(events, "com.stocktax.Parse");
+        assertEquals(2, parses.size());
+        assertEquals(INPUT.indexOf('\n'), parses.get(0).getLong("bytesParsed"));
+
+        List<RecordedEvent> writes = named(events, "com.stocktax.Write");
+        assertEquals(2, writes.size());
+        assertEquals("[{\"tax\":0},{\"tax\":10000.0000}]\n".length(), writes.get(0).getLong("bytesWritten"));
+    }
+
+    @Test
+    void testStreamedSetReportsTheBytesItWrote() throws Exception {
+        List<TaxCalculation> taxes = new ArrayList<>();
+        for (int i = 0; i < JsonOutputAdapter.STREAMING_THRESHOLD; i++) {
+            taxes.add(new TaxCalculation(i % 2 == 0 ? BigDecimal.ZERO : new BigDecimal("10.0000")));
+        }
+        Path dump = tempDir.resolve("write.jfr");
+        StringWriter output = new StringWriter();
+        try (Recording recording = new Recording()) {
+            recording.enable("com.stocktax.Write").withThreshold(Duration.ZERO);
+            recording.start();
+
+            new JsonOutputAdapter(output).writeTaxCalculations(taxes);
+
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        List<RecordedEvent> writes = named(RecordingFile.readAllEvents(dump), "com.stocktax.Write");
+        assertEquals(1, writes.size());
+        assertEquals(output.toString().length(), writes.get(0).getLong("bytesWritten"));
+    }
+
+    private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime()))
+                .collect(Collectors.toList());
+    }
+}
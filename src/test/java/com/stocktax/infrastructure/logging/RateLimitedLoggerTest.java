@@ -0,0 +1,79 @@
+package com.stocktax.infrastructure.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitedLoggerTest {
+
+    private Logger logger;
+    private ListAppender<ILoggingEvent> appender;
+
+    @BeforeEach
+    void setUp() {
+        logger = (Logger) LoggerFactory.getLogger("rate-limited-test");
+        appender = new ListAppender<>();
+        appender.start();
+        logger.addAppender(appender);
+        logger.setAdditive(false);
+        logger.setLevel(Level.DEBUG);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+    }
+
+    @Test
+    void testOnlyFirstMessageOfWindowCarriesStackTrace() {
+        RateLimitedLogger limited = new RateLimitedLogger(logger, 3, 1, TimeUnit.HOURS);
+
+        for (int i = 0; i < 10; i++) {
+            limited.error("Failure {}", i, new IOException("boom"));
+        }
+
+        assertEquals(3, appender.list.size());
+        assertNotNull(appender.list.get(0).getThrowableProxy());
+        assertNull(appender.list.get(1).getThrowableProxy());
+        assertEquals("Failure 1: java.io.IOException: boom", appender.list.get(1).getFormattedMessage());
+        assertEquals(7, limited.getSuppressedCount());
+    }
+
+    @Test
+    void testSuppressedCountIsReportedInNextWindow() throws InterruptedException {
+        RateLimitedLogger limited = new RateLimitedLogger(logger, 1, 20, TimeUnit.MILLISECONDS);
+
+        limited.warn("Failure");
+        limited.warn("Failure");
+        limited.warn("Failure");
+        Thread.sleep(40);
+        limited.warn("Failure");
+
+        assertEquals(2, appender.list.size());
+        assertEquals("Failure (2 similar messages suppressed)", appender.list.get(1).getFormattedMessage());
+        assertEquals(0, limited.getSuppressedCount());
+    }
+
+    @Test
+    void testDisabledLevelUsesNoPermits() {
+        logger.setLevel(Level.OFF);
+        RateLimitedLogger limited = new RateLimitedLogger(logger, 1, 1, TimeUnit.HOURS);
+
+        limited.error("Failure", new IOException("boom"));
+        logger.setLevel(Level.DEBUG);
+        limited.error("Failure", new IOException("boom"));
+
+        assertEquals(1, appender.list.size());
+        assertEquals(0, limited.getSuppressedCount());
+    }
+}
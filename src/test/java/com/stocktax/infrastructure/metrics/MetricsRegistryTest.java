@@ -0,0 +1,92 @@
+package com.stocktax.infrastructure.metrics;
+
+import com.stocktax.application.Application;
+import com.stocktax.application.TaxCalculationService;
+import com.stocktax.domain.TaxCalculator;
+import com.stocktax.domain.ports.MetricsPort;
+import com.stocktax.infrastructure.adapters.JsonInputAdapter;
+import com.stocktax.infrastructure.adapters.JsonOutputAdapter;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import javax.management.ObjectName;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRegistryTest {
+
+    private static final String INPUT =
+            "[{\"operation\":\"buy\", \"unit-cost\":10.00, \"quantity\": 10000},"
+            + "{\"operation\":\"sell\", \"unit-cost\":20.00, \"quantity\": 5000},"
+            + "{\"operation\":\"sell\", \"unit-cost\":5.00, \"quantity\": 5000}]\n"
+            + "[{\"operation\":\"buy\", \"unit-cost\":10.00, \"quantity\": 100}]\n";
+
+    @Test
+    void testCountersAndStagesAreRecordedEndToEnd() throws IOException {
+        MetricsRegistry registry = new MetricsRegistry();
+        Application application = new Application(
+                new TaxCalculationService(new TaxCalculator(), registry),
+                new JsonInputAdapter(new ByteArrayInputStream(INPUT.getBytes(StandardCharsets.UTF_8)), registry),
+                new JsonOutputAdapter(new StringWriter(), registry));
+
+        application.run();
+
+        assertEquals(2, registry.getCount(MetricsPort.Counter.OPERATION_SETS));
+        assertEquals(4, registry.getCount(MetricsPort.Counter.OPERATIONS));
+        assertEquals(2, registry.getCount(MetricsPort.Counter.BUYS));
+        assertEquals(2, registry.getCount(MetricsPort.Counter.SELLS));
+        assertEquals(1, registry.getCount(MetricsPort.Counter.TAXED_SELLS));
+        assertEquals(0, registry.getCount(MetricsPort.Counter.ERRORS));
+        for (MetricsPort.Stage stage : MetricsPort.Stage.values()) {
+            assertEquals(2, registry.getLatency(stage).getCount(), stage.name());
+        }
+        assertTrue(registry.report().contains("taxed-sells"));
+    }
+
+    @Test
+    void testHistogramPercentilesStayWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(100_000, histogram.getMaxNanos());
+        assertEquals(50_000, histogram.getValueAtPercentile(50), 50_000 * 0.07);
+        assertEquals(99_000, histogram.getValueAtPercentile(99), 99_000 * 0.07);
+        assertEquals(50_000.5, histogram.getMeanNanos(), 0.001);
+    }
+
+    @Test
+    void testBucketsCoverTheWholeLongRange() {
+        for (long value : new long[] {0, 1, 31, 32, 33, 1023, 1024, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(LatencyHistogram.bucketUpperBound(index) >= value, "value " + value);
+            if (index > 0) {
+                assertTrue(LatencyHistogram.bucketUpperBound(index - 1) < value, "value " + value);
+            }
+        }
+    }
+
+    @Test
+    void testRegistryIsPublishedOverJmx() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.increment(MetricsPort.Counter.ERRORS, 3);
+
+        MetricsJmxPublisher.register(registry);
+
+        Object errors = ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(new ObjectName("com.stocktax:type=Counters"), "Errors");
+        assertEquals(3L, errors);
+    }
+
+    @Test
+    void testDisabledMetricsSkipTheClock() {
+        assertFalse(MetricsPort.DISABLED.isEnabled());
+        assertEquals(0L, MetricsPort.DISABLED.startTimer());
+    }
+}
@@ -0,0 +1,216 @@
+package com.stocktax.infrastructure.offheap;
+
+import com.stocktax.application.Application;
+import com.stocktax.application.TaxCalculationService;
+import com.stocktax.domain.TaxCalculator;
+import com.stocktax.domain.engine.FixedPointTaxEngine;
+import com.stocktax.domain.model.Operation;
+import com.stocktax.domain.model.TaxCalculation;
+import com.stocktax.domain.ports.InputPort;
+import com.stocktax.domain.ports.MetricsPort;
+import com.stocktax.infrastructure.adapters.JsonInputAdapter;
+import com.stocktax.infrastructure.adapters.JsonOutputAdapter;
+import com.stocktax.infrastructure.adapters.SpillingJsonInputAdapter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapOperationStoreTest {
+
+    // a few records per buffer, so every test spills and pages through windows
+    private static final int TINY_BUDGET = 256;
+
+    @TempDir
+    Path spillDir;
+
+    @BeforeEach
+    void setUp() {
+        System.setProperty(RecordSpill.DIRECTORY_PROPERTY, spillDir.toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        System.clearProperty(RecordSpill.DIRECTORY_PROPERTY);
+    }
+
+    @Test
+    void testRoundTripsOperationsAcrossSpills() throws IOException {
+        List<Operation> expected = operations(1000);
+
+        try (OffHeapOperationStore store = new OffHeapOperationStore(TINY_BUDGET)) {
+            store.addAll(expected);
+
+            assertEquals(expected, new ArrayList<>(store));
+            // out of order reads move the window back and forth
+            assertEquals(expected.get(3), store.get(3));
+            assertEquals(expected.get(997), store.get(997));
+            assertEquals(expected.get(500), store.get(500));
+
+            store.seal();
+            assertEquals(expected, new ArrayList<>(store));
+        }
+        assertEquals(0, spillFiles());
+    }
+
+    @Test
+    void testSmallSetNeverTouchesDisk() throws IOException {
+        try (OffHeapOperationStore store = new OffHeapOperationStore()) {
+            store.addAll(operations(10));
+            store.seal();
+
+            assertEquals(operations(10), new ArrayList<>(store));
+            assertEquals(0, spillFiles());
+        }
+    }
+
+    @Test
+    void testClosedStoresHandTheirBuffersToTheNextStore() {
+        DirectBufferPool.clear();
+        List<Operation> operations = operations(1000);
+        OffHeapOperationStore first = new OffHeapOperationStore(TINY_BUDGET);
+        first.addAll(operations);
+        first.seal();
+        // sealing a spilled set gives back its write buffer, which its read window then takes
+        assertEquals(1, DirectBufferPool.idleCount());
+        assertEquals(operations.get(0), first.get(0));
+        assertEquals(0, DirectBufferPool.idleCount());
+        first.close();
+        assertEquals(1, DirectBufferPool.idleCount());
+
+        try (OffHeapOperationStore second = new OffHeapOperationStore(TINY_BUDGET)) {
+            second.add(operations.get(0));
+            assertEquals(0, DirectBufferPool.idleCount());
+            assertEquals(operations.get(0), second.get(0));
+        }
+    }
+
+    @Test
+    void testPoolKeepsABoundedNumberOfIdleBuffers() {
+        DirectBufferPool.clear();
+        for (int i = 0; i < DirectBufferPool.MAX_IDLE_BUFFERS * 2; i++) {
+            DirectBufferPool.release(ByteBuffer.allocateDirect(64));
+        }
+        assertEquals(DirectBufferPool.MAX_IDLE_BUFFERS, DirectBufferPool.idleCount());
+        DirectBufferPool.clear();
+    }
+
+    @Test
+    void testTaxStoreKeepsScale() {
+        try (OffHeapTaxStore store = new OffHeapTaxStore(TINY_BUDGET)) {
+            for (int i = 0; i < 100; i++) {
+                store.add(new TaxCalculation(i % 2 == 0 ? BigDecimal.ZERO : new BigDecimal("10000.0000")));
+            }
+
+            assertEquals("0", store.get(0).getTax().toString());
+            assertEquals("10000.0000", store.get(99).getTax().toString());
+        }
+    }
+
+    @Test
+    void testRejectsUnitCostOutsideLongRange() {
+        try (OffHeapOperationStore store = new OffHeapOperationStore()) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> store.add(new Operation("buy", new BigDecimal("123456789012345678901.00"), 1)));
+        }
+    }
+
+    @Test
+    void testSpilledSetsGiveSameOutputAsHeapSets() throws IOException {
+        StringBuilder input = new StringBuilder();
+        for (int set = 0; set < 3; set++) {
+            input.append('[');
+            List<Operation> operations = operations(50 + set * 100);
+            for (int i = 0; i < operations.size(); i++) {
+                Operation operation = operations.get(i);
+                input.append(i > 0 ? "," : "")
+                        .append("{\"operation\":\"").append(operation.isBuy() ? "buy" : "sell")
+                        .append("\", \"unit-cost\":").append(operation.getUnitCost())
+                        .append(", \"quantity\": ").append(operation.getQuantity()).append('}');
+            }
+            input.append("]\n");
+        }
+
+        String expected = run(new JsonInputAdapter(stream(input)));
+        SpillingJsonInputAdapter spilling = new SpillingJsonInputAdapter(stream(input), 100);
+
+        List<List<Operation>> sets = spilling.readOperations();
+        assertFalse(sets.get(0) instanceof OffHeapOperationStore);
+        assertTrue(sets.get(2) instanceof OffHeapOperationStore);
+        sets.forEach(set -> {
+            if (set instanceof OffHeapOperationStore) {
+                ((OffHeapOperationStore) set).close();
+            }
+        });
+
+        assertEquals(expected, run(new SpillingJsonInputAdapter(stream(input), 100)));
+        assertEquals(0, spillFiles());
+    }
+
+    @Test
+    void testEnginesThatBuildResultsOnTheHeapLeaveSpilledSetsToTheReference() throws IOException {
+        List<Operation> operations = operations(1000);
+        TaxCalculationService service = new TaxCalculationService(new FixedPointTaxEngine(), MetricsPort.DISABLED,
+                new OffHeapResultStore());
+
+        try (OffHeapOperationStore store = new OffHeapOperationStore(TINY_BUDGET)) {
+            store.addAll(operations);
+            store.seal();
+            List<TaxCalculation> taxes = service.calculateTaxes(store);
+            try {
+                assertTrue(taxes instanceof OffHeapTaxStore);
+                assertEquals(new TaxCalculator().calculateTaxes(operations), new ArrayList<>(taxes));
+            } finally {
+                ((OffHeapTaxStore) taxes).close();
+            }
+        }
+        assertFalse(service.calculateTaxes(operations) instanceof OffHeapTaxStore);
+        assertEquals(0, spillFiles());
+    }
+
+    private static String run(InputPort input) throws IOException {
+        StringWriter output = new StringWriter();
+        TaxCalculationService service = new TaxCalculationService(new TaxCalculator(), MetricsPort.DISABLED,
+                new OffHeapResultStore());
+        new Application(service, input, new JsonOutputAdapter(output)).run();
+        return output.toString();
+    }
+
+    private static ByteArrayInputStream stream(CharSequence input) {
+        return new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Alternates buys and sells of half the holding, with prices of varying scale
+     */
+    private static List<Operation> operations(int count) {
+        List<Operation> operations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            BigDecimal unitCost = BigDecimal.valueOf(1000 + (i * 37) % 5000, i % 3);
+            operations.add(i % 2 == 0
+                    ? new Operation("buy", unitCost, 1000 + i)
+                    : new Operation("sell", unitCost, 500));
+        }
+        return operations;
+    }
+
+    private long spillFiles() throws IOException {
+        try (Stream<Path> files = Files.list(spillDir)) {
+            return files.count();
+        }
+    }
+}
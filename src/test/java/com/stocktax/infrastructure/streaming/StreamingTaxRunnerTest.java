@@ -0,0 +1,100 @@
+package com.stocktax.infrastructure.streaming;
+
+import com.stocktax.application.Application;
+import com.stocktax.domain.TaxCalculator;
+import com.stocktax.domain.ports.MetricsPort;
+import com.stocktax.infrastructure.adapters.JsonInputAdapter;
+import com.stocktax.infrastructure.adapters.JsonOutputAdapter;
+import com.stocktax.infrastructure.config.ApplicationConfig;
+import com.stocktax.infrastructure.config.CommandLineOptions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingTaxRunnerTest {
+
+    private static final String BUY = "{\"operation\":\"buy\", \"unit-cost\":10.00, \"quantity\": 10000}";
+    private static final String SELL = "{\"operation\":\"sell\", \"unit-cost\":20.00, \"quantity\": 100}";
+
+    @Test
+    void testOutputMatchesApplicationForAllCases() throws IOException {
+        for (int i = 1; i <= 9; i++) {
+            Path input = Paths.get("src/test/resources/inputs/case" + i + ".txt");
+            byte[] bytes = Files.readAllBytes(input);
+
+            StringWriter expected = new StringWriter();
+            new Application(ApplicationConfig.createTaxCalculationService(),
+                    new JsonInputAdapter(new ByteArrayInputStream(bytes)), new JsonOutputAdapter(expected)).run();
+
+            assertEquals(expected.toString(), stream(new ByteArrayInputStream(bytes), 2), input.toString());
+        }
+    }
+
+    @Test
+    void testFirstResultsAreWrittenBeforeSetIsComplete() throws Exception {
+        PipedOutputStream producer = new PipedOutputStream();
+        PipedInputStream input = new PipedInputStream(producer);
+        StringWriter output = new StringWriter();
+        StreamingTaxRunner runner = new StreamingTaxRunner(new TaxCalculator(), input, output, 2, MetricsPort.DISABLED);
+        CompletableFuture<Long> run = CompletableFuture.supplyAsync(() -> {
+            try {
+                return runner.run();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        producer.write(("[" + BUY + "," + SELL + ",").getBytes(StandardCharsets.UTF_8));
+        producer.flush();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!output.toString().equals("[{\"tax\":0},{\"tax\":0}") && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals("[{\"tax\":0},{\"tax\":0}", output.toString());
+
+        producer.write((SELL + "]\n").getBytes(StandardCharsets.UTF_8));
+        producer.close();
+        assertEquals(1L, run.get(10, TimeUnit.SECONDS));
+        assertEquals("[{\"tax\":0},{\"tax\":0},{\"tax\":0}]\n", output.toString());
+    }
+
+    @Test
+    void testRejectsEnginesOtherThanTheReference() {
+        StringWriter output = new StringWriter();
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> ApplicationConfig.createStreamingTaxRunner(output,
+                        CommandLineOptions.parse(new String[] {"stream", "--engine", "fifo"})));
+        assertTrue(e.getMessage().contains("fifo"));
+        assertNotNull(ApplicationConfig.createStreamingTaxRunner(output,
+                CommandLineOptions.parse(new String[] {"stream", "--engine", TaxCalculator.NAME})));
+    }
+
+    @Test
+    void testFailedSetReportsItsIndex() {
+        String input = "[" + BUY + "]\n[" + SELL + "]\n";
+
+        IOException failure = assertThrows(IOException.class,
+                () -> stream(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), 10));
+        assertEquals("Failed to process operation set 2", failure.getMessage());
+    }
+
+    private static String stream(InputStream input, int flushInterval) throws IOException {
+        StringWriter output = new StringWriter();
+        new StreamingTaxRunner(new TaxCalculator(), input, output, flushInterval, MetricsPort.DISABLED).run();
+        return output.toString();
+    }
+}
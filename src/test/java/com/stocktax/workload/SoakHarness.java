@@ -0,0 +1,134 @@
+package com.stocktax.workload;
+
+import com.stocktax.application.Application;
+import com.stocktax.application.TaxCalculationService;
+import com.stocktax.domain.model.TaxCalculation;
+import com.stocktax.domain.ports.OutputPort;
+import com.stocktax.infrastructure.adapters.JsonInputAdapter;
+import com.stocktax.infrastructure.adapters.JsonOutputAdapter;
+import com.stocktax.infrastructure.config.ApplicationConfig;
+import com.stocktax.infrastructure.metrics.LatencyHistogram;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Runs {@link Application} end to end over a generated workload and reports throughput,
+ * per-set latency, peak heap and GC time. Results are serialized and discarded so output
+ * formatting is part of the measurement but the disk is not.
+ * <p>
+ * Run with {@code mvn test -Dtest=SoakHarnessTest -Dstocktax.workload.sets=1000000}, or
+ * through {@link #main} with the test classpath.
+ */
+public class SoakHarness {
+
+    private final TaxCalculationService taxCalculationService;
+
+    public SoakHarness(TaxCalculationService taxCalculationService) {
+        this.taxCalculationService = taxCalculationService;
+    }
+
+    public static void main(String[] args) throws IOException {
+        WorkloadProfile profile = WorkloadProfile.fromSystemProperties();
+        Path input = Files.createTempFile("stocktax-workload", ".txt");
+        try {
+            new WorkloadGenerator(profile).generate(input);
+            System.out.println(profile);
+            System.out.println(new SoakHarness(ApplicationConfig.createTaxCalculationService()).run(input));
+        } finally {
+            Files.deleteIfExists(input);
+        }
+    }
+
+    public SoakReport run(Path input) throws IOException {
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans();
+        long gcTimeBefore = gcTime(collectors);
+        long gcCountBefore = gcCount(collectors);
+        pools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        TimingOutputPort output = new TimingOutputPort(new JsonOutputAdapter(discardingWriter()));
+        long start = System.nanoTime();
+        try (InputStream in = Files.newInputStream(input)) {
+            output.previousWrite = start;
+            new Application(taxCalculationService, new JsonInputAdapter(in), output).run();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        return new SoakReport(output.latencies, output.operations, elapsed, peakHeap(pools),
+                gcTime(collectors) - gcTimeBefore, gcCount(collectors) - gcCountBefore);
+    }
+
+    private static Writer discardingWriter() {
+        return new BufferedWriter(new OutputStreamWriter(OutputStreamDiscard.INSTANCE, StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    private static long gcTime(List<GarbageCollectorMXBean> collectors) {
+        return collectors.stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).filter(t -> t > 0).sum();
+    }
+
+    private static long gcCount(List<GarbageCollectorMXBean> collectors) {
+        return collectors.stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).filter(c -> c > 0).sum();
+    }
+
+    /**
+     * Sum of the per-pool peaks; an upper bound, since pools need not peak together
+     */
+    private static long peakHeap(List<MemoryPoolMXBean> pools) {
+        return pools.stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                .sum();
+    }
+
+    /**
+     * Latency of a set is the time since the previous result was written, which covers
+     * its calculation and serialization. The first set also carries the up-front read of
+     * the input, which shows up as the maximum.
+     */
+    private static final class TimingOutputPort implements OutputPort {
+
+        private final OutputPort delegate;
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private long previousWrite;
+        private long operations;
+
+        TimingOutputPort(OutputPort delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void writeTaxCalculations(List<TaxCalculation> taxCalculations) throws IOException {
+            delegate.writeTaxCalculations(taxCalculations);
+            long now = System.nanoTime();
+            latencies.record(now - previousWrite);
+            previousWrite = now;
+            operations += taxCalculations.size();
+        }
+    }
+
+    private static final class OutputStreamDiscard extends OutputStream {
+
+        static final OutputStreamDiscard INSTANCE = new OutputStreamDiscard();
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+}
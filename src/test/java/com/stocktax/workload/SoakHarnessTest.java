@@ -0,0 +1,39 @@
+package com.stocktax.workload;
+
+import com.stocktax.infrastructure.config.ApplicationConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Small by default so the regular build stays fast; scale it up with the
+ * {@code stocktax.workload.*} properties for a real soak run
+ */
+class SoakHarnessTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(SoakHarnessTest.class);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSoakRunReportsEverySet() throws IOException {
+        WorkloadProfile profile = WorkloadProfile.fromSystemProperties();
+        Path input = tempDir.resolve("workload.txt");
+        new WorkloadGenerator(profile).generate(input);
+
+        SoakReport report = new SoakHarness(ApplicationConfig.createTaxCalculationService()).run(input);
+        logger.debug("{}{}{}", profile, System.lineSeparator(), report);
+
+        assertEquals(profile.getSets(), report.getSets());
+        assertTrue(report.getOperations() >= (long) profile.getSets() * profile.getMinOperationsPerSet());
+        assertTrue(report.getP50Nanos() <= report.getP99Nanos());
+        assertTrue(report.getPeakHeapBytes() > 0);
+    }
+}
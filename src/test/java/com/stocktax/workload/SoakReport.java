@@ -0,0 +1,85 @@
+package com.stocktax.workload;
+
+import com.stocktax.infrastructure.metrics.LatencyHistogram;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of one {@link SoakHarness} run
+ */
+public final class SoakReport {
+
+    private final long sets;
+    private final long operations;
+    private final long elapsedNanos;
+    private final long p50Nanos;
+    private final long p99Nanos;
+    private final long maxNanos;
+    private final long peakHeapBytes;
+    private final long gcTimeMillis;
+    private final long gcCount;
+
+    SoakReport(LatencyHistogram latencies, long operations, long elapsedNanos, long peakHeapBytes,
+            long gcTimeMillis, long gcCount) {
+        this.sets = latencies.getCount();
+        this.operations = operations;
+        this.elapsedNanos = elapsedNanos;
+        this.p50Nanos = latencies.getValueAtPercentile(50);
+        this.p99Nanos = latencies.getValueAtPercentile(99);
+        this.maxNanos = latencies.getMaxNanos();
+        this.peakHeapBytes = peakHeapBytes;
+        this.gcTimeMillis = gcTimeMillis;
+        this.gcCount = gcCount;
+    }
+
+    public long getSets() {
+        return sets;
+    }
+
+    public long getOperations() {
+        return operations;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getOperationsPerSecond() {
+        return elapsedNanos == 0 ? 0 : operations * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    public long getP50Nanos() {
+        return p50Nanos;
+    }
+
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public long getPeakHeapBytes() {
+        return peakHeapBytes;
+    }
+
+    public long getGcTimeMillis() {
+        return gcTimeMillis;
+    }
+
+    public long getGcCount() {
+        return gcCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "sets=%d operations=%d elapsed=%.1fms throughput=%.0f ops/s "
+                        + "set latency p50=%.1fus p99=%.1fus max=%.1fus peak heap=%.1fMB gc=%dms (%d collections)",
+                sets, operations, elapsedNanos / 1e6, getOperationsPerSecond(),
+                p50Nanos / 1e3, p99Nanos / 1e3, maxNanos / 1e3, peakHeapBytes / (1024.0 * 1024.0),
+                gcTimeMillis, gcCount);
+    }
+}
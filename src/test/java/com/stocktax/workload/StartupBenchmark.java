@@ -0,0 +1,106 @@
+package com.stocktax.workload;
+
+import com.stocktax.application.Application;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Starts {@link Application} in a fresh JVM per run and measures time-to-first-output: from
+ * launching the process until the first byte of results arrives on stdout, with the whole
+ * input already waiting on stdin. Time until the process exits is recorded as well.
+ * <p>
+ * Run with {@code mvn test -Dtest=StartupBenchmarkTest -Dstocktax.startup.runs=20}, or
+ * through {@link #main} with the test classpath. Extra JVM options, such as
+ * {@code -XX:SharedArchiveFile=app.jsa}, go in {@code stocktax.startup.jvm-options}.
+ */
+public class StartupBenchmark {
+
+    public static final String SAMPLE_INPUT =
+            "[{\"operation\":\"buy\", \"unit-cost\":10.00, \"quantity\": 10000},"
+                    + "{\"operation\":\"sell\", \"unit-cost\":20.00, \"quantity\": 5000}]\n";
+
+    private final List<String> command = new ArrayList<>();
+    private final Path workingDirectory;
+
+    /**
+     * Runs with the current JVM and classpath; logs the child writes land in the working directory
+     */
+    public StartupBenchmark(List<String> jvmOptions, List<String> arguments, Path workingDirectory) {
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(Application.class.getName());
+        command.addAll(arguments);
+        this.workingDirectory = workingDirectory;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int runs = Integer.getInteger("stocktax.startup.runs", 10);
+        List<String> jvmOptions = jvmOptionsFromSystemProperties();
+        Path directory = Files.createTempDirectory("stocktax-startup");
+        System.out.println("default:    "
+                + new StartupBenchmark(jvmOptions, List.of(), directory).run(SAMPLE_INPUT, runs));
+        System.out.println("fast-start: "
+                + new StartupBenchmark(jvmOptions, List.of("--fast-start"), directory).run(SAMPLE_INPUT, runs));
+    }
+
+    public static List<String> jvmOptionsFromSystemProperties() {
+        String options = System.getProperty("stocktax.startup.jvm-options", "").trim();
+        return options.isEmpty() ? List.of() : Arrays.asList(options.split("\\s+"));
+    }
+
+    public StartupReport run(String input, int runs) throws IOException, InterruptedException {
+        if (runs <= 0) {
+            throw new IllegalArgumentException("Number of runs must be positive");
+        }
+        Path inputFile = Files.createTempFile(workingDirectory, "startup-input", ".txt");
+        try {
+            Files.writeString(inputFile, input);
+            long[] firstOutputNanos = new long[runs];
+            long[] exitNanos = new long[runs];
+            String output = null;
+            for (int i = 0; i < runs; i++) {
+                output = launch(inputFile, firstOutputNanos, exitNanos, i);
+            }
+            return new StartupReport(firstOutputNanos, exitNanos, output);
+        } finally {
+            Files.deleteIfExists(inputFile);
+        }
+    }
+
+    private String launch(Path inputFile, long[] firstOutputNanos, long[] exitNanos, int run)
+            throws IOException, InterruptedException {
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .directory(workingDirectory.toFile())
+                .redirectInput(inputFile.toFile())
+                .redirectError(ProcessBuilder.Redirect.INHERIT);
+        long start = System.nanoTime();
+        Process process = builder.start();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (InputStream stdout = process.getInputStream()) {
+            int first = stdout.read();
+            firstOutputNanos[run] = System.nanoTime() - start;
+            if (first != -1) {
+                output.write(first);
+                stdout.transferTo(output);
+            }
+        }
+        int exitCode = process.waitFor();
+        exitNanos[run] = System.nanoTime() - start;
+        String text = output.toString(StandardCharsets.UTF_8);
+        if (exitCode != 0) {
+            throw new IOException("Application exited with " + exitCode + ": " + text);
+        }
+        return text;
+    }
+}
@@ -0,0 +1,43 @@
+package com.stocktax.workload;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Launches fresh JVMs, so it only runs when {@code stocktax.startup.runs} sets the number of
+ * launches per mode; the regular build skips it
+ */
+@EnabledIfSystemProperty(named = "stocktax.startup.runs", matches = "[1-9][0-9]*")
+class StartupBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupBenchmarkTest.class);
+
+    private static final int RUNS = Integer.getInteger("stocktax.startup.runs", 1);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testFastStartWritesTheSameOutput() throws IOException, InterruptedException {
+        List<String> jvmOptions = StartupBenchmark.jvmOptionsFromSystemProperties();
+        StartupReport standard = new StartupBenchmark(jvmOptions, List.of(), tempDir)
+                .run(StartupBenchmark.SAMPLE_INPUT, RUNS);
+        StartupReport fastStart = new StartupBenchmark(jvmOptions, List.of("--fast-start"), tempDir)
+                .run(StartupBenchmark.SAMPLE_INPUT, RUNS);
+        logger.debug("default:    {}{}fast-start: {}", standard, System.lineSeparator(), fastStart);
+
+        assertEquals("[{\"tax\":0},{\"tax\":10000.0000}]", fastStart.getOutput().strip());
+        assertEquals(standard.getOutput(), fastStart.getOutput());
+        assertTrue(fastStart.getMinFirstOutputNanos() > 0);
+        assertTrue(fastStart.getMedianFirstOutputNanos() <= fastStart.getMedianExitNanos());
+    }
+}
@@ -0,0 +1,65 @@
+package com.stocktax.workload;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Outcome of one {@link StartupBenchmark} run
+ */
+public final class StartupReport {
+
+    private final int runs;
+    private final long minFirstOutputNanos;
+    private final long medianFirstOutputNanos;
+    private final long maxFirstOutputNanos;
+    private final long medianExitNanos;
+    private final String output;
+
+    StartupReport(long[] firstOutputNanos, long[] exitNanos, String output) {
+        long[] firstOutput = firstOutputNanos.clone();
+        long[] exit = exitNanos.clone();
+        Arrays.sort(firstOutput);
+        Arrays.sort(exit);
+        this.runs = firstOutput.length;
+        this.minFirstOutputNanos = firstOutput[0];
+        this.medianFirstOutputNanos = firstOutput[runs / 2];
+        this.maxFirstOutputNanos = firstOutput[runs - 1];
+        this.medianExitNanos = exit[runs / 2];
+        this.output = output;
+    }
+
+    public int getRuns() {
+        return runs;
+    }
+
+    public long getMinFirstOutputNanos() {
+        return minFirstOutputNanos;
+    }
+
+    public long getMedianFirstOutputNanos() {
+        return medianFirstOutputNanos;
+    }
+
+    public long getMaxFirstOutputNanos() {
+        return maxFirstOutputNanos;
+    }
+
+    public long getMedianExitNanos() {
+        return medianExitNanos;
+    }
+
+    /**
+     * Everything the last run wrote to stdout
+     */
+    public String getOutput() {
+        return output;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "runs=%d first output min=%.1fms median=%.1fms max=%.1fms exit median=%.1fms",
+                runs, minFirstOutputNanos / 1e6, medianFirstOutputNanos / 1e6, maxFirstOutputNanos / 1e6,
+                medianExitNanos / 1e6);
+    }
+}
@@ -0,0 +1,105 @@
+package com.stocktax.workload;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Writes input files in the application's format, one operation set per line. The same
+ * profile and seed always produce the same file, and no set sells more shares than it holds.
+ */
+public class WorkloadGenerator {
+
+    private static final long THRESHOLD_CENTS = 20000_00L;
+    private static final int MAX_LOT = 1000;
+
+    private final WorkloadProfile profile;
+
+    public WorkloadGenerator(WorkloadProfile profile) {
+        this.profile = profile;
+    }
+
+    public void generate(Path file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            generate(writer);
+        }
+    }
+
+    public void generate(Writer writer) throws IOException {
+        Writer out = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer);
+        Random random = new Random(profile.getSeed());
+        StringBuilder line = new StringBuilder(256);
+        for (int i = 0; i < profile.getSets(); i++) {
+            line.setLength(0);
+            appendSet(line, random);
+            out.append(line).append('\n');
+        }
+        out.flush();
+    }
+
+    private void appendSet(StringBuilder line, Random random) {
+        int operations = profile.getMinOperationsPerSet()
+                + random.nextInt(profile.getMaxOperationsPerSet() - profile.getMinOperationsPerSet() + 1);
+        boolean lossChain = random.nextDouble() < profile.getLossChainShare();
+        long priceCents = 500 + random.nextInt(9500);
+        long held = 0;
+
+        line.append('[');
+        for (int i = 0; i < operations; i++) {
+            if (i > 0) {
+                priceCents = nextPrice(priceCents, lossChain ? (i < operations / 2 ? -1 : 1) : 0, random);
+            }
+            if (i > 0) {
+                line.append(',');
+            }
+
+            if (held == 0 || random.nextDouble() < profile.getBuyRatio()) {
+                int quantity = 1 + random.nextInt(MAX_LOT);
+                appendOperation(line, "buy", priceCents, quantity);
+                held += quantity;
+                continue;
+            }
+
+            long maxBelowThreshold = THRESHOLD_CENTS / priceCents;
+            if (random.nextDouble() < profile.getLargeSellShare()) {
+                long needed = maxBelowThreshold + 1;
+                if (held < needed) {
+                    // not enough shares for a taxable sale yet; buy the difference first
+                    long quantity = needed - held + random.nextInt(MAX_LOT);
+                    appendOperation(line, "buy", priceCents, quantity);
+                    held += quantity;
+                } else {
+                    long quantity = needed + (long) (random.nextDouble() * (held - needed + 1));
+                    appendOperation(line, "sell", priceCents, quantity);
+                    held -= quantity;
+                }
+            } else {
+                long limit = Math.max(1, Math.min(held, maxBelowThreshold));
+                long quantity = 1 + (long) (random.nextDouble() * limit);
+                appendOperation(line, "sell", priceCents, quantity);
+                held -= quantity;
+            }
+        }
+        line.append(']');
+    }
+
+    /**
+     * Geometric random walk; a loss chain adds a drift of half the volatility per step
+     */
+    private long nextPrice(long priceCents, int drift, Random random) {
+        double volatility = profile.getVolatility();
+        double change = drift * volatility / 2 + volatility * random.nextGaussian();
+        return Math.max(1L, Math.round(priceCents * Math.exp(change)));
+    }
+
+    private static void appendOperation(StringBuilder line, String type, long priceCents, long quantity) {
+        line.append("{\"operation\":\"").append(type)
+                .append("\", \"unit-cost\":").append(BigDecimal.valueOf(priceCents, 2).toPlainString())
+                .append(", \"quantity\": ").append(quantity).append('}');
+    }
+}
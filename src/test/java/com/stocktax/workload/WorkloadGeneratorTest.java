@@ -0,0 +1,80 @@
+package com.stocktax.workload;
+
+import com.stocktax.domain.TaxCalculator;
+import com.stocktax.domain.model.Operation;
+import com.stocktax.infrastructure.adapters.JsonInputAdapter;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkloadGeneratorTest {
+
+    private static final BigDecimal THRESHOLD = new BigDecimal("20000.00");
+
+    @Test
+    void testSameSeedGivesSameFile() throws IOException {
+        WorkloadProfile profile = WorkloadProfile.builder().sets(50).seed(7).build();
+
+        assertEquals(generate(profile), generate(profile));
+        assertNotEquals(generate(profile), generate(WorkloadProfile.builder().sets(50).seed(8).build()));
+    }
+
+    @Test
+    void testGeneratedSetsMatchProfileAndNeverOversell() throws IOException {
+        WorkloadProfile profile = WorkloadProfile.builder()
+                .sets(500).operationsPerSet(5, 20).buyRatio(0.4).largeSellShare(0.5).build();
+
+        List<List<Operation>> sets = parse(generate(profile));
+
+        assertEquals(500, sets.size());
+        TaxCalculator calculator = new TaxCalculator();
+        long sells = 0;
+        long largeSells = 0;
+        for (List<Operation> set : sets) {
+            assertTrue(set.size() >= 5 && set.size() <= 20);
+            // throws when a set sells more than it holds
+            calculator.calculateTaxes(set);
+            for (Operation operation : set) {
+                if (operation.isSell()) {
+                    sells++;
+                    if (operation.getTotalAmount().compareTo(THRESHOLD) > 0) {
+                        largeSells++;
+                    }
+                }
+            }
+        }
+        double largeShare = (double) largeSells / sells;
+        assertTrue(largeShare > 0.2 && largeShare < 0.8, "large sell share " + largeShare);
+    }
+
+    @Test
+    void testLossChainsCarryLossesIntoLaterSells() throws IOException {
+        WorkloadProfile profile = WorkloadProfile.builder()
+                .sets(200).operationsPerSet(20, 40).lossChainShare(1.0).volatility(0.1).build();
+
+        TaxCalculator calculator = new TaxCalculator();
+        long taxed = 0;
+        for (List<Operation> set : parse(generate(profile))) {
+            taxed += TaxCalculator.countTaxed(calculator.calculateTaxes(set));
+        }
+
+        assertTrue(taxed > 0);
+    }
+
+    private static String generate(WorkloadProfile profile) throws IOException {
+        StringWriter writer = new StringWriter();
+        new WorkloadGenerator(profile).generate(writer);
+        return writer.toString();
+    }
+
+    private static List<List<Operation>> parse(String input) throws IOException {
+        return new JsonInputAdapter(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8))).readOperations();
+    }
+}
@@ -0,0 +1,165 @@
+package com.stocktax.workload;
+
+/**
+ * Shape of a synthetic workload. Every setting can be overridden with a
+ * {@code stocktax.workload.*} system property, see {@link #fromSystemProperties()}.
+ */
+public final class WorkloadProfile {
+
+    private static final String PREFIX = "stocktax.workload.";
+
+    private final int sets;
+    private final int minOperationsPerSet;
+    private final int maxOperationsPerSet;
+    private final double buyRatio;
+    private final double volatility;
+    private final double largeSellShare;
+    private final double lossChainShare;
+    private final long seed;
+
+    private WorkloadProfile(Builder builder) {
+        if (builder.sets < 0 || builder.minOperationsPerSet < 1
+                || builder.maxOperationsPerSet < builder.minOperationsPerSet) {
+            throw new IllegalArgumentException("Invalid set count or operations per set");
+        }
+        this.sets = builder.sets;
+        this.minOperationsPerSet = builder.minOperationsPerSet;
+        this.maxOperationsPerSet = builder.maxOperationsPerSet;
+        this.buyRatio = builder.buyRatio;
+        this.volatility = builder.volatility;
+        this.largeSellShare = builder.largeSellShare;
+        this.lossChainShare = builder.lossChainShare;
+        this.seed = builder.seed;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Defaults overridden by e.g. {@code -Dstocktax.workload.sets=1000000}
+     */
+    public static WorkloadProfile fromSystemProperties() {
+        Builder defaults = builder();
+        return builder()
+                .sets(Integer.getInteger(PREFIX + "sets", defaults.sets))
+                .operationsPerSet(Integer.getInteger(PREFIX + "min-ops", defaults.minOperationsPerSet),
+                        Integer.getInteger(PREFIX + "max-ops", defaults.maxOperationsPerSet))
+                .buyRatio(doubleProperty("buy-ratio", defaults.buyRatio))
+                .volatility(doubleProperty("volatility", defaults.volatility))
+                .largeSellShare(doubleProperty("large-sell-share", defaults.largeSellShare))
+                .lossChainShare(doubleProperty("loss-chain-share", defaults.lossChainShare))
+                .seed(Long.getLong(PREFIX + "seed", defaults.seed))
+                .build();
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        String value = System.getProperty(PREFIX + name);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    public int getSets() {
+        return sets;
+    }
+
+    public int getMinOperationsPerSet() {
+        return minOperationsPerSet;
+    }
+
+    public int getMaxOperationsPerSet() {
+        return maxOperationsPerSet;
+    }
+
+    /**
+     * Probability that an operation is a buy while shares are held
+     */
+    public double getBuyRatio() {
+        return buyRatio;
+    }
+
+    /**
+     * Standard deviation of the per-operation log price change
+     */
+    public double getVolatility() {
+        return volatility;
+    }
+
+    /**
+     * Share of sells whose total amount is above the 20000 tax threshold
+     */
+    public double getLargeSellShare() {
+        return largeSellShare;
+    }
+
+    /**
+     * Share of sets whose price falls for the first half and recovers in the second,
+     * so losses are carried forward and later deducted
+     */
+    public double getLossChainShare() {
+        return lossChainShare;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public String toString() {
+        return "WorkloadProfile{sets=" + sets + ", operationsPerSet=" + minOperationsPerSet + ".."
+                + maxOperationsPerSet + ", buyRatio=" + buyRatio + ", volatility=" + volatility
+                + ", largeSellShare=" + largeSellShare + ", lossChainShare=" + lossChainShare
+                + ", seed=" + seed + '}';
+    }
+
+    public static final class Builder {
+
+        private int sets = 1000;
+        private int minOperationsPerSet = 1;
+        private int maxOperationsPerSet = 50;
+        private double buyRatio = 0.5;
+        private double volatility = 0.05;
+        private double largeSellShare = 0.3;
+        private double lossChainShare = 0.1;
+        private long seed = 42L;
+
+        public Builder sets(int sets) {
+            this.sets = sets;
+            return this;
+        }
+
+        public Builder operationsPerSet(int min, int max) {
+            this.minOperationsPerSet = min;
+            this.maxOperationsPerSet = max;
+            return this;
+        }
+
+        public Builder buyRatio(double buyRatio) {
+            this.buyRatio = buyRatio;
+            return this;
+        }
+
+        public Builder volatility(double volatility) {
+            this.volatility = volatility;
+            return this;
+        }
+
+        public Builder largeSellShare(double largeSellShare) {
+            this.largeSellShare = largeSellShare;
+            return this;
+        }
+
+        public Builder lossChainShare(double lossChainShare) {
+            this.lossChainShare = lossChainShare;
+            return this;
+        }
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public WorkloadProfile build() {
+            return new WorkloadProfile(this);
+        }
+    }
+}